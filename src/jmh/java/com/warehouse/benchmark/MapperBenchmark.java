@@ -0,0 +1,78 @@
+package com.warehouse.benchmark;
+
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.mapper.InventoryMapper;
+import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Warehouse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping entity graphs to response DTOs with the MapStruct mappers, for graphs of
+ * {@code size} inventories. Divide the time and, with {@code -prof gc}, {@code gc.alloc.rate.norm}
+ * by {@code size} for the cost per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    private int size;
+
+    private AnnotationConfigApplicationContext context;
+    private InventoryMapper inventoryMapper;
+    private WarehouseMapper warehouseMapper;
+    private Warehouse warehouse;
+    private List<Inventory> inventories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ObjectGraphs.mappers();
+        inventoryMapper = context.getBean(InventoryMapper.class);
+        warehouseMapper = context.getBean(WarehouseMapper.class);
+        warehouse = ObjectGraphs.warehouse(size);
+        inventories = warehouse.getInventories();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * {@code GET /api/inventories} and friends: a list of inventories with their warehouse and product.
+     */
+    @Benchmark
+    public List<ResponseInventoryDTO> inventoryListToResponseDto() {
+        return inventoryMapper.toResponseDto(inventories);
+    }
+
+    /**
+     * {@code GET /api/warehouses/{id}}: a warehouse with nested inventories and products.
+     */
+    @Benchmark
+    public ResponseWarehouseDTO warehouseToResponseDto() {
+        return warehouseMapper.toResponseDto(warehouse);
+    }
+}
@@ -0,0 +1,92 @@
+package com.warehouse.benchmark;
+
+import com.warehouse.dto.mapper.InventoryMapperImpl;
+import com.warehouse.dto.mapper.MinimalWarehouseMapperImpl;
+import com.warehouse.dto.mapper.ProductMapperImpl;
+import com.warehouse.dto.mapper.ReferenceMapperImpl;
+import com.warehouse.dto.mapper.WarehouseMapperImpl;
+import com.warehouse.entity.BaseEntity;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds entity graphs shaped like the ones the read endpoints map and serialize, and the
+ * MapStruct mappers wired the way the application wires them.
+ */
+final class ObjectGraphs {
+
+    private static final int PRODUCTS = 5_000;
+    private static final int CATEGORIES = 40;
+
+    private ObjectGraphs() {
+    }
+
+    /**
+     * Starts a Spring context holding only the generated mapper implementations, which are
+     * wired to each other by field injection.
+     */
+    static AnnotationConfigApplicationContext mappers() {
+        return new AnnotationConfigApplicationContext(InventoryMapperImpl.class, MinimalWarehouseMapperImpl.class,
+                ProductMapperImpl.class, ReferenceMapperImpl.class, WarehouseMapperImpl.class);
+    }
+
+    /**
+     * Builds one warehouse holding the given number of inventories, whose products are drawn from a
+     * shared catalog as they would be in a persistence context.
+     */
+    static Warehouse warehouse(int inventories) {
+        SplittableRandom random = new SplittableRandom(inventories);
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(1L);
+        warehouse.setName("Central Distribution Center");
+        warehouse.setAddress("1200 Logistics Parkway, Springfield");
+        warehouse.setCapacity(new BigDecimal("250000.00"));
+        warehouse.setManagerName("Jordan Rivera");
+        stamp(warehouse);
+
+        List<Product> catalog = new ArrayList<>(Math.min(inventories, PRODUCTS));
+        for (int p = 0; p < Math.min(inventories, PRODUCTS); p++)
+            catalog.add(product(p, random));
+
+        List<Inventory> items = new ArrayList<>(inventories);
+        for (int i = 0; i < inventories; i++) {
+            Inventory inventory = new Inventory();
+            inventory.setId((long) i + 1);
+            inventory.setQuantity(random.nextInt(1_000));
+            inventory.setMinStock(50);
+            inventory.setMaxStock(1_000);
+            inventory.setWarehouse(warehouse);
+            inventory.setProduct(catalog.get(i % catalog.size()));
+            stamp(inventory);
+            items.add(inventory);
+        }
+        warehouse.setInventories(items);
+        return warehouse;
+    }
+
+    private static Product product(int index, SplittableRandom random) {
+        Product product = new Product();
+        product.setId((long) index + 1);
+        product.setName("Industrial Component " + index);
+        product.setDescription("Heavy-duty replacement part, model " + index + ", rated for continuous operation");
+        product.setPrice(BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+        product.setCategory("Category " + index % CATEGORIES);
+        product.setWeight(BigDecimal.valueOf(1 + random.nextInt(5_000), 2));
+        stamp(product);
+        return product;
+    }
+
+    private static void stamp(BaseEntity entity) {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        entity.setCreatedAt(now);
+        entity.setUpdatedAt(now);
+    }
+}
@@ -0,0 +1,111 @@
+package com.warehouse.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.mapper.InventoryMapper;
+import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import com.warehouse.entity.Warehouse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost and size of the response formats the API negotiates, for a warehouse and an inventory list of
+ * {@code size} records: JSON, CBOR and Smile, each with and without the gzip compression the server
+ * applies for clients sending {@code Accept-Encoding: gzip}. The payload sizes are printed once per
+ * trial, ahead of the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private ResponseWarehouseDTO warehouse;
+    private List<ResponseInventoryDTO> inventories;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .filters(FieldSelection.ALL_FIELDS)
+                .build();
+        Warehouse entity = ObjectGraphs.warehouse(size);
+        try (AnnotationConfigApplicationContext context = ObjectGraphs.mappers()) {
+            warehouse = context.getBean(WarehouseMapper.class).toResponseDto(entity);
+            inventories = context.getBean(InventoryMapper.class).toResponseDto(entity.getInventories());
+        }
+        System.out.printf("%npayload size=%d format=%s gzip=%s: warehouse %d bytes, inventory list %d bytes%n",
+                size, format, gzip, payloadSize(warehouse), payloadSize(inventories));
+    }
+
+    @Benchmark
+    public void warehouse() throws IOException {
+        write(OutputStream.nullOutputStream(), warehouse);
+    }
+
+    @Benchmark
+    public void inventoryList() throws IOException {
+        write(OutputStream.nullOutputStream(), inventories);
+    }
+
+    private int payloadSize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(bytes, value);
+        return bytes.size();
+    }
+
+    private void write(OutputStream out, Object value) throws IOException {
+        if (!gzip) {
+            objectMapper.writeValue(out, value);
+            return;
+        }
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out, 8192)) {
+            objectMapper.writeValue(compressed, value);
+        }
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.warehouse.benchmark;
+
+import com.warehouse.WarehouseApplication;
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.mapper.InventoryMapper;
+import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import com.warehouse.service.WarehouseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of the {@code getAllWarehouses} and {@code getAllInventories} read paths against an in-memory H2
+ * database holding {@code inventories} records spread over 20 warehouses, by the transaction the
+ * entities are loaded and mapped in:
+ * <ul>
+ *     <li>{@code none}: the repository and mapper called without a service transaction, as the services
+ *     did before their reads were made transactional. The {@code findAll} queries still run in the
+ *     read-only transaction Spring Data gives inherited repository methods, and the mappers only touch
+ *     fetched associations, so this matches {@code read-only};</li>
+ *     <li>{@code read-write}: the same inside a read-write transaction, which keeps a dirty-checking
+ *     snapshot of every loaded entity and flushes on commit;</li>
+ *     <li>{@code read-only}: the service method, in its read-only transaction.</li>
+ * </ul>
+ * Run with {@code -prof gc} for the allocation per call ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int WAREHOUSES = 20;
+    private static final int PRODUCTS = 500;
+
+    @Param({"2000"})
+    private int inventories;
+
+    @Param({"none", "read-write", "read-only"})
+    private String transaction;
+
+    private ConfigurableApplicationContext context;
+    private WarehouseService warehouseService;
+    private InventoryService inventoryService;
+    private WarehouseRepository warehouseRepository;
+    private InventoryRepository inventoryRepository;
+    private WarehouseMapper warehouseMapper;
+    private InventoryMapper inventoryMapper;
+    private TransactionTemplate readWrite;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(WarehouseApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:read_path;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "warehouse.sql-accounting.enabled=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        warehouseService = context.getBean(WarehouseService.class);
+        inventoryService = context.getBean(InventoryService.class);
+        warehouseRepository = context.getBean(WarehouseRepository.class);
+        inventoryRepository = context.getBean(InventoryRepository.class);
+        warehouseMapper = context.getBean(WarehouseMapper.class);
+        inventoryMapper = context.getBean(InventoryMapper.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readWrite.executeWithoutResult(status -> seed());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ResponseWarehouseDTO> getAllWarehouses() {
+        if (transaction.equals("read-only"))
+            return warehouseService.getAllWarehouses();
+        return asBefore(() -> warehouseMapper.toResponseDto(warehouseRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<ResponseInventoryDTO> getAllInventories() {
+        if (transaction.equals("read-only"))
+            return inventoryService.getAllInventories();
+        return asBefore(() -> inventoryMapper.toResponseDto(inventoryRepository.findAll()));
+    }
+
+    private <T> T asBefore(Supplier<T> read) {
+        return transaction.equals("read-write") ? readWrite.execute(status -> read.get()) : read.get();
+    }
+
+    private void seed() {
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int p = 0; p < PRODUCTS; p++) {
+            Product product = new Product();
+            product.setName("Product " + p);
+            product.setDescription("Benchmark product " + p);
+            product.setPrice(BigDecimal.valueOf(100 + p, 2));
+            product.setCategory("Category " + p % 40);
+            product.setWeight(BigDecimal.valueOf(p % 50 + 1, 1));
+            products.add(productRepository.save(product));
+        }
+        List<Warehouse> warehouses = new ArrayList<>(WAREHOUSES);
+        for (int w = 0; w < WAREHOUSES; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("Warehouse " + w);
+            warehouse.setAddress(w + " Logistics Parkway");
+            warehouse.setCapacity(BigDecimal.valueOf(250_000));
+            warehouse.setManagerName("Manager " + w);
+            warehouses.add(warehouseRepository.save(warehouse));
+        }
+        for (int i = 0; i < inventories; i++) {
+            Inventory inventory = new Inventory();
+            inventory.setWarehouse(warehouses.get(i % WAREHOUSES));
+            inventory.setProduct(products.get(i / WAREHOUSES % PRODUCTS));
+            inventory.setQuantity(i % 200);
+            inventory.setMinStock(20);
+            inventory.setMaxStock(500);
+            inventoryRepository.save(inventory);
+        }
+    }
+}
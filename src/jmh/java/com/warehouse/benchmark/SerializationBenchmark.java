@@ -0,0 +1,74 @@
+package com.warehouse.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.mapper.InventoryMapper;
+import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import com.warehouse.entity.Warehouse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing response DTOs to JSON with an {@link ObjectMapper} configured like Spring Boot's,
+ * for graphs of {@code size} inventories. Writing to a discarding stream measures what the HTTP
+ * message converter does; writing to a byte array adds the buffer a caller would hold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000", "100000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private ResponseWarehouseDTO warehouse;
+    private List<ResponseInventoryDTO> inventories;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().filters(FieldSelection.ALL_FIELDS).build();
+        Warehouse entity = ObjectGraphs.warehouse(size);
+        try (AnnotationConfigApplicationContext context = ObjectGraphs.mappers()) {
+            warehouse = context.getBean(WarehouseMapper.class).toResponseDto(entity);
+            inventories = context.getBean(InventoryMapper.class).toResponseDto(entity.getInventories());
+        }
+    }
+
+    @Benchmark
+    public void warehouseToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), warehouse);
+    }
+
+    @Benchmark
+    public byte[] warehouseToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(warehouse);
+    }
+
+    @Benchmark
+    public void inventoryListToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), inventories);
+    }
+}
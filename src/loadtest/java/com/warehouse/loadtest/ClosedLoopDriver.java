@@ -0,0 +1,87 @@
+package com.warehouse.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Drives a fixed number of concurrent users, each sending its next request as soon as the previous
+ * one completes, for a warm-up period followed by a measured period. Requests are sent asynchronously,
+ * so the driver needs no thread per user and does not itself become the bottleneck.
+ */
+final class ClosedLoopDriver {
+
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    ClosedLoopDriver(HttpClient client, List<Endpoint> endpoints) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+    }
+
+    /**
+     * Runs the load and returns the summary of each endpoint over the measured period.
+     *
+     * @param users    the number of concurrent users
+     * @param warmup   the period whose requests are not recorded
+     * @param duration the measured period
+     * @return the summary of each endpoint, in mix order
+     * @throws InterruptedException if interrupted while waiting for the run to end
+     */
+    Map<String, LatencySummary> run(int users, Duration warmup, Duration duration) throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints)
+            recorders.put(endpoint.name(), new LatencyRecorder());
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        CountDownLatch finished = new CountDownLatch(users);
+        SplittableRandom seeds = new SplittableRandom(42);
+        for (int user = 0; user < users; user++)
+            next(seeds.split(), recorders, measureFrom, end, finished);
+        finished.await();
+
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        double seconds = duration.toNanos() / 1e9;
+        recorders.forEach((name, recorder) -> summaries.put(name, recorder.summarize(seconds)));
+        return summaries;
+    }
+
+    private void next(SplittableRandom random, Map<String, LatencyRecorder> recorders,
+                      long measureFrom, long end, CountDownLatch finished) {
+        long sent = System.nanoTime();
+        if (sent >= end) {
+            finished.countDown();
+            return;
+        }
+        Endpoint endpoint = pick(random);
+        HttpRequest request = endpoint.request().apply(random);
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long completed = System.nanoTime();
+            if (sent >= measureFrom && completed <= end) {
+                boolean successful = failure == null && response.statusCode() / 100 == 2;
+                recorders.get(endpoint.name()).record(completed - sent, successful);
+            }
+            next(random, recorders, measureFrom, end, finished);
+        });
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0)
+                return endpoint;
+        }
+        throw new IllegalStateException();
+    }
+}
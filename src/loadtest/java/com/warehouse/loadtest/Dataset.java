@@ -0,0 +1,129 @@
+package com.warehouse.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The IDs of the warehouses, products and inventories a load test addresses, read from a running
+ * application through its API and seeded through the API if there are fewer inventories than requested.
+ *
+ * @param warehouseIds the warehouse IDs
+ * @param productIds   the product IDs
+ * @param inventoryIds the inventory IDs
+ */
+record Dataset(List<Long> warehouseIds, List<Long> productIds, List<Long> inventoryIds) {
+
+    /**
+     * Number of distinct categories of the seeded products.
+     */
+    static final int CATEGORIES = 25;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Loads the dataset of the application, seeding {@code warehouses × products} inventories first
+     * if it holds fewer inventories than that.
+     *
+     * @param client     the client to call the API with
+     * @param baseUrl    the base URL of the application
+     * @param warehouses the number of warehouses to seed
+     * @param products   the number of products to seed
+     * @return the dataset
+     */
+    static Dataset loadOrSeed(HttpClient client, String baseUrl, int warehouses, int products)
+            throws IOException, InterruptedException {
+        Dataset dataset = load(client, baseUrl);
+        if (dataset.inventoryIds().size() >= warehouses * products)
+            return dataset;
+        seed(client, baseUrl, warehouses, products);
+        return load(client, baseUrl);
+    }
+
+    /**
+     * Reads the IDs of all inventories, and of their warehouses and products, page by page.
+     */
+    static Dataset load(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        Set<Long> warehouseIds = new LinkedHashSet<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        List<Long> inventoryIds = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            JsonNode page = get(client, baseUrl + "/api/inventories?limit=1000&after=" + after);
+            for (JsonNode inventory : page.get("items")) {
+                inventoryIds.add(inventory.get("id").asLong());
+                warehouseIds.add(inventory.get("warehouse").get("id").asLong());
+                productIds.add(inventory.get("product").get("id").asLong());
+            }
+            if (page.get("nextCursor").isNull())
+                break;
+            after = page.get("nextCursor").asLong();
+        }
+        return new Dataset(List.copyOf(warehouseIds), List.copyOf(productIds), inventoryIds);
+    }
+
+    private static void seed(HttpClient client, String baseUrl, int warehouses, int products)
+            throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Long> warehouseIds = new ArrayList<>();
+        for (int w = 0; w < warehouses; w++)
+            warehouseIds.add(post(client, baseUrl + "/api/warehouses", Map.of(
+                    "name", "Load Test Warehouse " + w,
+                    "address", w + " Benchmark Road",
+                    "capacity", BigDecimal.valueOf(10_000 + random.nextInt(90_000)),
+                    "managerName", "Manager " + w)).get("id").asLong());
+        List<Long> productIds = new ArrayList<>();
+        for (int p = 0; p < products; p++)
+            productIds.add(post(client, baseUrl + "/api/products", Map.of(
+                    "name", "Load Test Product " + p,
+                    "description", "Seeded for load testing",
+                    "price", BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    "category", "Category " + (p % CATEGORIES),
+                    "weight", BigDecimal.valueOf(1 + random.nextInt(5_000), 2)
+            )).get("id").asLong());
+
+        StringBuilder rows = new StringBuilder();
+        for (Long warehouseId : warehouseIds)
+            for (Long productId : productIds)
+                rows.append(JSON.writeValueAsString(Map.of(
+                        "quantity", random.nextInt(500),
+                        "minStock", 50,
+                        "maxStock", 1000,
+                        "warehouse", Map.of("id", warehouseId),
+                        "product", Map.of("id", productId)))).append('\n');
+        send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/inventories/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(rows.toString()))
+                .build());
+    }
+
+    private static JsonNode get(HttpClient client, String url) throws IOException, InterruptedException {
+        return send(client, HttpRequest.newBuilder(URI.create(url)).GET().build());
+    }
+
+    private static JsonNode post(HttpClient client, String url, Object body) throws IOException, InterruptedException {
+        return send(client, HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)))
+                .build());
+    }
+
+    private static JsonNode send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2)
+            throw new IOException(request.method() + " " + request.uri() + " returned " + response.statusCode());
+        return JSON.readTree(response.body());
+    }
+}
@@ -0,0 +1,14 @@
+package com.warehouse.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * A request type of a load mix, picked with a probability proportional to its weight.
+ *
+ * @param name    the name results are reported under
+ * @param weight  the relative frequency of the request
+ * @param request builds a request, choosing its parameters from the given random generator
+ */
+record Endpoint(String name, int weight, Function<RandomGenerator, HttpRequest> request) {}
@@ -0,0 +1,51 @@
+package com.warehouse.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe recorder of request latencies for one endpoint. Every sample is kept, so percentiles
+ * are exact; a run of a few million requests needs a few tens of megabytes.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 14];
+    private int count;
+    private long errors;
+
+    /**
+     * Records one completed request.
+     *
+     * @param nanos      the latency of the request
+     * @param successful whether the request returned a 2xx status
+     */
+    synchronized void record(long nanos, boolean successful) {
+        if (!successful) {
+            errors++;
+            return;
+        }
+        if (count == samples.length)
+            samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    /**
+     * Summarizes the recorded requests.
+     *
+     * @param seconds the duration the requests were recorded over
+     * @return the summary
+     */
+    synchronized LatencySummary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new LatencySummary(count, errors, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                count == 0 ? 0 : sorted[count - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,26 @@
+package com.warehouse.loadtest;
+
+/**
+ * Throughput and latency percentiles of one endpoint over a measured run. Latencies are in milliseconds
+ * and cover successful requests only.
+ */
+record LatencySummary(
+        long requests,
+        long errors,
+        double throughput,
+        double p50,
+        double p95,
+        double p99,
+        double max
+) {
+
+    String format(String name) {
+        return String.format("%-28s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                name, requests, errors, throughput, p50, p95, p99, max);
+    }
+
+    static String header() {
+        return String.format("%-28s %9s %7s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    }
+}
@@ -0,0 +1,135 @@
+package com.warehouse.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Request mixes driven by the load tests, addressing the entities of a {@link Dataset}.
+ */
+final class LoadMixes {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private LoadMixes() {
+    }
+
+    /**
+     * Read-heavy mix of the inventory endpoints with a share of stock adjustments.
+     */
+    static List<Endpoint> inventory(String baseUrl, Dataset dataset) {
+        List<Long> inventories = dataset.inventoryIds();
+        List<Long> warehouses = dataset.warehouseIds();
+        return List.of(
+                new Endpoint("GET inventory by id", 40, random -> get(baseUrl + "/api/inventories/"
+                        + pick(inventories, random))),
+                new Endpoint("GET inventory page", 20, random -> get(baseUrl + "/api/inventories?limit=100&after="
+                        + pick(inventories, random))),
+                new Endpoint("GET warehouse inventory", 15, random -> get(baseUrl + "/api/warehouses/"
+                        + pick(warehouses, random) + "/inventory")),
+                new Endpoint("GET low stock", 5, random -> get(baseUrl + "/api/inventories/lowstock?warehouseId="
+                        + pick(warehouses, random))),
+                new Endpoint("POST adjust", 20, random -> adjust(baseUrl, pick(inventories, random), random)));
+    }
+
+    /**
+     * Mix of the inventory, product and warehouse endpoints in the proportions of production traffic:
+     * mostly point reads and searches, some pages and whole warehouses, and stock adjustments.
+     */
+    static List<Endpoint> mixed(String baseUrl, Dataset dataset) {
+        List<Long> inventories = dataset.inventoryIds();
+        List<Long> warehouses = dataset.warehouseIds();
+        List<Long> products = dataset.productIds();
+        return List.of(
+                new Endpoint("GET inventory by id", 20, random -> get(baseUrl + "/api/inventories/"
+                        + pick(inventories, random))),
+                new Endpoint("GET inventory page", 8, random -> get(baseUrl + "/api/inventories?limit=100&after="
+                        + pick(inventories, random))),
+                new Endpoint("GET low stock", 4, random -> get(baseUrl + "/api/inventories/lowstock?warehouseId="
+                        + pick(warehouses, random))),
+                new Endpoint("POST adjust", 10, random -> adjust(baseUrl, pick(inventories, random), random)),
+                new Endpoint("GET product by id", 15, random -> get(baseUrl + "/api/products/"
+                        + pick(products, random))),
+                new Endpoint("GET product search", 10, random -> get(baseUrl + "/api/products/search?category=Category%20"
+                        + random.nextInt(Dataset.CATEGORIES) + "&maxPrice=" + (10 + random.nextInt(990)) + "&size=50")),
+                new Endpoint("GET product suggest", 10, random -> get(baseUrl + "/api/products/suggest?q=product%20"
+                        + random.nextInt(100))),
+                new Endpoint("GET warehouse by id", 3, random -> get(baseUrl + "/api/warehouses/"
+                        + pick(warehouses, random))),
+                new Endpoint("GET warehouse page", 2, random -> get(baseUrl + "/api/warehouses?limit=5&after="
+                        + pick(warehouses, random))),
+                new Endpoint("GET warehouse inventory", 8, random -> get(baseUrl + "/api/warehouses/"
+                        + pick(warehouses, random) + "/inventory")),
+                new Endpoint("GET warehouse suggest", 5, random -> get(baseUrl + "/api/warehouses/suggest?q=ware")));
+    }
+
+    /**
+     * Transfers of one unit between random pairs of warehouses, so every pair is crossed in both directions
+     * at once, of a few hot products: half move one product, half move a batch of distinct products listed
+     * in random order.
+     */
+    static List<Endpoint> transfers(String baseUrl, Dataset dataset, int hotProducts, int batchSize) {
+        List<Long> warehouses = dataset.warehouseIds();
+        List<Long> products = dataset.productIds().subList(0, Math.min(hotProducts, dataset.productIds().size()));
+        int items = Math.min(batchSize, products.size());
+        return List.of(
+                new Endpoint("POST transfer product", 50, random -> {
+                    Long[] route = route(warehouses, random);
+                    return post(baseUrl + "/api/warehouses/" + route[0] + "/inventory/product/transfer?id="
+                            + pick(products, random), Map.of("toWarehouseId", route[1], "quantity", 1));
+                }),
+                new Endpoint("POST transfer batch", 50, random -> {
+                    Long[] route = route(warehouses, random);
+                    List<Long> shuffled = new ArrayList<>(products);
+                    for (int i = shuffled.size() - 1; i > 0; i--)
+                        Collections.swap(shuffled, i, random.nextInt(i + 1));
+                    List<Map<String, Object>> moved = new ArrayList<>(items);
+                    for (Long productId : shuffled.subList(0, items))
+                        moved.add(Map.of("productId", productId, "quantity", 1));
+                    return post(baseUrl + "/api/warehouses/" + route[0] + "/inventory/transfer",
+                            Map.of("toWarehouseId", route[1], "items", moved));
+                }));
+    }
+
+    /**
+     * Picks two distinct warehouses, the source and the destination of a transfer.
+     */
+    private static Long[] route(List<Long> warehouses, RandomGenerator random) {
+        int from = random.nextInt(warehouses.size());
+        int to = (from + 1 + random.nextInt(warehouses.size() - 1)) % warehouses.size();
+        return new Long[] {warehouses.get(from), warehouses.get(to)};
+    }
+
+    private static Long pick(List<Long> ids, RandomGenerator random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static HttpRequest adjust(String baseUrl, Long inventoryId, RandomGenerator random) {
+        return post(baseUrl + "/api/inventories/" + inventoryId + "/adjust",
+                Map.of("delta", random.nextBoolean() ? 1 : -1, "allowNegative", true));
+    }
+
+    static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build();
+    }
+
+    static HttpRequest post(String url, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.warehouse.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed total rate regardless of how fast the application answers, for a warm-up
+ * period followed by a measured period. Latency is measured from the time a request was scheduled
+ * to be sent, so a stalled server shows up in the percentiles instead of silently lowering the rate.
+ * <p>
+ * At most {@code maxInFlight} requests are outstanding; a request that would exceed that is not sent
+ * and counts as an error.
+ */
+final class OpenLoopDriver {
+
+    private final HttpClient client;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    OpenLoopDriver(HttpClient client, List<Endpoint> endpoints) {
+        this.client = client;
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+    }
+
+    /**
+     * Runs the load and returns the summary of each endpoint over the measured period.
+     *
+     * @param ratePerSecond the total number of requests sent per second, split by endpoint weight
+     * @param maxInFlight   the maximum number of outstanding requests
+     * @param warmup        the period whose requests are not recorded
+     * @param duration      the measured period
+     * @return the summary of each endpoint, in mix order
+     * @throws InterruptedException if interrupted while waiting for outstanding requests
+     */
+    Map<String, LatencySummary> run(double ratePerSecond, int maxInFlight, Duration warmup, Duration duration)
+            throws InterruptedException {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints)
+            recorders.put(endpoint.name(), new LatencyRecorder());
+
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom(42);
+        long interval = (long) (1e9 / ratePerSecond);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            Endpoint endpoint = pick(random);
+            boolean measured = scheduled >= measureFrom;
+            LatencyRecorder recorder = recorders.get(endpoint.name());
+            if (!inFlight.tryAcquire()) {
+                if (measured)
+                    recorder.record(0, false);
+                continue;
+            }
+            HttpRequest request = endpoint.request().apply(random);
+            long intended = scheduled;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                inFlight.release();
+                if (measured)
+                    recorder.record(System.nanoTime() - intended,
+                            failure == null && response.statusCode() / 100 == 2);
+            });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS))
+            throw new IllegalStateException("Requests still outstanding a minute after the run ended");
+
+        Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        double seconds = duration.toNanos() / 1e9;
+        recorders.forEach((name, recorder) -> summaries.put(name, recorder.summarize(seconds)));
+        return summaries;
+    }
+
+    private Endpoint pick(SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            ticket -= endpoint.weight();
+            if (ticket < 0)
+                return endpoint;
+        }
+        throw new IllegalStateException();
+    }
+}
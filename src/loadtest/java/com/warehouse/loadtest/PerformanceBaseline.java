@@ -0,0 +1,69 @@
+package com.warehouse.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads, writes and compares per-endpoint load test results stored as JSON.
+ */
+final class PerformanceBaseline {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private PerformanceBaseline() {
+    }
+
+    static Map<String, LatencySummary> read(Path path) throws IOException {
+        return JSON.readValue(path.toFile(), new TypeReference<LinkedHashMap<String, LatencySummary>>() {});
+    }
+
+    static void write(Path path, Map<String, LatencySummary> results) throws IOException {
+        if (path.getParent() != null)
+            Files.createDirectories(path.getParent());
+        JSON.writeValue(path.toFile(), results);
+    }
+
+    /**
+     * Lists the endpoints whose p95 or p99 latency exceeds the baseline by more than the relative
+     * threshold and by more than {@code minDeltaMillis}, or whose error rate exceeds {@code maxErrorRate}.
+     * The absolute margin keeps sub-millisecond noise on fast endpoints from failing the gate.
+     *
+     * @param baseline       the baseline results
+     * @param current        the results of this run
+     * @param threshold      the allowed relative increase, e.g. {@code 0.25} for 25%
+     * @param minDeltaMillis the smallest increase in milliseconds that counts as a regression
+     * @param maxErrorRate   the allowed share of failed requests
+     * @return one description per regression, empty if there is none
+     */
+    static List<String> regressions(Map<String, LatencySummary> baseline, Map<String, LatencySummary> current,
+                                    double threshold, double minDeltaMillis, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+        current.forEach((name, result) -> {
+            long total = result.requests() + result.errors();
+            if (total > 0 && (double) result.errors() / total > maxErrorRate)
+                regressions.add(String.format("%s: %d of %d requests failed", name, result.errors(), total));
+            LatencySummary base = baseline.get(name);
+            if (base == null)
+                return;
+            check(regressions, name, "p95", base.p95(), result.p95(), threshold, minDeltaMillis);
+            check(regressions, name, "p99", base.p99(), result.p99(), threshold, minDeltaMillis);
+        });
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String name, String percentile, double base, double current,
+                              double threshold, double minDeltaMillis) {
+        if (current > base * (1 + threshold) && current - base > minDeltaMillis)
+            regressions.add(String.format("%s: %s %.2f ms exceeds baseline %.2f ms by more than %.0f%%",
+                    name, percentile, current, base, threshold * 100));
+    }
+}
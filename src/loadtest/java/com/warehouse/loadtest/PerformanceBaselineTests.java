@@ -0,0 +1,49 @@
+package com.warehouse.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerformanceBaselineTests {
+
+    private static final Map<String, LatencySummary> BASELINE = Map.of(
+            "GET /api/products/{id}", summary(0, 2.0, 4.0),
+            "GET /api/warehouses/{id}", summary(0, 40.0, 80.0));
+
+    @Test
+    void flagsPercentilesAboveTheRelativeThreshold() {
+        assertThat(PerformanceBaseline.regressions(BASELINE, Map.of(
+                        "GET /api/warehouses/{id}", summary(0, 49.0, 101.0)), 0.25, 5, 0.01))
+                .singleElement().asString().startsWith("GET /api/warehouses/{id}: p99 ");
+    }
+
+    @Test
+    void ignoresIncreasesBelowTheAbsoluteFloor() {
+        assertThat(PerformanceBaseline.regressions(BASELINE, Map.of(
+                "GET /api/products/{id}", summary(0, 6.0, 8.5)), 0.25, 5, 0.01)).isEmpty();
+        assertThat(PerformanceBaseline.regressions(BASELINE, Map.of(
+                "GET /api/products/{id}", summary(0, 7.5, 8.5)), 0.25, 5, 0.01))
+                .singleElement().asString().startsWith("GET /api/products/{id}: p95 ");
+    }
+
+    @Test
+    void flagsErrorRatesAboveTheLimitWithOrWithoutABaseline() {
+        assertThat(PerformanceBaseline.regressions(BASELINE, Map.of(
+                "GET /api/products/{id}", summary(10, 2.0, 4.0)), 0.25, 5, 0.01)).isEmpty();
+        assertThat(PerformanceBaseline.regressions(BASELINE, Map.of(
+                "GET /api/products/{id}", summary(11, 2.0, 4.0)), 0.25, 5, 0.01))
+                .containsExactly("GET /api/products/{id}: 11 of 1000 requests failed");
+        assertThat(PerformanceBaseline.regressions(Map.of(), Map.of(
+                "POST /api/inventories/{id}/adjust", summary(990, 0, 0)), 0.25, 5, 0.01))
+                .containsExactly("POST /api/inventories/{id}/adjust: 990 of 1000 requests failed");
+    }
+
+    /**
+     * Returns a summary of 1000 requests, {@code errors} of which failed.
+     */
+    private static LatencySummary summary(long errors, double p95, double p99) {
+        return new LatencySummary(1000 - errors, errors, 100, p95 / 2, p95, p99, p99 * 2);
+    }
+}
@@ -0,0 +1,79 @@
+package com.warehouse.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Load test of the inventory, product and warehouse endpoints against the configured database
+ * (the local Postgres by default), gated on a stored baseline.
+ * <p>
+ * The database is seeded through the API if it holds fewer than {@code loadtest.warehouses ×
+ * loadtest.products} inventories. After a warm-up, the {@link LoadMixes#mixed mixed} load is sent at
+ * {@code loadtest.rate} requests per second for {@code loadtest.duration-seconds}, and the results are
+ * written to {@code target/loadtest/results.json}. The test fails if an endpoint's error rate exceeds
+ * {@code loadtest.max-error-rate}, or its p95 or p99 latency exceeds the baseline by more than
+ * {@code loadtest.threshold}; without a baseline, only the error rate is checked. Run it with
+ * {@code mvn -Ploadtest verify}; record a new baseline on the reference machine with
+ * {@code -Dloadtest.update-baseline=true}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.show-sql=false")
+class PerformanceRegressionIT {
+
+    private static final Path RESULTS = Path.of("target", "loadtest", "results.json");
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void tailLatencyStaysWithinBaseline() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 512);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 15));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 60));
+        int warehouses = Integer.getInteger("loadtest.warehouses", 20);
+        int products = Integer.getInteger("loadtest.products", 500);
+        Path baselinePath = Path.of(System.getProperty("loadtest.baseline", "src/loadtest/resources/baseline.json"));
+        double threshold = Double.parseDouble(System.getProperty("loadtest.threshold", "0.25"));
+        double minDeltaMillis = Double.parseDouble(System.getProperty("loadtest.min-regression-ms", "5"));
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String baseUrl = "http://localhost:" + port;
+        Dataset dataset = Dataset.loadOrSeed(client, baseUrl, warehouses, products);
+        Map<String, LatencySummary> results = new OpenLoopDriver(client, LoadMixes.mixed(baseUrl, dataset))
+                .run(rate, maxInFlight, warmup, duration);
+
+        System.out.printf("%n%.0f req/s, %ds warm-up, %ds measured, %d inventories%n%s%n", rate,
+                warmup.toSeconds(), duration.toSeconds(), dataset.inventoryIds().size(), LatencySummary.header());
+        results.forEach((name, summary) -> System.out.println(summary.format(name)));
+        PerformanceBaseline.write(RESULTS, results);
+
+        if (Boolean.getBoolean("loadtest.update-baseline")) {
+            PerformanceBaseline.write(baselinePath, results);
+            return;
+        }
+        // The error rate is checked even without a baseline; only the latency comparison needs one
+        boolean hasBaseline = Files.exists(baselinePath);
+        Map<String, LatencySummary> baseline = hasBaseline ? PerformanceBaseline.read(baselinePath) : Map.of();
+        List<String> regressions = PerformanceBaseline.regressions(baseline, results,
+                threshold, minDeltaMillis, maxErrorRate);
+        assertThat(regressions).as("Performance regressions against " + baselinePath).isEmpty();
+        assumeTrue(hasBaseline, "No baseline at " + baselinePath + "; latency gate skipped");
+    }
+}
@@ -0,0 +1,65 @@
+package com.warehouse.loadtest;
+
+import com.warehouse.WarehouseApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares throughput and tail latency of the inventory endpoints when requests are handled on
+ * Tomcat's platform-thread pool and on virtual threads (the {@code virtual-threads} profile).
+ * <p>
+ * Each mode starts the application in-process against the configured database (the local Postgres
+ * by default), seeds it through the API if needed, warms up, and is then measured under the same
+ * closed-loop load. Run with:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.users=512 -Dloadtest.duration-seconds=60
+ * </pre>
+ * The virtual-thread run only differs from the platform run on Java 21 or later.
+ */
+public final class ThreadModeBenchmark {
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 256);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 30));
+        int warehouses = Integer.getInteger("loadtest.warehouses", 20);
+        int products = Integer.getInteger("loadtest.products", 500);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Map<String, Map<String, LatencySummary>> results = new LinkedHashMap<>();
+        for (String mode : List.of("platform", "virtual-threads")) {
+            String[] appArgs = {"--server.port=0", "--spring.jpa.show-sql=false",
+                    "--spring.profiles.active=" + (mode.equals("platform") ? "default" : mode)};
+            try (ConfigurableApplicationContext context = SpringApplication.run(WarehouseApplication.class, appArgs)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                String baseUrl = "http://localhost:" + port;
+                Dataset dataset = Dataset.loadOrSeed(client, baseUrl, warehouses, products);
+                results.put(mode, new ClosedLoopDriver(client, LoadMixes.inventory(baseUrl, dataset))
+                        .run(users, warmup, duration));
+            }
+        }
+
+        System.out.printf("%n%d users, %ds warm-up, %ds measured, Java %d%n", users, warmup.toSeconds(),
+                duration.toSeconds(), Runtime.version().feature());
+        results.forEach((mode, summaries) -> {
+            System.out.printf("%n[%s]%n%s%n", mode, LatencySummary.header());
+            summaries.forEach((name, summary) -> System.out.println(summary.format(name)));
+        });
+        System.exit(0);
+    }
+}
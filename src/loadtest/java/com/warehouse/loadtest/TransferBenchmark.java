@@ -0,0 +1,120 @@
+package com.warehouse.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.WarehouseApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Drives many concurrent stock transfers between every pair of warehouses, in both directions, over a
+ * few hot products, under each stock engine mode.
+ * <p>
+ * Besides throughput and latency, each mode reports the deadlocks PostgreSQL detected during the run,
+ * which must stay at zero because transfers lock their records in ID order, and checks that transfers
+ * conserved stock: the total quantity of every product is unchanged and no quantity went below zero.
+ * Errors are transfers rejected with HTTP 409 Conflict because their source ran out of stock. Run with:
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.main=com.warehouse.loadtest.TransferBenchmark \
+ *     -Dloadtest.modes=database,ledger,memory -Dloadtest.users=64
+ * </pre>
+ */
+public final class TransferBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String DEADLOCKS_SQL =
+            "SELECT deadlocks FROM pg_stat_database WHERE datname = current_database()";
+
+    private TransferBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = Arrays.asList(System.getProperty("loadtest.modes", "database,ledger,memory").split(","));
+        int users = Integer.getInteger("loadtest.users", 64);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 5));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 30));
+        int warehouses = Integer.getInteger("loadtest.warehouses", 20);
+        int products = Integer.getInteger("loadtest.products", 500);
+        int hotProducts = Integer.getInteger("loadtest.hot-products", 8);
+        int batchSize = Integer.getInteger("loadtest.batch-size", 4);
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Map<String, Map<String, LatencySummary>> results = new LinkedHashMap<>();
+        Map<String, String> checks = new LinkedHashMap<>();
+        for (String mode : modes) {
+            String[] appArgs = {"--server.port=0", "--spring.jpa.show-sql=false",
+                    "--warehouse.stock-engine.mode=" + mode};
+            try (ConfigurableApplicationContext context = SpringApplication.run(WarehouseApplication.class, appArgs)) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                String baseUrl = "http://localhost:" + port;
+                JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+                Dataset dataset = Dataset.loadOrSeed(client, baseUrl, warehouses, products);
+
+                StockTotals before = totals(client, baseUrl);
+                Long deadlocksBefore = jdbcTemplate.queryForObject(DEADLOCKS_SQL, Long.class);
+                results.put(mode, new ClosedLoopDriver(client,
+                        LoadMixes.transfers(baseUrl, dataset, hotProducts, batchSize)).run(users, warmup, duration));
+                Long deadlocksAfter = jdbcTemplate.queryForObject(DEADLOCKS_SQL, Long.class);
+                StockTotals after = totals(client, baseUrl);
+                checks.put(mode, String.format("deadlocks: %d, stock conserved: %s, negative quantities: %d",
+                        deadlocksAfter - deadlocksBefore, before.byProduct().equals(after.byProduct()) ? "yes" : "NO",
+                        after.negative()));
+            }
+        }
+
+        System.out.printf("%n%d users, %ds warm-up, %ds measured, %d hot products, %d products per batch%n",
+                users, warmup.toSeconds(), duration.toSeconds(), hotProducts, batchSize);
+        results.forEach((mode, summaries) -> {
+            System.out.printf("%n[%s] %s%n%s%n", mode, checks.get(mode), LatencySummary.header());
+            summaries.forEach((name, summary) -> System.out.println(summary.format(name)));
+        });
+        System.exit(0);
+    }
+
+    /**
+     * Sums the quantities of every product over all warehouses, read page by page through the API as
+     * the stock engine sees them, and counts the negative quantities.
+     */
+    private static StockTotals totals(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        Map<Long, Long> totals = new HashMap<>();
+        int negative = 0;
+        long after = 0;
+        while (true) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/api/inventories?limit=1000&after=" + after)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode page = JSON.readTree(response.body());
+            for (JsonNode inventory : page.get("items")) {
+                int quantity = inventory.get("quantity").asInt();
+                totals.merge(inventory.get("product").get("id").asLong(), (long) quantity, Long::sum);
+                if (quantity < 0)
+                    negative++;
+            }
+            if (page.get("nextCursor").isNull())
+                return new StockTotals(totals, negative);
+            after = page.get("nextCursor").asLong();
+        }
+    }
+
+    private record StockTotals(Map<Long, Long> byProduct, int negative) {}
+}
@@ -0,0 +1,65 @@
+package com.warehouse.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Enables the in-process caches configured under {@code spring.cache} and names them.
+ * <p>
+ * Caches holding one object per entry are bounded by the entry count of {@code spring.cache.caffeine.spec}.
+ * {@link #PRODUCTS_BY_CATEGORY} holds whole lists, so it is bounded by the number of products its lists
+ * hold instead, {@code warehouse.cache.products-by-category.maximum-products} in total.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Products by ID.
+     */
+    public static final String PRODUCTS = "products";
+
+    /**
+     * Lists of products by category.
+     */
+    public static final String PRODUCTS_BY_CATEGORY = "productsByCategory";
+
+    /**
+     * The list of distinct product categories, under the single key {@link #ALL}.
+     */
+    public static final String PRODUCT_CATEGORIES = "productCategories";
+
+    /**
+     * Key of caches holding a single entry.
+     */
+    public static final String ALL = "all";
+
+    /**
+     * Registers {@link #PRODUCTS_BY_CATEGORY} as a cache weighed by the size of its lists, so a few large
+     * categories cannot hold far more products than the entry-count bound of the other caches suggests.
+     *
+     * @param maximumProducts  the total number of products the cached lists may hold
+     * @param expireAfterWrite how long a list is kept after it was loaded
+     * @return the customizer registering the cache
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> productsByCategoryCache(
+            @Value("${warehouse.cache.products-by-category.maximum-products:10000}") long maximumProducts,
+            @Value("${warehouse.cache.products-by-category.expire-after-write:10m}") Duration expireAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(PRODUCTS_BY_CATEGORY, Caffeine.newBuilder()
+                .maximumWeight(maximumProducts)
+                .weigher((Object category, Object products) ->
+                        products instanceof Collection<?> list ? Math.max(1, list.size()) : 1)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build());
+    }
+}
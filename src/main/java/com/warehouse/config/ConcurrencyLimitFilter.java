@@ -0,0 +1,123 @@
+package com.warehouse.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the number of API requests handled at the same time, so that an unbounded number of
+ * request threads (as with virtual threads) cannot queue up on the database connection pool.
+ * <p>
+ * An API request holds a pooled connection while one of its service transactions runs, and most
+ * requests run one, so the limit defaults to the pool size. A request that cannot get a permit within
+ * {@code warehouse.concurrency.acquire-timeout-ms} is rejected with 503 Service Unavailable instead
+ * of waiting for the pool's much longer connection timeout.
+ * <p>
+ * A request that continues asynchronously, such as a streamed export, keeps its permit until its
+ * response is complete rather than until the request thread returns.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warehouse.concurrency.limit-enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+
+    /**
+     * Constructs a ConcurrencyLimitFilter.
+     *
+     * @param maxInFlight          maximum number of API requests handled at the same time
+     * @param acquireTimeoutMillis how long a request waits for a permit before it is rejected
+     */
+    public ConcurrencyLimitFilter(
+            @Value("${warehouse.concurrency.max-in-flight:${spring.datasource.hikari.maximum-pool-size:10}}") int maxInFlight,
+            @Value("${warehouse.concurrency.acquire-timeout-ms:1000}") long acquireTimeoutMillis) {
+        this.permits = new Semaphore(maxInFlight, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        log.info("Limiting API requests to {} in flight", maxInFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        Runnable release = releaseOnce();
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+                release = null;
+            }
+        } finally {
+            if (release != null)
+                release.run();
+        }
+    }
+
+    private Runnable releaseOnce() {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true))
+                permits.release();
+        };
+    }
+
+    /**
+     * Releases the permit of an asynchronous request once its response is complete, so a streamed
+     * response holds it for as long as it reads from the database.
+     */
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
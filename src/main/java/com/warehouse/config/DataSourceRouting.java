@@ -0,0 +1,77 @@
+package com.warehouse.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread routing of read-only connections when read replicas are configured (see
+ * {@link ReplicaRoutingConfig}). Without replicas every connection comes from the primary and
+ * pinning has no effect.
+ * <p>
+ * Reads whose result outlives the request, such as cache loads and index rebuilds, must be pinned
+ * to the primary, so that a lagging replica cannot make the application keep serving data older
+ * than its own writes. Scopes nest and must be closed on the thread that opened them.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Routes the read-only connections opened on this thread to the primary until the returned
+     * scope is closed.
+     *
+     * @return the scope to close
+     */
+    public static Scope pinToPrimary() {
+        return open(true);
+    }
+
+    /**
+     * Runs a read on the primary.
+     *
+     * @param read the read to run
+     * @param <T>  the type of its result
+     * @return the result of the read
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        try (Scope ignored = pinToPrimary()) {
+            return read.get();
+        }
+    }
+
+    static Scope open(boolean primary) {
+        Scope scope = new Scope(CURRENT.get(), primary);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static Scope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * A routing scope. Outside a pinned scope, the first replica a scope reads from is kept for the
+     * rest of it, so that later reads of the same request never see an older state than earlier ones.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Scope outer;
+        final boolean primary;
+        ReadReplicas.Replica replica;
+
+        private Scope(Scope outer, boolean primary) {
+            this.outer = outer;
+            this.primary = primary || (outer != null && outer.primary);
+            this.replica = outer != null ? outer.replica : null;
+        }
+
+        @Override
+        public void close() {
+            if (outer == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(outer);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.warehouse.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.warehouse.dto.fields.FieldSelection;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Customizes the application's Jackson object mappers and the binary formats they write.
+ * <p>
+ * Besides JSON, every endpoint can read and write CBOR ({@code application/cbor}) and Smile
+ * ({@code application/x-jackson-smile}), chosen by the {@code Accept} and {@code Content-Type}
+ * headers. JSON stays the default. The binary converters are built from Spring Boot's
+ * {@link Jackson2ObjectMapperBuilder}, so they share the modules, settings and filters of the JSON one;
+ * the converters Spring MVC would otherwise register use a plain builder.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Serializes every attribute of the DTOs that support {@link FieldSelection} unless a response
+     * is written with the filters of a selection.
+     *
+     * @return the customizer registering the default filters
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionFilters() {
+        return builder -> builder.filters(FieldSelection.ALL_FIELDS);
+    }
+
+    /**
+     * Reads and writes {@code application/cbor}.
+     *
+     * @param builder Spring Boot's object mapper builder
+     * @return the CBOR message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Reads and writes {@code application/x-jackson-smile}.
+     *
+     * @param builder Spring Boot's object mapper builder
+     * @return the Smile message converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.warehouse.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Times the methods of classes annotated with {@link io.micrometer.core.annotation.Timed} and
+ * names the resulting timers.
+ * <p>
+ * Each timer is tagged with the class, the method and the exception thrown, if any, so its count
+ * also serves as the invocation and error counter of the method. Spring Data repository methods
+ * are timed by Spring Boot as {@code spring.data.repository.invocations}; Hibernate, connection
+ * pool and cache metrics are bound by Spring Boot as well.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Timer of the service methods.
+     */
+    public static final String SERVICE_TIMER = "warehouse.service";
+
+    /**
+     * Timer of the repository methods not implemented by Spring Data.
+     */
+    public static final String REPOSITORY_TIMER = "warehouse.repository";
+
+    /**
+     * Creates the aspect recording {@code @Timed} methods.
+     *
+     * @param registry the registry to record to
+     * @return the aspect
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,225 @@
+package com.warehouse.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * The connection pools of the primary and the read replicas, and the data source routing between them.
+ * <p>
+ * Connections are handed out by a {@link LazyConnectionDataSourceProxy}, which only picks a pool at the
+ * first statement, once the transaction has marked the connection read-only or not. Read-write
+ * connections come from the primary. Read-only ones are spread round-robin over the replicas whose
+ * lag was last measured at most {@code warehouse.datasource.max-lag-ms}, and fall back to the primary
+ * when none is, when the thread is pinned to the primary through {@link DataSourceRouting}, or when
+ * the chosen replica cannot hand out a connection. The lag of every replica is measured every
+ * {@code warehouse.datasource.lag-check-interval-ms} milliseconds; a replica is skipped until its
+ * first successful check.
+ * <p>
+ * The pools are not beans of their own, so they are closed here, and the data source is the only
+ * one the rest of the application sees.
+ */
+@Slf4j
+class ReadReplicas implements AutoCloseable {
+
+    static final String READS_METER = "warehouse.datasource.reads";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private final LazyConnectionDataSourceProxy dataSource;
+
+    /**
+     * Opens a pool per replica, with the settings of the primary pool except for the connection details.
+     *
+     * @param primary       the pool of the primary
+     * @param properties    the replicas and lag settings
+     * @param meterRegistry registry for the replica pool, lag and routing metrics, or {@code null}
+     */
+    ReadReplicas(HikariDataSource primary, ReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.lagQuery = properties.lagQuery();
+        this.maxLagMillis = properties.maxLagMs();
+        List<ReplicaProperties.Replica> configured = properties.replicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReplicaProperties.Replica replica = configured.get(i);
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setPoolName("replica-" + i);
+            config.setJdbcUrl(replica.url());
+            if (replica.username() != null)
+                config.setUsername(replica.username());
+            if (replica.password() != null)
+                config.setPassword(replica.password());
+            if (replica.maximumPoolSize() != null)
+                config.setMaximumPoolSize(replica.maximumPoolSize());
+            config.setReadOnly(true);
+            config.setConnectionTimeout(properties.connectionTimeoutMs());
+            // Start even if the replica is down; it is skipped until its lag can be measured.
+            config.setInitializationFailTimeout(-1);
+            if (meterRegistry != null)
+                config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new Replica(config.getPoolName(), new HikariDataSource(config), meterRegistry));
+        }
+        this.primaryReads = meterRegistry != null ? readsCounter(meterRegistry, "primary") : null;
+
+        dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReadOnlyDataSource());
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+    }
+
+    /**
+     * Returns the data source routing between the primary and the replicas.
+     *
+     * @return the routing data source
+     */
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Measures the lag of every replica and marks those lagging too far, or failing, as unavailable.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.datasource.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas)
+            replica.check();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private Replica choose() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available)
+                return replica;
+        }
+        return null;
+    }
+
+    private static Counter readsCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder(READS_METER)
+                .description("Read-only connections handed out, by the pool they came from")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Target of the read-only connections.
+     */
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            DataSourceRouting.Scope scope = DataSourceRouting.current();
+            if (scope == null || !scope.primary) {
+                // Once a scope has read from a replica, only the primary is at least as recent.
+                Replica replica = scope != null && scope.replica != null
+                        ? (scope.replica.available ? scope.replica : null)
+                        : choose();
+                if (replica != null) {
+                    try {
+                        Connection connection = replica.pool.getConnection();
+                        if (scope != null)
+                            scope.replica = replica;
+                        if (replica.reads != null)
+                            replica.reads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.markUnavailable(e);
+                    }
+                }
+            }
+            if (primaryReads != null)
+                primaryReads.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            throw new UnsupportedOperationException("Replica connections use the configured credentials");
+        }
+    }
+
+    /**
+     * A replica pool and its last measured lag.
+     */
+    final class Replica {
+        private final String name;
+        private final HikariDataSource pool;
+        private final Counter reads;
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean available;
+
+        private Replica(String name, HikariDataSource pool, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.pool = pool;
+            if (meterRegistry != null) {
+                Gauge.builder("warehouse.datasource.replica.lag", this, replica -> replica.lagSeconds)
+                        .description("Replication lag last measured on the replica, NaN if unknown")
+                        .baseUnit("seconds")
+                        .tag("replica", name)
+                        .register(meterRegistry);
+                reads = readsCounter(meterRegistry, name);
+            } else {
+                reads = null;
+            }
+        }
+
+        private void check() {
+            Double lag = null;
+            try (Connection connection = pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(1);
+                try (ResultSet result = statement.executeQuery(lagQuery)) {
+                    if (result.next()) {
+                        double value = result.getDouble(1);
+                        lag = result.wasNull() ? null : value;
+                    }
+                }
+            } catch (SQLException e) {
+                markUnavailable(e);
+                return;
+            }
+            lagSeconds = lag != null ? lag : Double.NaN;
+            boolean wasAvailable = available;
+            available = lag != null && lag * 1000 <= maxLagMillis;
+            if (available && !wasAvailable)
+                log.info("Replica {} is available, lag {}s", name, lag);
+            else if (!available && wasAvailable)
+                log.warn("Replica {} is unavailable, lag {}", name, lag != null ? lag + "s" : "unknown (not in recovery)");
+        }
+
+        private void markUnavailable(SQLException e) {
+            lagSeconds = Double.NaN;
+            if (available)
+                log.warn("Replica {} is unavailable: {}", name, e.getMessage());
+            available = false;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.warehouse.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Opens a {@link DataSourceRouting} scope for every API request, so that all the reads of a request
+ * come from the same replica, and pins the requests that must see the primary.
+ * <p>
+ * Requests other than GET, HEAD and OPTIONS may write, so they are pinned, and they set a cookie
+ * pinning the client's following requests for {@code warehouse.datasource.read-your-writes-window-ms},
+ * long enough for a replica within the lag bound to have replayed the write. The cookie is set before
+ * the request is handled, since the response may be committed by then, so the window counts from
+ * the start of the write.
+ */
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "warehouse-primary-until";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long windowMillis;
+
+    /**
+     * Constructs a ReadYourWritesFilter.
+     *
+     * @param windowMillis how long a client's reads go to the primary after it sent a write
+     */
+    ReadYourWritesFilter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, Long.toString(now + windowMillis))
+                    .path("/api/")
+                    .maxAge(Duration.ofMillis(windowMillis).plusSeconds(1))
+                    .httpOnly(true)
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.open(write || primaryUntil(request) > now)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null)
+            return 0;
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
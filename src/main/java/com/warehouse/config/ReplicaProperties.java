@@ -0,0 +1,45 @@
+package com.warehouse.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Read replicas under {@code warehouse.datasource}, and how their lag is checked.
+ *
+ * @param replicas                the replicas read-only transactions are spread over
+ * @param maxLagMs                replication lag, in milliseconds, above which a replica is skipped
+ * @param lagQuery                query run on a replica returning its lag in seconds, or {@code NULL}
+ *                                if it is not a replica
+ * @param connectionTimeoutMs     how long a read waits for a replica connection, in milliseconds
+ * @param readYourWritesWindowMs  how long, in milliseconds, a client's reads go to the primary after
+ *                                it sent a write
+ */
+@ConfigurationProperties("warehouse.datasource")
+public record ReplicaProperties(
+        List<Replica> replicas,
+        @DefaultValue("2000") long maxLagMs,
+        @DefaultValue(ReplicaProperties.POSTGRES_LAG_QUERY) String lagQuery,
+        @DefaultValue("1000") long connectionTimeoutMs,
+        @DefaultValue("5000") long readYourWritesWindowMs) {
+
+    /**
+     * Lag of a Postgres streaming replica: zero when it is connected to the primary and has replayed
+     * everything it received, otherwise the age of the last transaction it replayed.
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN NULL"
+            + " WHEN pg_last_wal_replay_lsn() >= pg_last_wal_receive_lsn()"
+            + " AND EXISTS (SELECT 1 FROM pg_stat_wal_receiver) THEN 0"
+            + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    /**
+     * A read replica. The credentials and pool size default to those of the primary.
+     *
+     * @param url             JDBC URL of the replica
+     * @param username        login user
+     * @param password        login password
+     * @param maximumPoolSize maximum number of pooled connections
+     */
+    public record Replica(String url, String username, String password, Integer maximumPoolSize) {}
+}
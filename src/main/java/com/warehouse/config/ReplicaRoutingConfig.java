@@ -0,0 +1,73 @@
+package com.warehouse.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes read-only transactions to the read replicas listed under {@code warehouse.datasource.replicas},
+ * replacing the data source Spring Boot would create from {@code spring.datasource}. Without replicas
+ * this configuration is off and every connection comes from {@code spring.datasource}.
+ * <p>
+ * The primary pool is still configured from {@code spring.datasource} and
+ * {@code spring.datasource.hikari}; see {@link ReadReplicas} for the routing and
+ * {@link ReadYourWritesFilter} for the requests pinned to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "warehouse.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    /**
+     * Creates the primary and replica pools.
+     *
+     * @param dataSourceProperties the {@code spring.datasource} settings of the primary
+     * @param environment          the environment the primary pool settings are bound from
+     * @param properties           the replicas and lag settings
+     * @param meterRegistry        registry for the replica metrics, if metrics are enabled
+     * @return the pools
+     */
+    @Bean
+    ReadReplicas readReplicas(DataSourceProperties dataSourceProperties, Environment environment,
+                              ReplicaProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null)
+            primary.setPoolName("primary");
+        return new ReadReplicas(primary, properties, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Creates the application data source, routing read-only transactions to the replicas.
+     *
+     * @param readReplicas the pools
+     * @return the routing data source
+     */
+    @Bean
+    public DataSource dataSource(ReadReplicas readReplicas) {
+        return readReplicas.dataSource();
+    }
+
+    /**
+     * Creates the filter pinning writes and the reads following them to the primary.
+     *
+     * @param properties the read-your-writes window
+     * @return the filter
+     */
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(ReplicaProperties properties) {
+        return new ReadYourWritesFilter(properties.readYourWritesWindowMs());
+    }
+}
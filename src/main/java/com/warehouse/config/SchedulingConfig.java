@@ -0,0 +1,12 @@
+package com.warehouse.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background tasks such as write-behind flushing.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,42 @@
+package com.warehouse.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source in a proxy that accounts every statement and fetched row in the
+ * {@link SqlStatistics} of the request being handled, which {@link SqlAccountingFilter} reports.
+ * Disabled with {@code warehouse.sql-accounting.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "warehouse.sql-accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingConfig {
+
+    /**
+     * Creates the post-processor wrapping the data source.
+     *
+     * @return the post-processor
+     */
+    @Bean
+    public static BeanPostProcessor sqlAccountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource))
+                    return bean;
+                SqlAccountingListener listener = new SqlAccountingListener();
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(listener)
+                        .methodListener(listener)
+                        .proxyResultSet()
+                        .build();
+            }
+        };
+    }
+}
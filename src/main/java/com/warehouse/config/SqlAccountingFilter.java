@@ -0,0 +1,86 @@
+package com.warehouse.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the SQL statements, fetched rows and JDBC time of every API request and records them
+ * as {@code warehouse.request.sql.*} metrics tagged with the HTTP method and URI template.
+ * <p>
+ * A statement shape executed at least {@code warehouse.sql-accounting.repeated-statement-threshold}
+ * times within one request is logged together with the endpoint and counted in
+ * {@code warehouse.request.sql.repeated}, which points at N+1 loading, typically of a lazy association
+ * touched once per row.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warehouse.sql-accounting.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final int repeatedStatementThreshold;
+
+    /**
+     * Constructs a SqlAccountingFilter.
+     *
+     * @param registry                   the registry to record the metrics to
+     * @param repeatedStatementThreshold executions of one statement shape within a request that are logged
+     */
+    public SqlAccountingFilter(MeterRegistry registry,
+                               @Value("${warehouse.sql-accounting.repeated-statement-threshold:10}") int repeatedStatementThreshold) {
+        this.registry = registry;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+        DistributionSummary.builder("warehouse.request.sql.statements").tags(tags).register(registry)
+                .record(statistics.statements());
+        DistributionSummary.builder("warehouse.request.sql.rows").tags(tags).register(registry)
+                .record(statistics.rows());
+        Timer.builder("warehouse.request.sql.time").tags(tags).register(registry)
+                .record(statistics.jdbcNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = statistics.repeatedShapes(repeatedStatementThreshold);
+        if (repeated.isEmpty())
+            return;
+        registry.counter("warehouse.request.sql.repeated", tags).increment();
+        repeated.forEach((shape, executions) -> log.warn("Possible N+1 in {} {}: {} executions of {}",
+                request.getMethod(), uri, executions, shape));
+    }
+}
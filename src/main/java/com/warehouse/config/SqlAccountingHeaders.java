@@ -0,0 +1,43 @@
+package com.warehouse.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds the SQL statistics of the request so far to its response as {@code X-SQL-Statements},
+ * {@code X-SQL-Rows} and {@code X-SQL-Time-Micros} headers. Statements issued while the body is
+ * serialized are not included. Enabled with {@code warehouse.sql-accounting.headers=true}, which is
+ * meant for development and testing only.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = {"warehouse.sql-accounting.enabled", "warehouse.sql-accounting.headers"},
+        havingValue = "true")
+public class SqlAccountingHeaders implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set("X-SQL-Statements", Integer.toString(statistics.statements()));
+            response.getHeaders().set("X-SQL-Rows", Long.toString(statistics.rows()));
+            response.getHeaders().set("X-SQL-Time-Micros",
+                    Long.toString(TimeUnit.NANOSECONDS.toMicros(statistics.jdbcNanos())));
+        }
+        return body;
+    }
+}
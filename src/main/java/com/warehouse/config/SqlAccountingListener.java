@@ -0,0 +1,53 @@
+package com.warehouse.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Accounts the statements executed and rows fetched through the proxied data source in the
+ * {@link SqlStatistics} of the current thread, if any. A batch counts as one statement per query
+ * it contains, and its JDBC time is attributed to the first.
+ */
+class SqlAccountingListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final String START_NANOS = "startNanos";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        if (SqlStatistics.current() != null)
+            execution.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execution, List<QueryInfo> queries) {
+        SqlStatistics statistics = SqlStatistics.current();
+        Long start = execution.getCustomValue(START_NANOS, Long.class);
+        if (statistics == null || start == null)
+            return;
+        long nanos = System.nanoTime() - start;
+        for (QueryInfo query : queries) {
+            statistics.statementExecuted(query.getQuery(), nanos);
+            nanos = 0;
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext context) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext context) {
+        if (context.getTarget() instanceof ResultSet && Boolean.TRUE.equals(context.getResult())
+                && context.getMethod().getName().equals("next")) {
+            SqlStatistics statistics = SqlStatistics.current();
+            if (statistics != null)
+                statistics.rowFetched();
+        }
+    }
+}
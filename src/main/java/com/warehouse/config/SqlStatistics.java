@@ -0,0 +1,108 @@
+package com.warehouse.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * SQL statements, fetched rows and JDBC time accumulated by the request handled on the current thread.
+ * <p>
+ * Statements are also counted by shape: the SQL with whitespace collapsed, literals replaced by
+ * {@code ?} and parameter lists collapsed to one parameter, so the same query with different
+ * arguments or {@code IN} list lengths counts as one shape. Work done outside a request, or on
+ * another thread, as by streamed responses, is not accounted.
+ */
+final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Distinct shapes tracked per request; further shapes are still counted as statements.
+     */
+    private static final int MAX_SHAPES = 256;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+
+    private final Map<String, Integer> executionsByShape = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * Starts accounting the statements of the current thread.
+     *
+     * @return the statistics the statements are accounted in
+     */
+    static SqlStatistics begin() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of the current thread.
+     *
+     * @return the statistics, or {@code null} if the current thread is not accounted
+     */
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops accounting the statements of the current thread.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void statementExecuted(String sql, long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+        String shape = shape(sql);
+        if (executionsByShape.size() < MAX_SHAPES || executionsByShape.containsKey(shape))
+            executionsByShape.merge(shape, 1, Integer::sum);
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /**
+     * Returns the statement shapes executed at least {@code threshold} times.
+     *
+     * @param threshold the minimum number of executions
+     * @return the number of executions by shape, most executed first
+     */
+    Map<String, Integer> repeatedShapes(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executionsByShape.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    static String shape(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = LITERAL.matcher(shape).replaceAll("?");
+        return PARAMETER_LIST.matcher(shape).replaceAll("?");
+    }
+}
@@ -0,0 +1,40 @@
+package com.warehouse.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warns at startup when virtual threads are requested on a Java runtime that does not support them,
+ * in which case Spring Boot silently keeps using platform threads.
+ */
+@Slf4j
+@Component
+public class ThreadModeCheck {
+
+    private final Environment environment;
+
+    /**
+     * Constructs a ThreadModeCheck.
+     *
+     * @param environment the environment holding {@code spring.threads.virtual.enabled}
+     */
+    public ThreadModeCheck(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Logs the thread mode requests are handled in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void logThreadMode() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int feature = Runtime.version().feature();
+        if (requested && feature < 21)
+            log.warn("Virtual threads requested but running on Java {}; using platform threads", feature);
+        else
+            log.info("Handling requests on {} threads", requested ? "virtual" : "platform");
+    }
+}
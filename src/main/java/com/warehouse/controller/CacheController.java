@@ -0,0 +1,51 @@
+package com.warehouse.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.warehouse.dto.cache.CacheStatsDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller exposing the statistics of the in-process caches.
+ */
+@RestController
+@RequestMapping("api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Constructs a new CacheController with the given CacheManager.
+     *
+     * @param cacheManager the manager of the caches to report on
+     */
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Retrieves the size, hit, miss, eviction and load statistics of every cache.
+     *
+     * @return the statistics of each cache with HTTP 200 OK
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                CacheStats cacheStats = caffeine.stats();
+                stats.add(new CacheStatsDTO(name, caffeine.estimatedSize(), cacheStats.hitCount(),
+                        cacheStats.missCount(), cacheStats.hitRate(), cacheStats.evictionCount(),
+                        cacheStats.loadCount(), cacheStats.averageLoadPenalty() / 1_000_000.0));
+            }
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
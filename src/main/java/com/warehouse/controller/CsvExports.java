@@ -0,0 +1,36 @@
+package com.warehouse.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds the responses of the CSV export endpoints.
+ */
+final class CsvExports {
+
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private CsvExports() {
+    }
+
+    /**
+     * Returns a response streaming a CSV file as a download.
+     *
+     * @param filename the file name suggested to the client
+     * @param body     writes the CSV
+     * @return the response
+     */
+    static ResponseEntity<StreamingResponseBody> attachment(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
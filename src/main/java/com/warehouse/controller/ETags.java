@@ -0,0 +1,21 @@
+package com.warehouse.controller;
+
+/**
+ * Formats the version tags of the services as ETags.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Returns the weak ETag of a version tag. The tag identifies the data, not the bytes of one
+     * representation, and responses are served in several formats, with or without compression.
+     *
+     * @param version the version tag
+     * @return the weak ETag
+     */
+    static String weak(String version) {
+        return "W/\"" + version + "\"";
+    }
+}
@@ -1,14 +1,42 @@
 package com.warehouse.controller;
 
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.dto.inventory.BulkInventoryFailureDTO;
+import com.warehouse.dto.inventory.BulkInventoryResultDTO;
 import com.warehouse.dto.inventory.CreateInventoryDTO;
 import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.StockMovementDTO;
+import com.warehouse.dto.inventory.TransferProductDTO;
+import com.warehouse.dto.inventory.TransferResultDTO;
+import com.warehouse.dto.inventory.TransferStockDTO;
 import com.warehouse.dto.inventory.UpdateInventoryDTO;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.exception.BulkUpsertException;
+import com.warehouse.exception.InsufficientStockException;
 import com.warehouse.service.InventoryService;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST controller for managing inventory operations in the warehouse system.
@@ -18,37 +46,70 @@ import java.util.List;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final ObjectReader createInventoryReader;
 
     /**
      * Constructs a new InventoryController with the specified InventoryService.
      *
      * @param inventoryService the inventory service to be used by this controller
+     * @param objectMapper     the JSON mapper used to read streamed bulk requests
      */
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.createInventoryReader = objectMapper.readerFor(CreateInventoryDTO.class);
     }
 
     /**
-     * Retrieves all inventory items.
+     * Retrieves a page of inventory items ordered by ID.
      *
-     * @return a list of all inventory items with HTTP 200 OK
+     * @param after   the ID of the last inventory item of the previous page (cursor), 0 for the first page
+     * @param limit   the maximum number of inventory items to return
+     * @param fields  the attributes to return, as comma-separated paths such as {@code id,quantity,product.name};
+     *                all if omitted
+     * @param include the relations to embed, any of {@code warehouse} and {@code product}; all if omitted
+     * @return a page of inventory items and the next cursor with HTTP 200 OK,
+     *         or HTTP 400 Bad Request if the limit is out of bounds or a relation is unknown
      */
     @GetMapping("/api/inventories")
-    public ResponseEntity<List<ResponseInventoryDTO>> getAllInventories() {
-        List<ResponseInventoryDTO> inventories = inventoryService.getAllInventories();
-        return ResponseEntity.ok(inventories);
+    public ResponseEntity<MappingJacksonValue> getAllInventories(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include) {
+        FieldSelection selection;
+        CursorPageDTO<ResponseInventoryDTO> inventories;
+        try {
+            selection = FieldSelection.of(fields, include, ResponseInventoryDTO.RELATIONS);
+            inventories = inventoryService.getInventoryPage(after, limit, selection);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(selection.toJacksonValue(inventories));
     }
 
     /**
      * Retrieves an inventory item by its ID.
      *
-     * @param id the ID of the inventory item
-     * @return the inventory item with HTTP 200 OK if found, or HTTP 404 Not Found
+     * @param id      the ID of the inventory item
+     * @param fields  the attributes to return, as comma-separated paths such as {@code id,quantity,product.name};
+     *                all if omitted
+     * @param include the relations to embed, any of {@code warehouse} and {@code product}; all if omitted
+     * @return the inventory item with HTTP 200 OK if found, HTTP 404 Not Found,
+     *         or HTTP 400 Bad Request if a relation is unknown
      */
     @GetMapping("/api/inventories/{id}")
-    public ResponseEntity<ResponseInventoryDTO> getInventoryById(@PathVariable Long id) {
-        return inventoryService.getInventoryById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<MappingJacksonValue> getInventoryById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.of(fields, include, ResponseInventoryDTO.RELATIONS);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return inventoryService.getInventoryById(id, selection)
+                .map(inventory -> ResponseEntity.ok(selection.toJacksonValue(inventory)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -64,12 +125,78 @@ public class InventoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    /**
+     * Creates or updates inventory items in bulk, merging on the warehouse and product pair.
+     * The body is either a JSON array or newline-delimited JSON of inventory items and is read
+     * as a stream, so it is never held in memory as a whole.
+     *
+     * Items are written in chunks that commit on their own. If an item cannot be parsed or a chunk
+     * cannot be written, the response carries the results of the items already written and the index of
+     * the first item that was not.
+     *
+     * @param body the raw request body
+     * @return one result per input item, in input order, with HTTP 200 OK; otherwise the results so far and
+     *         the failed index with HTTP 400 Bad Request if an item cannot be parsed, or with HTTP 500 Internal
+     *         Server Error if writing failed
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/api/inventories/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> upsertInventories(InputStream body) throws IOException {
+        try (MappingIterator<CreateInventoryDTO> inventories = createInventoryReader.readValues(body)) {
+            List<BulkInventoryResultDTO> results = inventoryService.upsertInventories(inventories);
+            return ResponseEntity.ok(results);
+        } catch (BulkUpsertException e) {
+            return ResponseEntity.status(e.isBadInput() ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new BulkInventoryFailureDTO(e.getFailedIndex(), e.getMessage(), e.getResults()));
+        } catch (JacksonException e) {
+            return ResponseEntity.badRequest()
+                    .body(new BulkInventoryFailureDTO(0, "Row 0 cannot be read: " + e.getOriginalMessage(), List.of()));
+        }
+    }
+
+    /**
+     * Creates or updates inventory items from a UTF-8 CSV file with a header row, merging on the
+     * warehouse and product pair. The body is read as a stream, so it is never held in memory as a whole.
+     *
+     * @param body the raw request body
+     * @return the numbers of rows read, written and rejected and the first rejected lines with HTTP 200 OK,
+     *         or HTTP 400 Bad Request if the header is missing or lacks a required column
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/api/inventories/import", consumes = "text/csv")
+    public ResponseEntity<ImportResultDTO> importInventories(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(inventoryService.importInventories(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exports inventory items with the name of their warehouse and the name, category and price of their
+     * product as CSV, ordered by warehouse and product. The rows are copied from the database to the
+     * response as the database produces them, without building any entity.
+     *
+     * @param warehouseId the ID of the warehouse to export (optional)
+     * @param category    the product category to export (optional)
+     * @return the CSV, streamed with HTTP 200 OK
+     */
+    @GetMapping(value = "/api/inventories/export.csv", produces = CsvExports.TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportInventories(
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(required = false) String category) {
+        return CsvExports.attachment("inventories.csv",
+                out -> inventoryService.exportInventories(warehouseId, category, out));
+    }
+
     /**
      * Updates an existing inventory item by its ID.
      *
      * @param id           the ID of the inventory item to update
      * @param inventoryDTO the updated inventory data
-     * @return the updated inventory item with HTTP 200 OK, or HTTP 404 Not Found if not found
+     * @return the updated inventory item with HTTP 200 OK, HTTP 409 Conflict if it was updated concurrently,
+     *         or HTTP 404 Not Found if not found
      */
     @PutMapping("/api/inventories/{id}")
     public ResponseEntity<ResponseInventoryDTO> updateInventory(
@@ -78,11 +205,164 @@ public class InventoryController {
         try {
             ResponseInventoryDTO updated = inventoryService.updateInventory(id, inventoryDTO);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Retrieves the current stock level of an inventory item.
+     *
+     * @param id the ID of the inventory item
+     * @return the stock level with HTTP 200 OK if found, or HTTP 404 Not Found
+     */
+    @GetMapping("/api/inventories/{id}/stock")
+    public ResponseEntity<StockLevelDTO> getStockLevel(@PathVariable Long id) {
+        return inventoryService.getStockLevel(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retrieves the current stock level of a product in a specific warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return the stock level with HTTP 200 OK if found, or HTTP 404 Not Found
+     */
+    @GetMapping("api/warehouses/{warehouseId}/inventory/product/stock")
+    public ResponseEntity<StockLevelDTO> getProductInWarehouseStockLevel(
+            @PathVariable Long warehouseId,
+            @RequestParam(name = "id", required = true) Long productId) {
+        return inventoryService.getStockLevel(warehouseId, productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Adjusts the quantity of an inventory item by a delta in a single atomic update.
+     *
+     * @param id         the ID of the inventory item to adjust
+     * @param adjustment the delta to apply, whether negative stock is allowed, and the optional kind
+     *                   and reference of the movement
+     * @return the new stock level with HTTP 200 OK, HTTP 409 Conflict if the adjustment would take
+     *         the quantity below zero or the record is still being overwritten, HTTP 400 Bad Request if the delta does not fit the kind of movement
+     *         or the reference is too long, or HTTP 404 Not Found if not found
+     */
+    @PostMapping("/api/inventories/{id}/adjust")
+    public ResponseEntity<StockLevelDTO> adjustInventory(
+            @PathVariable Long id,
+            @RequestBody AdjustInventoryDTO adjustment) {
+        try {
+            StockLevelDTO adjusted = inventoryService.adjustInventory(id, adjustment);
+            return ResponseEntity.ok(adjusted);
+        } catch (InsufficientStockException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Adjusts the quantity of a product in a specific warehouse by a delta in a single atomic update.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @param adjustment  the delta to apply, whether negative stock is allowed, and the optional kind
+     *                    and reference of the movement
+     * @return the new stock level with HTTP 200 OK, HTTP 409 Conflict if the adjustment would take
+     *         the quantity below zero or the record is still being overwritten, HTTP 400 Bad Request if the delta does not fit the kind of movement
+     *         or the reference is too long, or HTTP 404 Not Found if the product has no inventory in the warehouse
+     */
+    @PostMapping("api/warehouses/{warehouseId}/inventory/product/adjust")
+    public ResponseEntity<StockLevelDTO> adjustProductInWarehouseInventory(
+            @PathVariable Long warehouseId,
+            @RequestParam(name = "id", required = true) Long productId,
+            @RequestBody AdjustInventoryDTO adjustment) {
+        try {
+            StockLevelDTO adjusted = inventoryService.adjustInventory(warehouseId, productId, adjustment);
+            return ResponseEntity.ok(adjusted);
+        } catch (InsufficientStockException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Moves stock of one product from a warehouse to another in a single transaction, creating the
+     * inventory of the product in the destination warehouse if it does not exist.
+     *
+     * @param warehouseId the ID of the warehouse stock is moved from
+     * @param productId   the ID of the product
+     * @param transfer    the destination warehouse, the quantity to move and the optional reference
+     * @return the new source and destination stock levels with HTTP 200 OK, HTTP 409 Conflict if the source
+     *         holds less than the quantity or the transfer lost a lock conflict, HTTP 400 Bad Request if the
+     *         transfer is invalid, or HTTP 404 Not Found if the source inventory or destination warehouse is not found
+     */
+    @PostMapping("api/warehouses/{warehouseId}/inventory/product/transfer")
+    public ResponseEntity<TransferResultDTO> transferProductFromWarehouse(
+            @PathVariable Long warehouseId,
+            @RequestParam(name = "id", required = true) Long productId,
+            @RequestBody TransferProductDTO transfer) {
+        return transferStock(warehouseId, new TransferStockDTO(transfer.toWarehouseId(), transfer.reference(),
+                List.of(new TransferStockDTO.Item(productId, transfer.quantity()))));
+    }
+
+    /**
+     * Moves stock of several products from a warehouse to another in a single transaction, all or nothing,
+     * creating the inventories of the products in the destination warehouse that do not exist.
+     *
+     * @param warehouseId the ID of the warehouse stock is moved from
+     * @param transfer    the destination warehouse, the products and quantities to move and the optional reference
+     * @return the new source and destination stock levels with HTTP 200 OK, HTTP 409 Conflict if a source
+     *         holds less than its quantity or the transfer lost a lock conflict, HTTP 400 Bad Request if the
+     *         transfer is invalid, or HTTP 404 Not Found if a source inventory or the destination warehouse is not found
+     */
+    @PostMapping("api/warehouses/{warehouseId}/inventory/transfer")
+    public ResponseEntity<TransferResultDTO> transferStock(
+            @PathVariable Long warehouseId,
+            @RequestBody TransferStockDTO transfer) {
+        try {
+            return ResponseEntity.ok(inventoryService.transferStock(warehouseId, transfer));
+        } catch (InsufficientStockException | ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Retrieves a page of the stock movements of an inventory item, oldest first.
+     *
+     * @param id    the ID of the inventory item
+     * @param after the ID of the last movement of the previous page (cursor), 0 for the first page
+     * @param limit the maximum number of movements to return
+     * @return a page of movements and the next cursor with HTTP 200 OK, HTTP 404 Not Found if the
+     *         inventory item does not exist, or HTTP 400 Bad Request if the limit is out of bounds
+     */
+    @GetMapping("/api/inventories/{id}/movements")
+    public ResponseEntity<CursorPageDTO<StockMovementDTO>> getStockMovements(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        Optional<CursorPageDTO<StockMovementDTO>> movements;
+        try {
+            movements = inventoryService.getStockMovements(id, after, limit);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return movements.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Deletes an inventory item by its ID.
      *
@@ -103,12 +383,30 @@ public class InventoryController {
      * Retrieves all inventory items in a specific warehouse.
      *
      * @param warehouseId the ID of the warehouse
-     * @return a list of inventory items in the specified warehouse with HTTP 200 OK
+     * @param fields      the attributes to return, as comma-separated paths such as {@code id,quantity,product.name};
+     *                    all if omitted
+     * @param include     the relations to embed, any of {@code warehouse} and {@code product}; all if omitted
+     * @param request     the request, whose {@code If-None-Match} header is checked against the current ETag
+     * @return a list of inventory items in the specified warehouse with HTTP 200 OK and an ETag,
+     *         HTTP 304 Not Modified if the client's ETag is current, or HTTP 400 Bad Request if a relation is unknown
      */
     @GetMapping("/api/warehouses/{warehouseId}/inventory")
-    public ResponseEntity<List<ResponseInventoryDTO>> getInventoryByWarehouseId(@PathVariable Long warehouseId) {
-        List<ResponseInventoryDTO> inventories = inventoryService.findWarehouseInventory(warehouseId);
-        return ResponseEntity.ok(inventories);
+    public ResponseEntity<MappingJacksonValue> getInventoryByWarehouseId(
+            @PathVariable Long warehouseId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include,
+            WebRequest request) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.of(fields, include, ResponseInventoryDTO.RELATIONS);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<String> version = inventoryService.getWarehouseInventoryVersion(warehouseId);
+        if (version.isPresent() && request.checkNotModified(ETags.weak(version.get())))
+            return null;
+        List<ResponseInventoryDTO> inventories = inventoryService.findWarehouseInventory(warehouseId, selection);
+        return ResponseEntity.ok(selection.toJacksonValue(inventories));
     }
 
     /**
@@ -139,13 +437,15 @@ public class InventoryController {
     }
 
     /**
-     * Retrieves inventory items that are considered low in stock.
+     * Retrieves inventory items that are considered low in stock, optionally in one warehouse only.
      *
+     * @param warehouseId the ID of the warehouse to restrict the result to (optional)
      * @return a list of low stock inventory items with HTTP 200 OK
      */
     @GetMapping("api/inventories/lowstock")
-    public ResponseEntity<List<ResponseInventoryDTO>> getLowStockInventory() {
-        List<ResponseInventoryDTO> inventories = inventoryService.findLowStockInventory();
+    public ResponseEntity<List<ResponseInventoryDTO>> getLowStockInventory(
+            @RequestParam(name = "warehouseId", required = false) Long warehouseId) {
+        List<ResponseInventoryDTO> inventories = inventoryService.findLowStockInventory(warehouseId);
         return ResponseEntity.ok(inventories);
     }
 }
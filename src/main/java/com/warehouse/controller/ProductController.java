@@ -1,15 +1,29 @@
 package com.warehouse.controller;
 
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.page.PageDTO;
 import com.warehouse.dto.product.CreateProductDTO;
 import com.warehouse.dto.product.ResponseProductDTO;
 import com.warehouse.dto.product.UpdateProductDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.service.ProductService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * REST controller for managing products in the warehouse.
@@ -31,24 +45,40 @@ public class ProductController {
     }
 
     /**
-     * Retrieves all products.
+     * Retrieves a page of products ordered by ID.
      *
-     * @return a list of all products
+     * @param after the ID of the last product of the previous page (cursor), 0 for the first page
+     * @param limit the maximum number of products to return
+     * @return a page of products and the next cursor, or 400 Bad Request if the limit is out of bounds
      */
     @GetMapping
-    public ResponseEntity<List<ResponseProductDTO>> getAllProducts() {
-        List<ResponseProductDTO> products = productService.getAllProducts();
+    public ResponseEntity<CursorPageDTO<ResponseProductDTO>> getAllProducts(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        CursorPageDTO<ResponseProductDTO> products;
+        try {
+            products = productService.getProductPage(after, limit);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.ok(products);
     }
 
     /**
      * Retrieves a specific product by its ID.
      *
-     * @param id the ID of the product
-     * @return the product if found, or 404 Not Found
+     * @param id      the ID of the product
+     * @param request the request, whose {@code If-None-Match} header is checked against the current ETag
+     * @return the product with an ETag if found, 304 Not Modified if the client's ETag is current,
+     *         or 404 Not Found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ResponseProductDTO> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ResponseProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        Optional<String> version = productService.getProductVersion(id);
+        if (version.isEmpty())
+            return ResponseEntity.notFound().build();
+        if (request.checkNotModified(ETags.weak(version.get())))
+            return null;
         return productService.getProductById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -66,12 +96,43 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    /**
+     * Creates or updates products from a UTF-8 CSV file with a header row. Rows without an {@code id}
+     * create a product, rows with one update it. The body is read as a stream, so it is never held in
+     * memory as a whole.
+     *
+     * @param body the raw request body
+     * @return the numbers of rows read, written and rejected and the first rejected lines with 200 OK,
+     *         or 400 Bad Request if the header is missing or lacks a required column
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportResultDTO> importProducts(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(productService.importProducts(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Exports products as CSV, ordered by ID. The rows are copied from the database to the response
+     * as the database produces them, without building any entity.
+     *
+     * @param category the category to export (optional)
+     * @return the CSV, streamed with 200 OK
+     */
+    @GetMapping(value = "/export.csv", produces = CsvExports.TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String category) {
+        return CsvExports.attachment("products.csv", out -> productService.exportProducts(category, out));
+    }
+
     /**
      * Updates an existing product by ID.
      *
      * @param id         the ID of the product to update
      * @param productDTO the updated product details
-     * @return the updated product or 404 Not Found if it doesn't exist
+     * @return the updated product, 409 Conflict if it was updated concurrently, or 404 Not Found if it doesn't exist
      */
     @PutMapping("/{id}")
     public ResponseEntity<ResponseProductDTO> updateProduct(
@@ -81,6 +142,8 @@ public class ProductController {
         try {
             ResponseProductDTO updated = productService.updateProduct(id, productDTO);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -103,23 +166,49 @@ public class ProductController {
     }
 
     /**
-     * Searches for products based on optional filters like category, name, minimum price, and maximum price.
+     * Suggests products whose name contains the typed text, for type-ahead. Served from an in-memory
+     * name index; texts shorter than three characters only match name prefixes.
+     *
+     * @param q     the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return product IDs and names, best match first, or 400 Bad Request if the limit is out of bounds
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<SuggestionDTO> suggestions;
+        try {
+            suggestions = productService.suggest(q, limit);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Searches for products matching every given filter: category, name substring, and price range.
+     * Results are paged with {@code page} and {@code size} and sorted with {@code sort}
+     * (e.g. {@code sort=price,desc}) by id, name, price, category, or weight.
      *
      * @param category the product category to filter by (optional)
-     * @param name     the product name to filter by (optional)
+     * @param name     the product name substring to filter by (optional)
      * @param minPrice the minimum price to filter by (optional)
      * @param maxPrice the maximum price to filter by (optional)
-     * @return a list of products matching the search criteria
+     * @param pageable the page number, page size, and sort
+     * @return a page of products matching the search criteria, or 400 Bad Request if the
+     *         page size, sort, or price range is invalid
      */
     @GetMapping("/search")
-    public ResponseEntity<List<ResponseProductDTO>> search(
+    public ResponseEntity<PageDTO<ResponseProductDTO>> search(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) BigDecimal minPrice,
-            @RequestParam(required = false) BigDecimal maxPrice) {
-        List<ResponseProductDTO> products;
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @PageableDefault(size = 100) Pageable pageable) {
+        PageDTO<ResponseProductDTO> products;
         try {
-            products = productService.search(category, name, minPrice, maxPrice);
+            products = productService.search(category, name, minPrice, maxPrice, pageable);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
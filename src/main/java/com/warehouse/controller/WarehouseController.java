@@ -1,14 +1,26 @@
 package com.warehouse.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.dto.warehouse.CreateWarehouseDTO;
 import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
 import com.warehouse.dto.warehouse.UpdateWarehouseDTO;
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
 import com.warehouse.entity.Warehouse;
 import com.warehouse.service.WarehouseService;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -21,37 +33,130 @@ import java.util.List;
 public class WarehouseController {
 
     private final WarehouseService warehouseService;
+    private final ObjectWriter warehouseWriter;
 
     /**
      * Constructs a new {@code WarehouseController} with the given {@code WarehouseService}.
      *
      * @param warehouseService the service layer for warehouse operations
+     * @param objectMapper     the JSON mapper used to write streamed exports
      */
-    public WarehouseController(WarehouseService warehouseService) {
+    public WarehouseController(WarehouseService warehouseService, ObjectMapper objectMapper) {
         this.warehouseService = warehouseService;
+        this.warehouseWriter = objectMapper.writerFor(ResponseWarehouseDTO.class);
     }
 
     /**
-     * Retrieves a list of all warehouses.
+     * Retrieves a page of warehouses ordered by ID.
      *
-     * @return a {@code ResponseEntity} containing the list of all warehouses and HTTP 200 OK
+     * @param after   the ID of the last warehouse of the previous page (cursor), 0 for the first page
+     * @param limit   the maximum number of warehouses to return
+     * @param fields  the attributes to return, as comma-separated paths such as {@code id,name,inventories.quantity};
+     *                all if omitted
+     * @param include the relations to embed, any of {@code inventories} and {@code inventories.product};
+     *                all if omitted
+     * @return a {@code ResponseEntity} containing the page of warehouses and the next cursor and HTTP 200 OK,
+     *         or HTTP 400 Bad Request if the limit is out of bounds or a relation is unknown
      */
     @GetMapping
-    public ResponseEntity<List<ResponseWarehouseDTO>> getAllWarehouses() {
-        List<ResponseWarehouseDTO> warehouses = warehouseService.getAllWarehouses();
-        return ResponseEntity.ok(warehouses);
+    public ResponseEntity<MappingJacksonValue> getAllWarehouses(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include) {
+        FieldSelection selection;
+        CursorPageDTO<ResponseWarehouseDTO> warehouses;
+        try {
+            selection = FieldSelection.of(fields, include, ResponseWarehouseDTO.RELATIONS);
+            warehouses = warehouseService.getWarehousePage(after, limit, selection);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(selection.toJacksonValue(warehouses));
+    }
+
+    /**
+     * Exports all warehouses with their inventories and products as newline-delimited JSON,
+     * one warehouse per line. The response is streamed while the database cursor is read,
+     * so memory use does not depend on the size of the warehouse network.
+     *
+     * @return a {@code ResponseEntity} streaming the warehouses and HTTP 200 OK
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportWarehouses() {
+        StreamingResponseBody body = out -> warehouseService.exportWarehouses(warehouse -> {
+            try {
+                out.write(warehouseWriter.writeValueAsBytes(warehouse));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Exports all warehouses as CSV, one row per warehouse ordered by ID. The rows are copied from the
+     * database to the response as the database produces them, without building any entity.
+     *
+     * @return a {@code ResponseEntity} streaming the CSV and HTTP 200 OK
+     */
+    @GetMapping(value = "/export.csv", produces = CsvExports.TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportWarehousesCsv() {
+        return CsvExports.attachment("warehouses.csv", out -> warehouseService.exportWarehouses(out));
     }
 
     /**
      * Retrieves a warehouse by its ID.
      *
-     * @param id the ID of the warehouse to retrieve
+     * @param id      the ID of the warehouse to retrieve
+     * @param fields  the attributes to return, as comma-separated paths such as {@code id,name,inventories.quantity};
+     *                all if omitted
+     * @param include the relations to embed, any of {@code inventories} and {@code inventories.product};
+     *                all if omitted
      * @return a {@code ResponseEntity} containing the warehouse and HTTP 200 OK if found,
-     *         or HTTP 404 Not Found if not found
+     *         HTTP 404 Not Found if not found, or HTTP 400 Bad Request if a relation is unknown
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ResponseWarehouseDTO> getWarehouseById(@PathVariable Long id) {
-        return warehouseService.getWarehouseById(id)
+    public ResponseEntity<MappingJacksonValue> getWarehouseById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String include) {
+        FieldSelection selection;
+        try {
+            selection = FieldSelection.of(fields, include, ResponseWarehouseDTO.RELATIONS);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return warehouseService.getWarehouseById(id, selection)
+                .map(warehouse -> ResponseEntity.ok(selection.toJacksonValue(warehouse)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retrieves the stock summary of every warehouse: SKU count, total units, low-stock count,
+     * total weight and capacity utilization, aggregated by the database.
+     *
+     * @return a {@code ResponseEntity} containing the summaries and HTTP 200 OK
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<WarehouseSummaryDTO>> getSummaries() {
+        return ResponseEntity.ok(warehouseService.getSummaries());
+    }
+
+    /**
+     * Retrieves the stock summary of a warehouse.
+     *
+     * @param id the ID of the warehouse
+     * @return a {@code ResponseEntity} containing the summary and HTTP 200 OK if found,
+     *         or HTTP 404 Not Found if not found
+     */
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<WarehouseSummaryDTO> getSummary(@PathVariable Long id) {
+        return warehouseService.getSummary(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -74,6 +179,7 @@ public class WarehouseController {
      * @param id        the ID of the warehouse to update
      * @param warehouse the updated warehouse object
      * @return a {@code ResponseEntity} containing the updated warehouse and HTTP 200 OK,
+     *         HTTP 409 Conflict if the warehouse was updated concurrently,
      *         or HTTP 404 Not Found if the warehouse does not exist
      */
     @PutMapping("/{id}")
@@ -83,6 +189,8 @@ public class WarehouseController {
         try {
             ResponseWarehouseDTO updated = warehouseService.updateWarehouse(id, warehouse);
             return ResponseEntity.ok(updated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -104,6 +212,27 @@ public class WarehouseController {
         }
     }
 
+    /**
+     * Suggests warehouses whose name contains the typed text, for type-ahead. Served from an in-memory
+     * name index; texts shorter than three characters only match name prefixes.
+     *
+     * @param q     the text typed so far
+     * @param limit the maximum number of suggestions
+     * @return warehouse IDs and names, best match first, or 400 Bad Request if the limit is out of bounds
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<SuggestionDTO> suggestions;
+        try {
+            suggestions = warehouseService.suggest(q, limit);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(suggestions);
+    }
+
     /**
      * Searches for warehouses by optional name and/or minimum capacity.
      *
@@ -0,0 +1,12 @@
+package com.warehouse.dto.cache;
+
+public record CacheStatsDTO(
+        String name,
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long loadCount,
+        double averageLoadPenaltyMillis
+) {}
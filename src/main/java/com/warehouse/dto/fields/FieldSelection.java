@@ -0,0 +1,197 @@
+package com.warehouse.dto.fields;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The attributes and nested relations of a response that a client asked for with the {@code fields}
+ * and {@code include} query parameters.
+ * <p>
+ * {@code include} lists the relations to embed, as dotted paths such as {@code inventories.product};
+ * naming a nested relation implies its parents, an empty value embeds none, and without the parameter
+ * all relations are embedded. {@code fields} lists the attributes to serialize as dotted paths relative
+ * to the resource, such as {@code id,inventories.quantity}; naming a relation serializes all of its
+ * attributes, and without the parameter all attributes are serialized. A relation is loaded only if it
+ * is both included and asked for by {@code fields}, and relations that are not loaded are left out of
+ * the response.
+ * <p>
+ * Services pass {@link #fetchPaths()} to the repository as the fetch plan, and controllers write the
+ * response with {@link #filters()}, which applies to every DTO annotated with
+ * {@code @JsonFilter(FieldSelection.FILTER_ID)}.
+ */
+public final class FieldSelection {
+
+    /**
+     * ID of the Jackson filter applied to the DTOs whose attributes can be selected.
+     */
+    public static final String FILTER_ID = "fieldSelection";
+
+    /**
+     * Filters serializing every attribute, the default of all object mappers writing filtered DTOs.
+     */
+    public static final FilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    private static final ClassValue<Boolean> FILTERED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            JsonFilter filter = type.getAnnotation(JsonFilter.class);
+            return filter != null && filter.value().equals(FILTER_ID);
+        }
+    };
+
+    private final List<String> relations;
+    private final Set<String> fields;
+    private final Set<String> loaded;
+
+    private FieldSelection(List<String> relations, Set<String> fields, Set<String> included) {
+        this.relations = relations;
+        this.fields = fields;
+        this.loaded = new LinkedHashSet<>();
+        for (String relation : relations) {
+            int dot = relation.lastIndexOf('.');
+            boolean parentLoaded = dot < 0 || loaded.contains(relation.substring(0, dot));
+            if (parentLoaded && (included == null || covers(included, relation, false))
+                    && (fields.isEmpty() || covers(fields, relation, true)))
+                loaded.add(relation);
+        }
+    }
+
+    /**
+     * Parses the {@code fields} and {@code include} parameters of a request.
+     *
+     * @param fields    comma-separated attribute paths, or {@code null} for all attributes
+     * @param include   comma-separated relation paths, or {@code null} for all relations
+     * @param relations the relation paths of the resource, parents before their children
+     * @return the selection
+     * @throws IllegalArgumentException if {@code include} names a relation the resource does not have
+     */
+    public static FieldSelection of(String fields, String include, List<String> relations) {
+        Set<String> included = include != null ? split(include) : null;
+        if (included != null && !relations.containsAll(included))
+            throw new IllegalArgumentException("Unknown relation in include: " + include);
+        return new FieldSelection(relations, fields != null ? split(fields) : Set.of(), included);
+    }
+
+    /**
+     * Returns the selection of all attributes and relations of a resource.
+     *
+     * @param relations the relation paths of the resource, parents before their children
+     * @return the selection
+     */
+    public static FieldSelection all(List<String> relations) {
+        return new FieldSelection(relations, Set.of(), null);
+    }
+
+    /**
+     * Returns whether a relation is to be loaded and serialized.
+     *
+     * @param relation the relation path
+     * @return {@code true} if the relation is selected
+     */
+    public boolean loads(String relation) {
+        return loaded.contains(relation);
+    }
+
+    /**
+     * Returns the paths of the relations to load, parents before their children.
+     *
+     * @return the relation paths
+     */
+    public List<String> fetchPaths() {
+        return new ArrayList<>(loaded);
+    }
+
+    /**
+     * Returns the Jackson filters that serialize exactly the selected attributes and relations.
+     *
+     * @return the filters
+     */
+    public FilterProvider filters() {
+        if (fields.isEmpty() && loaded.size() == relations.size())
+            return ALL_FIELDS;
+        return new SimpleFilterProvider().addFilter(FILTER_ID, new PathFilter());
+    }
+
+    /**
+     * Wraps a response body so that it is written with the {@link #filters()} of this selection.
+     *
+     * @param body the response body
+     * @return the body with the filters to write it with
+     */
+    public MappingJacksonValue toJacksonValue(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(filters());
+        return value;
+    }
+
+    private boolean selects(String path) {
+        if (relations.contains(path) && !loaded.contains(path))
+            return false;
+        return fields.isEmpty() || covers(fields, path, true);
+    }
+
+    /**
+     * Returns whether the path is one of the selected paths or a parent of one, or, if
+     * {@code descendants} is set, nested in one.
+     */
+    private static boolean covers(Set<String> selected, String path, boolean descendants) {
+        if (selected.contains(path))
+            return true;
+        for (String candidate : selected)
+            if (candidate.startsWith(path) && candidate.length() > path.length() && candidate.charAt(path.length()) == '.'
+                    || descendants && path.startsWith(candidate) && path.charAt(candidate.length()) == '.')
+                return true;
+        return false;
+    }
+
+    private static Set<String> split(String paths) {
+        return Arrays.stream(paths.split(","))
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Serializes a property only if its path from the outermost filtered object is selected.
+     * Enclosing objects that are not filtered, such as page wrappers, do not contribute to the path.
+     */
+    private final class PathFilter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer)
+                throws Exception {
+            if (selects(path(gen.getOutputContext(), writer.getName())))
+                writer.serializeAsField(pojo, gen, provider);
+            else if (!gen.canOmitFields())
+                writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+
+        private static String path(JsonStreamContext context, String name) {
+            StringBuilder path = new StringBuilder(name);
+            for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+                if (parent.inArray())
+                    continue;
+                Object value = parent.getCurrentValue();
+                if (!parent.inObject() || value == null || !FILTERED.get(value.getClass()))
+                    break;
+                path.insert(0, '.').insert(0, parent.getCurrentName());
+            }
+            return path.toString();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.warehouse.dto.imports;
+
+import java.util.List;
+
+/**
+ * Outcome of a CSV import.
+ *
+ * @param rows          the number of data rows read
+ * @param inserted      the number of records created
+ * @param updated       the number of records updated
+ * @param rejected      the number of rows that were not written
+ * @param rejectedLines the first rejected lines, in line order
+ * @param elapsedMillis the time the import took, in milliseconds
+ * @param rowsPerSecond the rows read per second
+ */
+public record ImportResultDTO(
+        long rows,
+        long inserted,
+        long updated,
+        long rejected,
+        List<RejectedLineDTO> rejectedLines,
+        long elapsedMillis,
+        long rowsPerSecond
+) {}
@@ -0,0 +1,9 @@
+package com.warehouse.dto.imports;
+
+/**
+ * A line of an imported CSV file that was not written.
+ *
+ * @param line   the line number, counting the header as line 1
+ * @param reason why the line was rejected
+ */
+public record RejectedLineDTO(long line, String reason) {}
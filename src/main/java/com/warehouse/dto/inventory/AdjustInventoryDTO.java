@@ -0,0 +1,28 @@
+package com.warehouse.dto.inventory;
+
+import com.warehouse.entity.MovementType;
+
+public record AdjustInventoryDTO(
+        int delta,
+
+        boolean allowNegative,
+
+        MovementType type,
+
+        String reference
+) {
+
+    /**
+     * Maximum length of a movement reference.
+     */
+    public static final int MAX_REFERENCE_LENGTH = 100;
+
+    /**
+     * Returns the kind of movement, {@link MovementType#ADJUSTMENT} if none was given.
+     *
+     * @return the kind of movement
+     */
+    public MovementType movementType() {
+        return type != null ? type : MovementType.ADJUSTMENT;
+    }
+}
@@ -0,0 +1,16 @@
+package com.warehouse.dto.inventory;
+
+import java.util.List;
+
+/**
+ * Response of a bulk upsert that stopped before the end of its input.
+ *
+ * @param failedIndex the index of the first item that was not written; every earlier item has a result
+ * @param message     why the item could not be read or written
+ * @param results     the results of the items before the failed one, in input order
+ */
+public record BulkInventoryFailureDTO(
+        int failedIndex,
+        String message,
+        List<BulkInventoryResultDTO> results
+) {}
@@ -0,0 +1,17 @@
+package com.warehouse.dto.inventory;
+
+public record BulkInventoryResultDTO(
+        int index,
+        Long id,
+        Long warehouseId,
+        Long productId,
+        Status status,
+        String message
+) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        REJECTED
+    }
+}
@@ -1,7 +1,10 @@
 package com.warehouse.dto.inventory;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.warehouse.dto.fields.FieldSelection;
 import com.warehouse.dto.product.ResponseProductDTO;
 
+@JsonFilter(FieldSelection.FILTER_ID)
 public record MinimalInventoryDTO(
         Long id,
         int quantity,
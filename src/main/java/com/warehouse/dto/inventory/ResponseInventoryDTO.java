@@ -1,8 +1,13 @@
 package com.warehouse.dto.inventory;
 
-import com.warehouse.dto.warehouse.MinimalWarehouseDTO;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.warehouse.dto.fields.FieldSelection;
 import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.warehouse.MinimalWarehouseDTO;
 
+import java.util.List;
+
+@JsonFilter(FieldSelection.FILTER_ID)
 public record ResponseInventoryDTO(
         Long id,
         int quantity,
@@ -10,4 +15,10 @@ public record ResponseInventoryDTO(
         int maxStock,
         MinimalWarehouseDTO warehouse,
         ResponseProductDTO product
-) {}
+) {
+
+    /**
+     * Relations that can be selected with {@link FieldSelection}, parents before their children.
+     */
+    public static final List<String> RELATIONS = List.of("warehouse", "product");
+}
@@ -0,0 +1,9 @@
+package com.warehouse.dto.inventory;
+
+public record StockLevelDTO(
+        Long id,
+        Long warehouseId,
+        Long productId,
+        int quantity,
+        int minStock
+) {}
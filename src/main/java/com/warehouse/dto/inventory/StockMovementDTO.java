@@ -0,0 +1,15 @@
+package com.warehouse.dto.inventory;
+
+import com.warehouse.entity.MovementType;
+
+import java.time.LocalDateTime;
+
+public record StockMovementDTO(
+        Long id,
+        Long inventoryId,
+        MovementType type,
+        int quantity,
+        String reference,
+        LocalDateTime createdAt,
+        LocalDateTime compactedAt
+) {}
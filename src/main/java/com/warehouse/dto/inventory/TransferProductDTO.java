@@ -0,0 +1,9 @@
+package com.warehouse.dto.inventory;
+
+public record TransferProductDTO(
+        Long toWarehouseId,
+
+        int quantity,
+
+        String reference
+) {}
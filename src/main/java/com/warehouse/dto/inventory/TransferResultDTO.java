@@ -0,0 +1,17 @@
+package com.warehouse.dto.inventory;
+
+import java.util.List;
+
+public record TransferResultDTO(
+        Long fromWarehouseId,
+        Long toWarehouseId,
+        List<Item> items
+) {
+
+    public record Item(
+            Long productId,
+            int quantity,
+            StockLevelDTO source,
+            StockLevelDTO destination
+    ) {}
+}
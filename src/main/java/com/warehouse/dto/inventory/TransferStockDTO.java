@@ -0,0 +1,23 @@
+package com.warehouse.dto.inventory;
+
+import java.util.List;
+
+public record TransferStockDTO(
+        Long toWarehouseId,
+
+        String reference,
+
+        List<Item> items
+) {
+
+    /**
+     * Maximum number of products moved by one transfer.
+     */
+    public static final int MAX_ITEMS = 1000;
+
+    public record Item(
+            Long productId,
+
+            int quantity
+    ) {}
+}
@@ -2,31 +2,46 @@ package com.warehouse.dto.mapper;
 import com.warehouse.dto.inventory.CreateInventoryDTO;
 import com.warehouse.dto.inventory.MinimalInventoryDTO;
 import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.inventory.StockMovementDTO;
 import com.warehouse.dto.inventory.UpdateInventoryDTO;
 import com.warehouse.entity.Inventory;
+import com.warehouse.entity.StockMovement;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring", uses = {ProductMapper.class, ReferenceMapper.class, MinimalWarehouseMapper.class})
+@Mapper(componentModel = "spring", uses = {ProductMapper.class, ReferenceMapper.class, MinimalWarehouseMapper.class,
+        LoadedConditions.class})
 public interface InventoryMapper {
 
+    @Mapping(target = "warehouse", conditionQualifiedByName = LoadedConditions.LOADED)
+    @Mapping(target = "product", conditionQualifiedByName = LoadedConditions.LOADED)
     ResponseInventoryDTO toResponseDto(Inventory inventory);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Inventory toEntity(CreateInventoryDTO createInventoryDTO);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "warehouse", ignore = true)
     @Mapping(target = "product", ignore = true)
     Inventory toEntity(UpdateInventoryDTO updateInventoryDTO);
 
     List<ResponseInventoryDTO> toResponseDto(List<Inventory> inventoryList);
 
+    @Mapping(target = "product", conditionQualifiedByName = LoadedConditions.LOADED)
+    MinimalInventoryDTO toMinimalDto(Inventory inventory);
+
     List<MinimalInventoryDTO> toMinimalDto(List<Inventory> inventories);
+
+    @Mapping(target = "inventoryId", source = "inventory.id")
+    StockMovementDTO toMovementDto(StockMovement movement);
+
+    List<StockMovementDTO> toMovementDto(List<StockMovement> movements);
 }
@@ -0,0 +1,26 @@
+package com.warehouse.dto.mapper;
+
+import org.hibernate.Hibernate;
+import org.mapstruct.Condition;
+import org.mapstruct.Named;
+
+/**
+ * Mapping condition that skips associations the fetch plan of a query did not load, so mapping an
+ * entity never triggers lazy loading. Skipped associations are mapped to {@code null}.
+ */
+public final class LoadedConditions {
+
+    /**
+     * Qualifier of the condition, for {@code @Mapping(conditionQualifiedByName = ...)}.
+     */
+    public static final String LOADED = "loaded";
+
+    private LoadedConditions() {
+    }
+
+    @Condition
+    @Named(LOADED)
+    public static boolean isLoaded(Object association) {
+        return Hibernate.isInitialized(association);
+    }
+}
@@ -14,6 +14,7 @@ public interface ReferenceMapper {
     @Mapping(target = "managerName", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target =  "inventories", ignore = true)
     Warehouse toWarehouseEntity(ReferenceDTO referenceDTO);
 
@@ -24,5 +25,6 @@ public interface ReferenceMapper {
     @Mapping(target = "weight", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Product toProductEntity(ReferenceDTO referenceDTO);
 }
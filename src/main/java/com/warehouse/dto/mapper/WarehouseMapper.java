@@ -9,25 +9,27 @@ import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring", uses = {InventoryMapper.class})
+@Mapper(componentModel = "spring", uses = {InventoryMapper.class, LoadedConditions.class})
 public interface WarehouseMapper {
 
     @Mapping(source = "name", target = "name")
     @Mapping(source = "address", target = "address")
     @Mapping(source = "capacity", target = "capacity")
     @Mapping(source = "managerName", target = "managerName")
-    @Mapping(source = "inventories", target = "inventories")
+    @Mapping(source = "inventories", target = "inventories", conditionQualifiedByName = LoadedConditions.LOADED)
     ResponseWarehouseDTO toResponseDto(Warehouse warehouse);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target =  "inventories", ignore = true)
     Warehouse toEntity(CreateWarehouseDTO createWarehouseDTO);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target =  "inventories", ignore = true)
     Warehouse toEntity(UpdateWarehouseDTO updateWarehouseDTO);
 
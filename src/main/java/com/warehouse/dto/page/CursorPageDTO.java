@@ -0,0 +1,39 @@
+package com.warehouse.dto.page;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDTO<T>(
+        List<T> items,
+        Long nextCursor
+) {
+
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Builds a page from a keyset query that fetched up to {@code limit + 1} rows ordered by ID.
+     * The extra row only signals that another page exists and is not returned.
+     *
+     * @param fetched     the rows fetched by the keyset query
+     * @param limit       the requested page size
+     * @param idExtractor extracts the ID used as the next cursor
+     * @return the page, with a {@code null} cursor if this was the last page
+     */
+    public static <T> CursorPageDTO<T> of(List<T> fetched, int limit, Function<T, Long> idExtractor) {
+        if (fetched.size() <= limit)
+            return new CursorPageDTO<>(fetched, null);
+        List<T> items = List.copyOf(fetched.subList(0, limit));
+        return new CursorPageDTO<>(items, idExtractor.apply(items.get(limit - 1)));
+    }
+
+    /**
+     * Checks that a requested page size is within the allowed bounds.
+     *
+     * @param limit the requested page size
+     * @throws RuntimeException if the limit is not between 1 and {@link #MAX_LIMIT}
+     */
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new RuntimeException("Bad Request");
+    }
+}
@@ -0,0 +1,23 @@
+package com.warehouse.dto.page;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public record PageDTO<T>(
+        List<T> items,
+        int page,
+        int size,
+        boolean hasNext
+) {
+
+    /**
+     * Builds a page from a slice, which knows whether a next page exists without counting all rows.
+     *
+     * @param slice the slice returned by the query
+     * @return the page
+     */
+    public static <T> PageDTO<T> of(Slice<T> slice) {
+        return new PageDTO<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+}
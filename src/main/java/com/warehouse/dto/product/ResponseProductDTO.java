@@ -1,7 +1,11 @@
 package com.warehouse.dto.product;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.warehouse.dto.fields.FieldSelection;
+
 import java.math.BigDecimal;
 
+@JsonFilter(FieldSelection.FILTER_ID)
 public record ResponseProductDTO(
         Long id,
         String name,
@@ -0,0 +1,6 @@
+package com.warehouse.dto.search;
+
+public record SuggestionDTO(
+        Long id,
+        String name
+) {}
@@ -1,10 +1,13 @@
 package com.warehouse.dto.warehouse;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.warehouse.dto.fields.FieldSelection;
 import com.warehouse.dto.inventory.MinimalInventoryDTO;
 
 import java.math.BigDecimal;
 import java.util.List;
 
+@JsonFilter(FieldSelection.FILTER_ID)
 public record ResponseWarehouseDTO (
         Long id,
         String name,
@@ -12,4 +15,10 @@ public record ResponseWarehouseDTO (
         BigDecimal capacity,
         String managerName,
         List<MinimalInventoryDTO> inventories
-) {}
+) {
+
+    /**
+     * Relations that can be selected with {@link FieldSelection}, parents before their children.
+     */
+    public static final List<String> RELATIONS = List.of("inventories", "inventories.product");
+}
@@ -0,0 +1,21 @@
+package com.warehouse.dto.warehouse;
+
+import java.math.BigDecimal;
+
+public record WarehouseExportRowDTO(
+        Long warehouseId,
+        String warehouseName,
+        String address,
+        BigDecimal capacity,
+        String managerName,
+        Long inventoryId,
+        Integer quantity,
+        Integer minStock,
+        Integer maxStock,
+        Long productId,
+        String productName,
+        String description,
+        BigDecimal price,
+        String category,
+        BigDecimal weight
+) {}
@@ -0,0 +1,34 @@
+package com.warehouse.dto.warehouse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Stock figures of a warehouse, aggregated over its inventory records.
+ *
+ * @param skuCount      number of inventory records (distinct products)
+ * @param totalUnits    sum of the quantities
+ * @param lowStockCount number of inventory records below their minimum stock
+ * @param totalWeight   sum of quantity times product weight
+ * @param utilization   total units divided by capacity, or {@code null} if the capacity is zero
+ */
+public record WarehouseSummaryDTO(
+        Long id,
+        String name,
+        BigDecimal capacity,
+        long skuCount,
+        long totalUnits,
+        long lowStockCount,
+        BigDecimal totalWeight,
+        BigDecimal utilization
+) {
+
+    /**
+     * Creates a summary from the aggregates of a query, deriving the utilization.
+     */
+    public WarehouseSummaryDTO(Long id, String name, BigDecimal capacity, Long skuCount, Long totalUnits,
+                               Long lowStockCount, BigDecimal totalWeight) {
+        this(id, name, capacity, skuCount, totalUnits, lowStockCount, totalWeight,
+                capacity.signum() == 0 ? null : BigDecimal.valueOf(totalUnits).divide(capacity, 4, RoundingMode.HALF_UP));
+    }
+}
@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
 
 /**
  * Abstract base class for entities, providing common fields such as ID,
- * creation timestamp, and update timestamp.
+ * creation timestamp, update timestamp, and version.
  * <p>
  * All entities that extend this class will inherit these fields and
  * automatic timestamp management.
@@ -42,6 +42,15 @@ public abstract class BaseEntity {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Number of updates made to the entity, incremented on every update.
+     * Guards JPA updates against lost writes and identifies the state of the entity in ETags.
+     * Native statements that modify a row must increment it as well.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     /**
      * Lifecycle callback method triggered before the entity is persisted.
      * Sets both {@code createdAt} and {@code updatedAt} to the current time.
@@ -0,0 +1,27 @@
+package com.warehouse.entity;
+
+/**
+ * The kind of a {@link StockMovement}.
+ */
+public enum MovementType {
+
+    /**
+     * Stock received into the warehouse.
+     */
+    RECEIPT,
+
+    /**
+     * Stock picked for an order.
+     */
+    PICK,
+
+    /**
+     * Correction of the quantity, for example after a stock count.
+     */
+    ADJUSTMENT,
+
+    /**
+     * Stock moved to or from another warehouse.
+     */
+    TRANSFER
+}
@@ -0,0 +1,72 @@
+package com.warehouse.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents one change of the quantity of an inventory record in the append-only stock ledger.
+ * <p>
+ * Movements are only ever inserted. The quantity of an inventory record is its stored quantity plus
+ * the sum of its pending movements, those not compacted yet; compaction adds the pending movements
+ * to the stored quantity and stamps them, in one transaction, so the sum does not change. Compacted
+ * movements stay in the table as the history of the record.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "stock_movement")
+public class StockMovement {
+
+    /**
+     * Unique identifier of the movement, increasing in the order movements are recorded.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The inventory record whose quantity changed.
+     * Movements are deleted together with their inventory record.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Inventory inventory;
+
+    /**
+     * The kind of movement.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private MovementType type;
+
+    /**
+     * The signed change of the quantity.
+     */
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    /**
+     * Optional reference of the document behind the movement, such as an order or delivery number.
+     */
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    /**
+     * Timestamp indicating when the movement was recorded.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Timestamp indicating when the movement was folded into the quantity of its inventory record,
+     * or superseded by a write of that quantity; {@code null} while the movement is pending.
+     */
+    @Column(name = "compacted_at")
+    private LocalDateTime compactedAt;
+}
@@ -0,0 +1,54 @@
+package com.warehouse.exception;
+
+import com.warehouse.dto.inventory.BulkInventoryResultDTO;
+
+import java.util.List;
+
+/**
+ * Thrown when a bulk upsert stops before the end of its input. Every item before the failed one
+ * has been processed and committed; nothing from the failed item onwards has been written.
+ */
+public class BulkUpsertException extends RuntimeException {
+
+    private final int failedIndex;
+    private final boolean badInput;
+    private final List<BulkInventoryResultDTO> results;
+
+    /**
+     * Constructs a new BulkUpsertException.
+     *
+     * @param message     the detail message
+     * @param failedIndex the index of the first item that was not written
+     * @param badInput    whether the item could not be read, rather than written
+     * @param results     the results of the items before the failed one, in input order
+     * @param cause       the failure
+     */
+    public BulkUpsertException(String message, int failedIndex, boolean badInput,
+                               List<BulkInventoryResultDTO> results, Throwable cause) {
+        super(message, cause);
+        this.failedIndex = failedIndex;
+        this.badInput = badInput;
+        this.results = List.copyOf(results);
+    }
+
+    /**
+     * @return the index of the first item that was not written
+     */
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    /**
+     * @return {@code true} if the item at the failed index could not be read, {@code false} if writing failed
+     */
+    public boolean isBadInput() {
+        return badInput;
+    }
+
+    /**
+     * @return the results of the items before the failed one, in input order
+     */
+    public List<BulkInventoryResultDTO> getResults() {
+        return results;
+    }
+}
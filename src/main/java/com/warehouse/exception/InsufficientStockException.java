@@ -0,0 +1,16 @@
+package com.warehouse.exception;
+
+/**
+ * Thrown when a stock movement would take an inventory record below zero.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    /**
+     * Constructs a new InsufficientStockException with the given detail message.
+     *
+     * @param message the detail message
+     */
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,144 @@
+package com.warehouse.repository;
+
+import com.warehouse.config.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repository for CSV exports, executed directly over JDBC against PostgreSQL.
+ * <p>
+ * An export runs one {@code COPY (query) TO STDOUT} statement and writes the CSV the server produces
+ * straight to an output stream, header included, so no row is turned into an entity or even a Java
+ * object and memory use does not depend on the number of rows. COPY takes no bind parameters, so
+ * filters are written into the query as literals escaped by the driver.
+ * <p>
+ * The column names match those the CSV imports read, so an export can be edited and imported back.
+ */
+@Repository
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class CopyExportRepository {
+
+    private static final String PRODUCTS_SQL = """
+            SELECT id, name, description, price, category, weight, created_at, updated_at, version
+            FROM product
+            """;
+
+    private static final String WAREHOUSES_SQL = """
+            SELECT id, name, address, capacity, manager_name, created_at, updated_at, version
+            FROM warehouse
+            """;
+
+    private static final String INVENTORIES_SQL = """
+            SELECT i.id, i.warehouse_id, w.name AS warehouse_name, i.product_id, p.name AS product_name,
+                   p.category, p.price, i.quantity, i.min_stock, i.max_stock, i.updated_at, i.version
+            FROM inventory i
+            JOIN warehouse w ON w.id = i.warehouse_id
+            JOIN product p ON p.id = i.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a CopyExportRepository with the given {@code JdbcTemplate}.
+     *
+     * @param jdbcTemplate template whose connections the exports run on
+     */
+    public CopyExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Writes products ordered by ID as CSV.
+     *
+     * @param category the category to export, or {@code null} for all products
+     * @param out      the stream the CSV is written to
+     * @return the number of products written
+     */
+    public long exportProducts(String category, OutputStream out) {
+        return copyOut(out, connection -> PRODUCTS_SQL
+                + where(category != null ? "category = " + literal(connection, category) : null)
+                + "ORDER BY id");
+    }
+
+    /**
+     * Writes warehouses ordered by ID as CSV.
+     *
+     * @param out the stream the CSV is written to
+     * @return the number of warehouses written
+     */
+    public long exportWarehouses(OutputStream out) {
+        return copyOut(out, connection -> WAREHOUSES_SQL + "ORDER BY id");
+    }
+
+    /**
+     * Writes inventory records with the name of their warehouse and the name, category and price of
+     * their product as CSV, ordered by warehouse and product.
+     *
+     * @param warehouseId the warehouse to export, or {@code null} for all warehouses
+     * @param category    the product category to export, or {@code null} for all categories
+     * @param out         the stream the CSV is written to
+     * @return the number of inventory records written
+     */
+    public long exportInventories(Long warehouseId, String category, OutputStream out) {
+        return copyOut(out, connection -> INVENTORIES_SQL
+                + where(warehouseId != null ? "i.warehouse_id = " + warehouseId : null,
+                        category != null ? "p.category = " + literal(connection, category) : null)
+                + "ORDER BY i.warehouse_id, i.product_id");
+    }
+
+    /**
+     * Runs a query on the connection of the current transaction and copies its result to the stream.
+     * <p>
+     * If the stream fails, typically because the client went away, the physical connection is aborted
+     * before the failure is rethrown. Closing its socket makes the server stop the COPY, and the rollback
+     * that follows fails with a connection error, so the pool evicts the connection instead of taking it
+     * back. Cancelling the COPY is avoided: the driver sends an out-of-band cancel request, which can
+     * arrive after the COPY ended and abort the next statement run on the pooled connection.
+     */
+    private long copyOut(OutputStream out, QueryBuilder query) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            String sql = "COPY (" + query.build(connection) + ") TO STDOUT WITH (FORMAT csv, HEADER)";
+            CopyOut copy = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql);
+            byte[] data;
+            while ((data = copy.readFromCopy()) != null) {
+                try {
+                    out.write(data);
+                } catch (IOException e) {
+                    connection.abort(Runnable::run);
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return copy.getHandledRowCount();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private static String where(String... conditions) {
+        List<String> present = new ArrayList<>();
+        for (String condition : conditions)
+            if (condition != null)
+                present.add(condition);
+        return present.isEmpty() ? "" : "WHERE " + String.join(" AND ", present) + "\n";
+    }
+
+    private static String literal(Connection connection, String value) throws SQLException {
+        return "'" + connection.unwrap(PGConnection.class).escapeLiteral(value) + "'";
+    }
+
+    @FunctionalInterface
+    private interface QueryBuilder {
+        String build(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,329 @@
+package com.warehouse.repository;
+
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.imports.RejectedLineDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import io.micrometer.core.annotation.Timed;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Repository for imports of {@link Product} and {@link Inventory} records, executed directly over JDBC
+ * against PostgreSQL.
+ * <p>
+ * An import streams its rows with the COPY protocol into a temporary staging table that is dropped on
+ * commit, then merges the staging table into the target table with a few set-based statements, all in
+ * one transaction: either every valid row is written or none is. Each staged row carries the line it
+ * was read from, so the rows the merge skips can be reported by line.
+ */
+@Repository
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class CopyImportRepository {
+
+    /**
+     * Rows are sent to the server in chunks of about this many characters.
+     */
+    private static final int COPY_CHUNK = 256 * 1024;
+
+    /**
+     * Number of merged rows fetched at a time, also the number of overwritten IDs reported at a time.
+     */
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String CREATE_PRODUCT_STAGING_SQL = """
+            CREATE TEMPORARY TABLE product_import (
+                line BIGINT NOT NULL,
+                id BIGINT,
+                name VARCHAR(100) NOT NULL,
+                description VARCHAR(512) NOT NULL,
+                price DECIMAL(10,2) NOT NULL,
+                category VARCHAR(100) NOT NULL,
+                weight DECIMAL(10,2) NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    /**
+     * Rows with an ID update that product and must not be superseded by a later row for the same ID.
+     */
+    private static final String REJECTED_PRODUCTS_SQL = """
+            SELECT line, reason FROM (
+                SELECT s.line,
+                       CASE WHEN NOT EXISTS (SELECT 1 FROM product p WHERE p.id = s.id) THEN 'Product not found.'
+                            WHEN s.line < max(s.line) OVER same_id
+                                THEN 'Superseded by line ' || max(s.line) OVER same_id || '.'
+                       END AS reason
+                FROM product_import s
+                WHERE s.id IS NOT NULL
+                WINDOW same_id AS (PARTITION BY s.id)
+            ) r
+            WHERE reason IS NOT NULL
+            ORDER BY line
+            """;
+
+    private static final String UPDATE_PRODUCTS_SQL = """
+            UPDATE product p
+            SET name = s.name,
+                description = s.description,
+                price = s.price,
+                category = s.category,
+                weight = s.weight,
+                updated_at = LOCALTIMESTAMP,
+                version = p.version + 1
+            FROM (SELECT DISTINCT ON (id) * FROM product_import WHERE id IS NOT NULL ORDER BY id, line DESC) s
+            WHERE p.id = s.id
+            """;
+
+    private static final String INSERT_PRODUCTS_SQL = """
+            INSERT INTO product (name, description, price, category, weight, created_at, updated_at, version)
+            SELECT name, description, price, category, weight, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM product_import
+            WHERE id IS NULL
+            ORDER BY line
+            """;
+
+    private static final String CREATE_INVENTORY_STAGING_SQL = """
+            CREATE TEMPORARY TABLE inventory_import (
+                line BIGINT NOT NULL,
+                warehouse_id BIGINT NOT NULL,
+                product_id BIGINT NOT NULL,
+                quantity INT NOT NULL,
+                min_stock INT NOT NULL,
+                max_stock INT NOT NULL
+            ) ON COMMIT DROP
+            """;
+
+    /**
+     * Rows must reference an existing warehouse and product, and only the last row for a warehouse
+     * and product pair is written.
+     */
+    private static final String REJECTED_INVENTORIES_SQL = """
+            SELECT line, reason FROM (
+                SELECT s.line,
+                       CASE WHEN NOT EXISTS (SELECT 1 FROM warehouse w WHERE w.id = s.warehouse_id) THEN 'Warehouse not found.'
+                            WHEN NOT EXISTS (SELECT 1 FROM product p WHERE p.id = s.product_id) THEN 'Product not found.'
+                            WHEN s.line < max(s.line) OVER same_key
+                                THEN 'Superseded by line ' || max(s.line) OVER same_key || '.'
+                       END AS reason
+                FROM inventory_import s
+                WINDOW same_key AS (PARTITION BY s.warehouse_id, s.product_id)
+            ) r
+            WHERE reason IS NOT NULL
+            ORDER BY line
+            """;
+
+    /**
+     * The existing records the merge overwrites.
+     */
+    private static final String OVERWRITTEN_INVENTORIES_SQL = """
+            SELECT DISTINCT i.id
+            FROM inventory i
+            JOIN inventory_import s ON s.warehouse_id = i.warehouse_id AND s.product_id = i.product_id
+            ORDER BY i.id
+            """;
+
+    /**
+     * Same merge as the bulk upsert of {@link InventoryBulkRepository}, over the last staged row of each
+     * warehouse and product pair. {@code xmax = 0} holds only for tuples inserted by this statement.
+     */
+    private static final String MERGE_INVENTORIES_SQL = """
+            INSERT INTO inventory (warehouse_id, product_id, quantity, min_stock, max_stock, created_at, updated_at, version)
+            SELECT DISTINCT ON (s.warehouse_id, s.product_id)
+                   s.warehouse_id, s.product_id, s.quantity, s.min_stock, s.max_stock, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM inventory_import s
+            WHERE EXISTS (SELECT 1 FROM warehouse w WHERE w.id = s.warehouse_id)
+              AND EXISTS (SELECT 1 FROM product p WHERE p.id = s.product_id)
+            ORDER BY s.warehouse_id, s.product_id, s.line DESC
+            ON CONFLICT (warehouse_id, product_id) DO UPDATE
+            SET quantity = EXCLUDED.quantity,
+                min_stock = EXCLUDED.min_stock,
+                max_stock = EXCLUDED.max_stock,
+                updated_at = EXCLUDED.updated_at,
+                version = inventory.version + 1
+            RETURNING id, (xmax = 0) AS inserted
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a CopyImportRepository with the given {@code JdbcTemplate}.
+     *
+     * @param jdbcTemplate template used to execute the import statements
+     */
+    public CopyImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Imports products. Rows without an ID create a product; rows with an ID update that product,
+     * the last row winning if an ID appears more than once.
+     *
+     * @param rows     the rows to import, consumed as they are sent to the database
+     * @param rejected receives the rows that were not written, in line order
+     * @return the numbers of products created and updated
+     */
+    @Transactional
+    public Merged importProducts(Iterator<ProductRow> rows, Consumer<RejectedLineDTO> rejected) {
+        jdbcTemplate.execute(CREATE_PRODUCT_STAGING_SQL);
+        copy("COPY product_import (line, id, name, description, price, category, weight) FROM STDIN WITH (FORMAT csv)",
+                rows, (row, out) -> {
+                    out.append(row.line()).append(',');
+                    if (row.id() != null)
+                        out.append(row.id());
+                    out.append(',');
+                    appendText(out, row.name()).append(',');
+                    appendText(out, row.description()).append(',');
+                    out.append(row.price().toPlainString()).append(',');
+                    appendText(out, row.category()).append(',');
+                    out.append(row.weight().toPlainString()).append('\n');
+                });
+        jdbcTemplate.execute("ANALYZE product_import");
+        reportRejected(REJECTED_PRODUCTS_SQL, rejected);
+        long updated = jdbcTemplate.update(UPDATE_PRODUCTS_SQL);
+        long inserted = jdbcTemplate.update(INSERT_PRODUCTS_SQL);
+        return new Merged(inserted, updated);
+    }
+
+    /**
+     * Imports inventory records, merging on the warehouse and product pair. The last row for a pair wins.
+     *
+     * @param rows        the rows to import, consumed as they are sent to the database
+     * @param overwriting receives the IDs of the existing records about to be overwritten, in chunks,
+     *                    in the transaction and before the merge
+     * @param rejected    receives the rows that were not written, in line order
+     * @return the numbers of inventory records created and updated
+     */
+    @Transactional
+    public Merged importInventories(Iterator<InventoryRow> rows, Consumer<List<Long>> overwriting,
+                                    Consumer<RejectedLineDTO> rejected) {
+        jdbcTemplate.execute(CREATE_INVENTORY_STAGING_SQL);
+        copy("COPY inventory_import (line, warehouse_id, product_id, quantity, min_stock, max_stock) FROM STDIN WITH (FORMAT csv)",
+                rows, (row, out) -> out
+                        .append(row.line()).append(',')
+                        .append(row.warehouseId()).append(',')
+                        .append(row.productId()).append(',')
+                        .append(row.quantity()).append(',')
+                        .append(row.minStock()).append(',')
+                        .append(row.maxStock()).append('\n'));
+        jdbcTemplate.execute("ANALYZE inventory_import");
+        reportRejected(REJECTED_INVENTORIES_SQL, rejected);
+        List<Long> overwritten = new ArrayList<>(FETCH_SIZE);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(OVERWRITTEN_INVENTORIES_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            overwritten.add(rs.getLong("id"));
+            if (overwritten.size() == FETCH_SIZE) {
+                overwriting.accept(List.copyOf(overwritten));
+                overwritten.clear();
+            }
+        });
+        if (!overwritten.isEmpty())
+            overwriting.accept(List.copyOf(overwritten));
+        long[] counts = new long[2];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(MERGE_INVENTORIES_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> counts[rs.getBoolean("inserted") ? 0 : 1]++);
+        return new Merged(counts[0], counts[1]);
+    }
+
+    /**
+     * Streams rows into a staging table on the connection of the current transaction.
+     */
+    private <T> void copy(String sql, Iterator<T> rows, BiConsumer<T, StringBuilder> format) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                StringBuilder chunk = new StringBuilder(COPY_CHUNK + 1024);
+                while (rows.hasNext()) {
+                    format.accept(rows.next(), chunk);
+                    if (chunk.length() >= COPY_CHUNK)
+                        write(copyIn, chunk);
+                }
+                write(copyIn, chunk);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive())
+                    copyIn.cancelCopy();
+            }
+        });
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    /**
+     * Appends a value as a quoted CSV field, which COPY never reads as {@code NULL}.
+     */
+    private static StringBuilder appendText(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"')
+                out.append('"');
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private void reportRejected(String sql, Consumer<RejectedLineDTO> rejected) {
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+                rejected.accept(new RejectedLineDTO(rs.getLong("line"), rs.getString("reason"))));
+    }
+
+    /**
+     * A product row to import.
+     *
+     * @param line        the line it was read from
+     * @param id          the ID of the product to update, or {@code null} to create one
+     * @param name        the name
+     * @param description the description
+     * @param price       the price
+     * @param category    the category
+     * @param weight      the weight
+     */
+    public record ProductRow(long line, Long id, String name, String description, BigDecimal price,
+                             String category, BigDecimal weight) {}
+
+    /**
+     * An inventory row to import.
+     *
+     * @param line        the line it was read from
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @param quantity    the quantity
+     * @param minStock    the minimum stock
+     * @param maxStock    the maximum stock
+     */
+    public record InventoryRow(long line, long warehouseId, long productId, int quantity, int minStock,
+                               int maxStock) {}
+
+    /**
+     * The records an import wrote.
+     *
+     * @param inserted the number of records created
+     * @param updated  the number of records updated
+     */
+    public record Merged(long inserted, long updated) {}
+}
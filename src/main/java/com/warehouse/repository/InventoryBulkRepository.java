@@ -0,0 +1,266 @@
+package com.warehouse.repository;
+
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.inventory.CreateInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.Inventory;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Repository for set-based bulk writes to {@link Inventory} records that JPA cannot express,
+ * executed directly over JDBC.
+ */
+@Repository
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class InventoryBulkRepository {
+
+    /**
+     * Inserts or updates all rows of a chunk in one statement. The rows are bound as arrays,
+     * rows referencing a missing warehouse or product are skipped instead of failing the statement,
+     * and existing records are merged on the {@code (warehouse_id, product_id)} unique constraint.
+     * {@code xmax = 0} holds only for tuples inserted by this statement.
+     */
+    private static final String UPSERT_SQL = """
+            INSERT INTO inventory (warehouse_id, product_id, quantity, min_stock, max_stock, created_at, updated_at, version)
+            SELECT r.warehouse_id, r.product_id, r.quantity, r.min_stock, r.max_stock, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::int[], ?::int[])
+                    AS r(warehouse_id, product_id, quantity, min_stock, max_stock)
+            WHERE EXISTS (SELECT 1 FROM warehouse w WHERE w.id = r.warehouse_id)
+              AND EXISTS (SELECT 1 FROM product p WHERE p.id = r.product_id)
+            ON CONFLICT (warehouse_id, product_id) DO UPDATE
+            SET quantity = EXCLUDED.quantity,
+                min_stock = EXCLUDED.min_stock,
+                max_stock = EXCLUDED.max_stock,
+                updated_at = EXCLUDED.updated_at,
+                version = inventory.version + 1
+            RETURNING id, warehouse_id, product_id, quantity, min_stock, (xmax = 0) AS inserted
+            """;
+
+    private static final String EXISTING_IDS_SQL = """
+            SELECT i.id
+            FROM inventory i
+            JOIN unnest(?::bigint[], ?::bigint[]) AS r(warehouse_id, product_id)
+                ON i.warehouse_id = r.warehouse_id AND i.product_id = r.product_id
+            ORDER BY i.id
+            """;
+
+    /**
+     * Creates the missing destination records of a transfer with no stock and the thresholds of their
+     * source record. Rows are inserted in product order, so concurrent transfers into the same warehouse
+     * wait for each other's new rows in one order and cannot deadlock.
+     */
+    private static final String CREATE_TRANSFER_TARGETS_SQL = """
+            INSERT INTO inventory (warehouse_id, product_id, quantity, min_stock, max_stock, created_at, updated_at, version)
+            SELECT w.id, s.product_id, 0, s.min_stock, s.max_stock, LOCALTIMESTAMP, LOCALTIMESTAMP, 0
+            FROM inventory s
+            JOIN warehouse w ON w.id = ?
+            WHERE s.warehouse_id = ? AND s.product_id = ANY(?)
+              AND NOT EXISTS (SELECT 1 FROM inventory d WHERE d.warehouse_id = w.id AND d.product_id = s.product_id)
+            ORDER BY s.product_id
+            ON CONFLICT (warehouse_id, product_id) DO NOTHING
+            """;
+
+    private static final String TRANSFER_PAIRS_SQL = """
+            SELECT s.product_id, s.id AS source_id, d.id AS destination_id
+            FROM inventory s
+            LEFT JOIN inventory d ON d.warehouse_id = ? AND d.product_id = s.product_id
+            WHERE s.warehouse_id = ? AND s.product_id = ANY(?)
+            """;
+
+    /**
+     * Locks the records in ID order, the order every writer locking several records uses.
+     */
+    private static final String LOCK_STOCK_LEVELS_SQL = """
+            SELECT id, warehouse_id, product_id, quantity, min_stock
+            FROM inventory
+            WHERE id = ANY(?)
+            ORDER BY id
+            FOR UPDATE
+            """;
+
+    private static final String ADD_QUANTITIES_SQL = """
+            UPDATE inventory i
+            SET quantity = i.quantity + d.delta,
+                updated_at = LOCALTIMESTAMP,
+                version = i.version + 1
+            FROM unnest(?::bigint[], ?::int[]) AS d(id, delta)
+            WHERE i.id = d.id
+            """;
+
+    private static final RowMapper<StockLevelDTO> STOCK_LEVEL = (rs, rowNum) -> new StockLevelDTO(
+            rs.getLong("id"),
+            rs.getLong("warehouse_id"),
+            rs.getLong("product_id"),
+            rs.getInt("quantity"),
+            rs.getInt("min_stock"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs an InventoryBulkRepository with the given {@code JdbcTemplate}.
+     *
+     * @param jdbcTemplate template used to execute the bulk statements
+     */
+    public InventoryBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts or updates a chunk of inventory records in a single statement, in one transaction with
+     * the lookup of the records it overwrites. The chunk must not contain two rows for the same
+     * warehouse and product.
+     *
+     * @param rows        the inventory records to insert or update
+     * @param overwriting receives the IDs of the existing records about to be overwritten, in the
+     *                    transaction and before the write
+     * @return one result per row that was written; rows with a missing warehouse or product are absent
+     */
+    @Transactional
+    public List<UpsertedRow> upsert(List<CreateInventoryDTO> rows, Consumer<List<Long>> overwriting) {
+        int size = rows.size();
+        Long[] warehouseIds = new Long[size];
+        Long[] productIds = new Long[size];
+        Integer[] quantities = new Integer[size];
+        Integer[] minStocks = new Integer[size];
+        Integer[] maxStocks = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            CreateInventoryDTO row = rows.get(i);
+            warehouseIds[i] = row.warehouse().id();
+            productIds[i] = row.product().id();
+            quantities[i] = row.quantity();
+            minStocks[i] = row.minStock();
+            maxStocks[i] = row.maxStock();
+        }
+        List<Long> existing = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXISTING_IDS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", warehouseIds));
+            statement.setArray(2, connection.createArrayOf("bigint", productIds));
+            return statement;
+        }, (rs, rowNum) -> rs.getLong("id"));
+        overwriting.accept(existing);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", warehouseIds));
+            statement.setArray(2, connection.createArrayOf("bigint", productIds));
+            statement.setArray(3, connection.createArrayOf("integer", quantities));
+            statement.setArray(4, connection.createArrayOf("integer", minStocks));
+            statement.setArray(5, connection.createArrayOf("integer", maxStocks));
+            return statement;
+        }, (rs, rowNum) -> new UpsertedRow(
+                rs.getLong("id"),
+                rs.getLong("warehouse_id"),
+                rs.getLong("product_id"),
+                rs.getInt("quantity"),
+                rs.getInt("min_stock"),
+                rs.getBoolean("inserted")));
+    }
+
+    /**
+     * Overwrites the quantities of inventory records in a single JDBC batch.
+     *
+     * @param stockLevels the inventory IDs and their new quantities
+     * @return the number of rows updated for each stock level, 0 if its inventory record does not exist
+     */
+    public int[] updateQuantities(List<StockLevelDTO> stockLevels) {
+        int[][] counts = jdbcTemplate.batchUpdate("UPDATE inventory SET quantity = ?, updated_at = LOCALTIMESTAMP, version = version + 1 WHERE id = ?",
+                stockLevels, stockLevels.size(), (statement, stockLevel) -> {
+                    statement.setInt(1, stockLevel.quantity());
+                    statement.setLong(2, stockLevel.id());
+                });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    /**
+     * Creates the inventory records a transfer moves stock into, if missing, and returns the source and
+     * destination record of every product the source warehouse holds. Must run in the transfer's transaction.
+     *
+     * @param fromWarehouseId the ID of the warehouse stock is moved from
+     * @param toWarehouseId   the ID of the warehouse stock is moved to
+     * @param productIds      the IDs of the products moved
+     * @return one pair per product with a record in the source warehouse; the destination ID is
+     *         {@code null} if the destination warehouse does not exist
+     */
+    public List<TransferPair> createTransferTargets(Long fromWarehouseId, Long toWarehouseId,
+                                                    Collection<Long> productIds) {
+        Long[] products = productIds.toArray(Long[]::new);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CREATE_TRANSFER_TARGETS_SQL);
+            statement.setLong(1, toWarehouseId);
+            statement.setLong(2, fromWarehouseId);
+            statement.setArray(3, connection.createArrayOf("bigint", products));
+            return statement;
+        });
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TRANSFER_PAIRS_SQL);
+            statement.setLong(1, toWarehouseId);
+            statement.setLong(2, fromWarehouseId);
+            statement.setArray(3, connection.createArrayOf("bigint", products));
+            return statement;
+        }, (rs, rowNum) -> new TransferPair(
+                rs.getLong("product_id"),
+                rs.getLong("source_id"),
+                rs.getObject("destination_id", Long.class)));
+    }
+
+    /**
+     * Locks inventory records for update in ID order and returns their stock levels.
+     * Must run in the transaction that updates them.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the stock level of each existing record, ordered by ID
+     */
+    public List<StockLevelDTO> lockStockLevels(Collection<Long> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_STOCK_LEVELS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, STOCK_LEVEL);
+    }
+
+    /**
+     * Adds deltas to the quantities of inventory records in a single statement.
+     *
+     * @param deltas the delta of each inventory record by ID
+     */
+    public void addQuantities(Map<Long, Integer> deltas) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ADD_QUANTITIES_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", deltas.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("integer", deltas.values().toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * The source and destination inventory records of one product of a transfer.
+     *
+     * @param productId     the ID of the product
+     * @param sourceId      the ID of the record in the source warehouse
+     * @param destinationId the ID of the record in the destination warehouse, or {@code null} if there is none
+     */
+    public record TransferPair(Long productId, Long sourceId, Long destinationId) {}
+
+    /**
+     * An inventory record written by {@link #upsert(List, Consumer)}.
+     *
+     * @param id          the ID of the inventory record
+     * @param warehouseId the ID of its warehouse
+     * @param productId   the ID of its product
+     * @param quantity    the quantity written
+     * @param minStock    the minimum stock written
+     * @param inserted    {@code true} if the record was created, {@code false} if an existing one was updated
+     */
+    public record UpsertedRow(Long id, Long warehouseId, Long productId, int quantity, int minStock,
+                              boolean inserted) {}
+}
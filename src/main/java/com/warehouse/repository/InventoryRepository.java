@@ -1,18 +1,27 @@
 package com.warehouse.repository;
 
+import com.warehouse.dto.inventory.StockLevelDTO;
 import com.warehouse.entity.Inventory;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for {@link Inventory} entities.
- * Provides methods to perform CRUD operations and custom queries on inventory data.
+ * Provides methods to perform CRUD operations and custom queries on inventory data, and
+ * queries with a fetch plan chosen at run time from {@link InventorySpecifications}.
  */
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory> {
 
     /**
      * Retrieves all inventory records with their associated product and warehouse fetched eagerly.
@@ -24,35 +33,193 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     List<Inventory> findAll();
 
     /**
-     * Finds inventory records by the warehouse ID.
+     * Retrieves an inventory record by its ID with its associated product and warehouse fetched eagerly.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the inventory record if found, or empty otherwise
+     */
+    @Override
+    @EntityGraph(attributePaths = {"product", "warehouse"})
+    Optional<Inventory> findById(Long id);
+
+    /**
+     * Finds inventory records by the warehouse ID, with their product and warehouse fetched eagerly.
      *
      * @param warehouseId the ID of the warehouse
      * @return a list of inventory items stored in the specified warehouse
      */
+    @EntityGraph(attributePaths = {"product", "warehouse"})
     List<Inventory> findByWarehouseId(Long warehouseId);
 
     /**
-     * Finds inventory records by the product ID.
+     * Finds inventory records by the product ID, with their product and warehouse fetched eagerly.
      *
      * @param productId the ID of the product
      * @return a list of inventory items for the specified product
      */
+    @EntityGraph(attributePaths = {"product", "warehouse"})
     List<Inventory> findByProductId(Long productId);
 
     /**
-     * Finds inventory records by both warehouse ID and product ID.
+     * Finds inventory records by both warehouse ID and product ID,
+     * with their product and warehouse fetched eagerly.
      *
      * @param warehouseId the ID of the warehouse
      * @param productId   the ID of the product
      * @return a list of inventory items matching both warehouse and product criteria
      */
+    @EntityGraph(attributePaths = {"product", "warehouse"})
     List<Inventory> findByWarehouseIdAndProductId(Long warehouseId, Long productId);
 
     /**
-     * Finds inventory items where the quantity is less than the minimum stock threshold.
+     * Finds the IDs of inventory items where the quantity is less than the minimum stock threshold,
+     * together with their warehouse IDs. The predicate matches the partial
+     * {@code inventory_low_stock_idx} index, so only the low-stock rows are read.
+     *
+     * @return the IDs and warehouse IDs of inventory items with low stock
+     */
+    @Query("SELECT i.id AS id, i.warehouse.id AS warehouseId FROM Inventory i WHERE i.quantity < i.minStock")
+    List<LowStockEntry> findLowStockEntries();
+
+    /**
+     * Finds inventory items by their IDs, ordered by ID, with their product and warehouse fetched eagerly.
+     *
+     * @param ids the IDs of the inventory items
+     * @return a list of the inventory items that exist
+     */
+    @Query("SELECT i FROM Inventory i LEFT JOIN FETCH i.product LEFT JOIN FETCH i.warehouse " +
+            "WHERE i.id IN :ids ORDER BY i.id")
+    List<Inventory> findAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves the stored quantity and threshold of inventory records with the weight of their product,
+     * without loading the entities.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the stored stock of each record that exists
+     */
+    @Query("SELECT i.id AS id, i.warehouse.id AS warehouseId, i.quantity AS quantity, i.minStock AS minStock, " +
+            "p.weight AS weight FROM Inventory i JOIN i.product p WHERE i.id IN :ids")
+    List<StoredStock> findStoredStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves the stock level of an inventory record without loading the entity.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the stock level if found, or empty otherwise
+     */
+    @Query("SELECT new com.warehouse.dto.inventory.StockLevelDTO(i.id, i.warehouse.id, i.product.id, i.quantity, i.minStock) " +
+            "FROM Inventory i WHERE i.id = :id")
+    Optional<StockLevelDTO> findStockLevelById(@Param("id") Long id);
+
+    /**
+     * Retrieves the stock level of a product in a warehouse without loading the entity.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return an {@link Optional} containing the stock level if found, or empty otherwise
+     */
+    @Query("SELECT new com.warehouse.dto.inventory.StockLevelDTO(i.id, i.warehouse.id, i.product.id, i.quantity, i.minStock) " +
+            "FROM Inventory i WHERE i.warehouse.id = :warehouseId AND i.product.id = :productId")
+    Optional<StockLevelDTO> findStockLevel(@Param("warehouseId") Long warehouseId, @Param("productId") Long productId);
+
+    /**
+     * Atomically adds a delta to the quantity of an inventory record in a single statement,
+     * refusing to go below zero unless negative stock is allowed.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level, or empty if the record does not exist or the update was refused
+     */
+    @Transactional
+    @Query(value = "UPDATE inventory SET quantity = quantity + :delta, updated_at = LOCALTIMESTAMP, version = version + 1 " +
+            "WHERE id = :id AND (:allowNegative OR quantity + :delta >= 0) " +
+            "RETURNING id AS \"id\", warehouse_id AS \"warehouseId\", product_id AS \"productId\", " +
+            "quantity AS \"quantity\", min_stock AS \"minStock\"", nativeQuery = true)
+    Optional<StockLevelDTO> adjustQuantity(@Param("id") Long id,
+                                           @Param("delta") int delta,
+                                           @Param("allowNegative") boolean allowNegative);
+
+    /**
+     * Atomically adds a delta to the quantity of the inventory record of a product in a warehouse
+     * in a single statement, refusing to go below zero unless negative stock is allowed.
      *
-     * @return a list of inventory items with low stock
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level, or empty if the record does not exist or the update was refused
      */
-    @Query("SELECT i FROM Inventory i WHERE i.quantity < i.minStock")
-    List<Inventory> findLowStockItems();
+    @Transactional
+    @Query(value = "UPDATE inventory SET quantity = quantity + :delta, updated_at = LOCALTIMESTAMP, version = version + 1 " +
+            "WHERE warehouse_id = :warehouseId AND product_id = :productId " +
+            "AND (:allowNegative OR quantity + :delta >= 0) " +
+            "RETURNING id AS \"id\", warehouse_id AS \"warehouseId\", product_id AS \"productId\", " +
+            "quantity AS \"quantity\", min_stock AS \"minStock\"", nativeQuery = true)
+    Optional<StockLevelDTO> adjustQuantity(@Param("warehouseId") Long warehouseId,
+                                           @Param("productId") Long productId,
+                                           @Param("delta") int delta,
+                                           @Param("allowNegative") boolean allowNegative);
+
+    /**
+     * Checks whether an inventory record exists for a product in a warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return {@code true} if such a record exists
+     */
+    boolean existsByWarehouseIdAndProductId(Long warehouseId, Long productId);
+
+    /**
+     * Aggregates the versions of a warehouse, its inventory records and their products in one
+     * grouped query, without loading any of them. Updates increment a version and new records get
+     * higher IDs than deleted ones, so any change to the set changes at least one of the totals.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the totals, or empty if the warehouse does not exist
+     */
+    @Query("SELECT COUNT(i.id) AS size, COALESCE(SUM(i.id), 0L) AS idSum, " +
+            "w.version + COALESCE(SUM(i.version + p.version), 0L) AS versionSum " +
+            "FROM Warehouse w LEFT JOIN w.inventories i LEFT JOIN i.product p " +
+            "WHERE w.id = :warehouseId GROUP BY w.id, w.version")
+    Optional<ContentVersion> findWarehouseInventoryVersion(@Param("warehouseId") Long warehouseId);
+
+    /**
+     * ID and warehouse ID of an inventory item below its minimum stock.
+     */
+    interface LowStockEntry {
+
+        Long getId();
+
+        Long getWarehouseId();
+    }
+
+    /**
+     * Stored quantity and threshold of an inventory item, with the weight of its product.
+     */
+    interface StoredStock {
+
+        Long getId();
+
+        Long getWarehouseId();
+
+        int getQuantity();
+
+        int getMinStock();
+
+        BigDecimal getWeight();
+    }
+
+    /**
+     * Totals identifying the state of a set of inventory records and the entities they embed.
+     */
+    interface ContentVersion {
+
+        long getSize();
+
+        long getIdSum();
+
+        long getVersionSum();
+    }
 }
@@ -0,0 +1,45 @@
+package com.warehouse.repository;
+
+import com.warehouse.entity.Inventory;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * {@link Specification} building blocks for {@link Inventory} queries whose fetch plan is chosen at
+ * run time, through {@code findBy(specification, query -> query.project(paths)...)}.
+ */
+public final class InventorySpecifications {
+
+    private InventorySpecifications() {
+    }
+
+    /**
+     * Matches the inventory record with the given ID.
+     *
+     * @param id the ID
+     * @return the specification
+     */
+    public static Specification<Inventory> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    /**
+     * Matches inventory records whose ID is greater than the given cursor.
+     *
+     * @param after the cursor
+     * @return the specification
+     */
+    public static Specification<Inventory> idAfter(Long after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+
+    /**
+     * Matches the inventory records of a warehouse. Compares the foreign key column, without joining
+     * the warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the specification
+     */
+    public static Specification<Inventory> inWarehouse(Long warehouseId) {
+        return (root, query, cb) -> cb.equal(root.get("warehouse").get("id"), warehouseId);
+    }
+}
@@ -1,17 +1,37 @@
 package com.warehouse.repository;
 
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for {@link Product} entities.
- * Extends JpaRepository to provide CRUD operations and custom queries.
+ * Extends JpaRepository to provide CRUD operations and custom queries, and
+ * JpaSpecificationExecutor to run searches combined from {@link ProductSpecifications}.
  */
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * Retrieves a page of products whose ID is greater than the given cursor, ordered by ID.
+     *
+     * @param after the ID of the last product of the previous page
+     * @param limit the maximum number of products to return
+     * @return the products following the cursor
+     */
+    @Query("SELECT p FROM Product p WHERE p.id > :after ORDER BY p.id")
+    List<Product> findPageAfter(@Param("after") Long after, Limit limit);
 
     /**
      * Finds all products belonging to the specified category.
@@ -19,6 +39,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @param category the category name to filter products by
      * @return a list of products in the given category
      */
+    @Transactional(readOnly = true)
     List<Product> findByCategory(String category);
 
     /**
@@ -45,4 +66,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      */
     @Query("SELECT DISTINCT p.category FROM Product p")
     List<String> getAllCategories();
+
+    /**
+     * Streams the ID and name of every product, reading them through a forward-only cursor
+     * in chunks of the JDBC fetch size.
+     *
+     * @return a stream of product IDs and names
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.warehouse.dto.search.SuggestionDTO(p.id, p.name) FROM Product p")
+    Stream<SuggestionDTO> streamNames();
 }
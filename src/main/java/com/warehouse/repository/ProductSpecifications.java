@@ -0,0 +1,73 @@
+package com.warehouse.repository;
+
+import com.warehouse.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * {@link Specification} building blocks for {@link Product} search queries.
+ * Each predicate matches an index on the {@code product} table: a btree on
+ * {@code (category, price)}, a btree on {@code price}, and a trigram GIN index on
+ * {@code lower(name)} that serves unanchored {@code LIKE} patterns.
+ */
+public final class ProductSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Matches products of exactly the given category.
+     *
+     * @param category the category
+     * @return the specification
+     */
+    public static Specification<Product> hasCategory(String category) {
+        return (root, query, cb) -> cb.equal(root.get("category"), category);
+    }
+
+    /**
+     * Matches products whose name contains the given string, ignoring case.
+     * Wildcards in the string are matched literally.
+     *
+     * @param name the substring to search for
+     * @return the specification
+     */
+    public static Specification<Product> nameContains(String name) {
+        String pattern = "%" + escapeLike(name.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, LIKE_ESCAPE);
+    }
+
+    /**
+     * Matches products priced at or above the given price.
+     *
+     * @param minPrice the minimum price (inclusive)
+     * @return the specification
+     */
+    public static Specification<Product> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    /**
+     * Matches products priced at or below the given price.
+     *
+     * @param maxPrice the maximum price (inclusive)
+     * @return the specification
+     */
+    public static Specification<Product> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE)
+                escaped.append(LIKE_ESCAPE);
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
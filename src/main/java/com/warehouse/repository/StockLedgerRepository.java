@@ -0,0 +1,423 @@
+package com.warehouse.repository;
+
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.MovementType;
+import com.warehouse.entity.StockMovement;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Repository for the append-only stock ledger of {@link StockMovement} records, executed directly over
+ * JDBC against PostgreSQL.
+ * <p>
+ * The quantity of an inventory record is {@code inventory.quantity} plus the sum of its pending
+ * movements, those with no {@code compacted_at}. Recording a movement is an insert, so concurrent
+ * movements of the same record do not wait for each other on its row lock; only movements that must
+ * not take the quantity below zero are serialized, per record, by a transaction-scoped advisory lock
+ * keyed by the inventory ID. {@link #compact(int)} folds pending movements into
+ * {@code inventory.quantity} in batches, which leaves every derived quantity unchanged.
+ */
+@Repository
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class StockLedgerRepository {
+
+    /**
+     * Stored quantity plus pending movements of the inventory record {@code i}.
+     */
+    private static final String DERIVED_QUANTITY = """
+            i.quantity + COALESCE((SELECT SUM(m.quantity) FROM stock_movement m
+                                   WHERE m.inventory_id = i.id AND m.compacted_at IS NULL), 0)""";
+
+    private static final String BY_ID = "i.id = ?";
+
+    private static final String BY_KEY = "i.warehouse_id = ? AND i.product_id = ?";
+
+    private static final String STOCK_LEVEL_SQL = """
+            SELECT i.id, i.warehouse_id, i.product_id, i.min_stock, %s AS quantity
+            FROM inventory i
+            WHERE %s
+            """;
+
+    private static final String STOCK_LEVEL_BY_ID_SQL = STOCK_LEVEL_SQL.formatted(DERIVED_QUANTITY, BY_ID);
+
+    private static final String STOCK_LEVEL_BY_KEY_SQL = STOCK_LEVEL_SQL.formatted(DERIVED_QUANTITY, BY_KEY);
+
+    /**
+     * Inserts the movement unless it is checked and would take the derived quantity below zero, and returns
+     * the resulting stock level along with whether the movement was recorded. No row means no such record.
+     */
+    private static final String APPEND_SQL = """
+            WITH target AS (
+                SELECT i.id, i.warehouse_id, i.product_id, i.min_stock, %s AS quantity
+                FROM inventory i
+                WHERE %s
+            ),
+            appended AS (
+                INSERT INTO stock_movement (inventory_id, type, quantity, reference, created_at)
+                SELECT t.id, ?, ?, ?, LOCALTIMESTAMP
+                FROM target t
+                WHERE ? OR t.quantity + ? >= 0
+                RETURNING quantity
+            )
+            SELECT t.id, t.warehouse_id, t.product_id, t.min_stock,
+                   t.quantity + COALESCE((SELECT SUM(a.quantity) FROM appended a), 0) AS quantity,
+                   EXISTS (SELECT 1 FROM appended) AS appended
+            FROM target t
+            """;
+
+    private static final String APPEND_BY_ID_SQL = APPEND_SQL.formatted(DERIVED_QUANTITY, BY_ID);
+
+    private static final String APPEND_BY_KEY_SQL = APPEND_SQL.formatted(DERIVED_QUANTITY, BY_KEY);
+
+    private static final String LOCK_BY_ID_SQL = "SELECT pg_advisory_xact_lock(i.id) FROM inventory i WHERE " + BY_ID;
+
+    private static final String LOCK_BY_KEY_SQL = "SELECT pg_advisory_xact_lock(i.id) FROM inventory i WHERE " + BY_KEY;
+
+    /**
+     * Takes the advisory locks of several records in ID order, so concurrent callers cannot deadlock.
+     */
+    private static final String LOCK_ALL_SQL = """
+            SELECT pg_advisory_xact_lock(t.id)
+            FROM (SELECT id FROM unnest(?::bigint[]) AS u(id) ORDER BY id) t
+            """;
+
+    private static final String STOCK_LEVELS_SQL = STOCK_LEVEL_SQL.formatted(DERIVED_QUANTITY, "i.id = ANY(?)");
+
+    private static final String PENDING_STOCK_LEVELS_SQL = STOCK_LEVEL_SQL.formatted(DERIVED_QUANTITY, """
+            EXISTS (SELECT 1 FROM stock_movement m WHERE m.inventory_id = i.id AND m.compacted_at IS NULL)""");
+
+    private static final String APPEND_ALL_SQL = """
+            INSERT INTO stock_movement (inventory_id, type, quantity, reference, created_at)
+            SELECT d.id, ?, d.delta, ?, LOCALTIMESTAMP
+            FROM unnest(?::bigint[], ?::int[]) AS d(id, delta)
+            ORDER BY d.id
+            """;
+
+    private static final String QUANTITIES_SQL = """
+            SELECT i.id, %s AS quantity
+            FROM inventory i
+            WHERE i.id = ANY(?)
+            """.formatted(DERIVED_QUANTITY);
+
+    private static final String PENDING_COUNT_SQL = """
+            SELECT count(*)
+            FROM inventory i
+            JOIN stock_movement m ON m.inventory_id = i.id AND m.compacted_at IS NULL
+            WHERE i.warehouse_id = ?
+            """;
+
+    /**
+     * Stamps the oldest pending movements, skipping any locked by a concurrent compaction or supersede, and
+     * adds their sum to each inventory record. The records are locked in ID order, as by every other writer
+     * that locks several of them, so compactions cannot deadlock with those writers or with each other.
+     */
+    private static final String COMPACT_SQL = """
+            WITH batch AS (
+                SELECT id FROM stock_movement
+                WHERE compacted_at IS NULL
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ),
+            folded AS (
+                UPDATE stock_movement m
+                SET compacted_at = LOCALTIMESTAMP
+                FROM batch b
+                WHERE m.id = b.id
+                RETURNING m.inventory_id, m.quantity
+            ),
+            totals AS (
+                SELECT inventory_id, SUM(quantity) AS delta, count(*) AS movements
+                FROM folded
+                GROUP BY inventory_id
+            ),
+            locked AS (
+                SELECT i.id FROM inventory i
+                JOIN totals t ON t.inventory_id = i.id
+                ORDER BY i.id
+                FOR UPDATE OF i
+            )
+            UPDATE inventory i
+            SET quantity = i.quantity + t.delta,
+                updated_at = LOCALTIMESTAMP,
+                version = i.version + 1
+            FROM totals t
+            JOIN locked l ON l.id = t.inventory_id
+            WHERE i.id = t.inventory_id
+            RETURNING t.movements
+            """;
+
+    /**
+     * Stamps the pending movements of the records without folding them. They are locked in ID order, so
+     * concurrent supersedes cannot deadlock, and a movement a compaction is folding is waited for and then
+     * skipped, already folded into the quantity being overwritten.
+     */
+    private static final String SUPERSEDE_SQL = """
+            WITH pending AS (
+                SELECT id FROM stock_movement
+                WHERE inventory_id = ANY(?) AND compacted_at IS NULL
+                ORDER BY id
+                FOR UPDATE
+            )
+            UPDATE stock_movement m
+            SET compacted_at = LOCALTIMESTAMP
+            FROM pending p
+            WHERE m.id = p.id
+            """;
+
+    private static final RowMapper<StockLevelDTO> STOCK_LEVEL = (rs, rowNum) -> new StockLevelDTO(
+            rs.getLong("id"),
+            rs.getLong("warehouse_id"),
+            rs.getLong("product_id"),
+            rs.getInt("quantity"),
+            rs.getInt("min_stock"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a StockLedgerRepository with the given {@code JdbcTemplate}.
+     *
+     * @param jdbcTemplate template used to execute the ledger statements
+     */
+    public StockLedgerRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Retrieves the derived stock level of an inventory record.
+     *
+     * @param id the ID of the inventory record
+     * @return the stock level, or empty if the record does not exist
+     */
+    public Optional<StockLevelDTO> findStockLevel(long id) {
+        return first(jdbcTemplate.query(STOCK_LEVEL_BY_ID_SQL, STOCK_LEVEL, id));
+    }
+
+    /**
+     * Retrieves the derived stock level of a product in a warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return the stock level, or empty if there is no such record
+     */
+    public Optional<StockLevelDTO> findStockLevel(long warehouseId, long productId) {
+        return first(jdbcTemplate.query(STOCK_LEVEL_BY_KEY_SQL, STOCK_LEVEL, warehouseId, productId));
+    }
+
+    /**
+     * Retrieves the derived quantities of inventory records in one statement.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the quantity of each existing record by ID
+     */
+    public Map<Long, Integer> findQuantities(Collection<Long> ids) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(QUANTITIES_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> quantities.put(rs.getLong("id"), rs.getInt("quantity")));
+        return quantities;
+    }
+
+    /**
+     * Records a movement of an inventory record in a single insert, without checking the resulting quantity.
+     *
+     * @param id        the ID of the inventory record
+     * @param type      the kind of movement
+     * @param delta     the signed change of the quantity
+     * @param reference the reference of the movement, or {@code null}
+     * @return the stock level after the movement, or empty if the record does not exist
+     */
+    public Optional<Appended> append(long id, MovementType type, int delta, String reference) {
+        return append(APPEND_BY_ID_SQL, true, type, delta, reference, id);
+    }
+
+    /**
+     * Records a movement of a product in a warehouse in a single insert, without checking the resulting
+     * quantity.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @param type        the kind of movement
+     * @param delta       the signed change of the quantity
+     * @param reference   the reference of the movement, or {@code null}
+     * @return the stock level after the movement, or empty if there is no such record
+     */
+    public Optional<Appended> append(long warehouseId, long productId, MovementType type, int delta, String reference) {
+        return append(APPEND_BY_KEY_SQL, true, type, delta, reference, warehouseId, productId);
+    }
+
+    /**
+     * Records a movement of an inventory record unless it would take the derived quantity below zero.
+     * Checked movements of the same record are serialized by an advisory lock held until commit, so each
+     * one sees the movements recorded before it.
+     *
+     * @param id        the ID of the inventory record
+     * @param type      the kind of movement
+     * @param delta     the signed change of the quantity
+     * @param reference the reference of the movement, or {@code null}
+     * @return the resulting stock level and whether the movement was recorded, or empty if the record does not exist
+     */
+    @Transactional
+    public Optional<Appended> appendChecked(long id, MovementType type, int delta, String reference) {
+        jdbcTemplate.query(LOCK_BY_ID_SQL, (RowCallbackHandler) rs -> {}, id);
+        return append(APPEND_BY_ID_SQL, false, type, delta, reference, id);
+    }
+
+    /**
+     * Records a movement of a product in a warehouse unless it would take the derived quantity below zero,
+     * serialized with the other checked movements of the record like {@link #appendChecked(long, MovementType, int, String)}.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @param type        the kind of movement
+     * @param delta       the signed change of the quantity
+     * @param reference   the reference of the movement, or {@code null}
+     * @return the resulting stock level and whether the movement was recorded, or empty if there is no such record
+     */
+    @Transactional
+    public Optional<Appended> appendChecked(long warehouseId, long productId, MovementType type, int delta,
+                                            String reference) {
+        jdbcTemplate.query(LOCK_BY_KEY_SQL, (RowCallbackHandler) rs -> {}, warehouseId, productId);
+        return append(APPEND_BY_KEY_SQL, false, type, delta, reference, warehouseId, productId);
+    }
+
+    /**
+     * Takes the advisory locks that serialize checked movements of the given inventory records, in ID order,
+     * until the end of the current transaction.
+     *
+     * @param ids the IDs of the inventory records
+     */
+    @Transactional
+    public void lock(Collection<Long> ids) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_ALL_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, (RowCallbackHandler) rs -> {});
+    }
+
+    /**
+     * Retrieves the derived stock levels of inventory records in one statement.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the stock level of each existing record
+     */
+    public List<StockLevelDTO> findStockLevels(Collection<Long> ids) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STOCK_LEVELS_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        }, STOCK_LEVEL);
+    }
+
+    /**
+     * Retrieves the derived stock levels of the inventory records that have pending movements.
+     *
+     * @return the stock level of each record with pending movements
+     */
+    public List<StockLevelDTO> findPendingStockLevels() {
+        return jdbcTemplate.query(PENDING_STOCK_LEVELS_SQL, STOCK_LEVEL);
+    }
+
+    /**
+     * Records one movement per inventory record in a single insert, without checking the resulting quantities.
+     *
+     * @param deltas    the signed change of the quantity of each inventory record by ID
+     * @param type      the kind of the movements
+     * @param reference the reference of the movements, or {@code null}
+     */
+    public void appendAll(Map<Long, Integer> deltas, MovementType type, String reference) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(APPEND_ALL_SQL);
+            statement.setString(1, type.name());
+            statement.setString(2, reference);
+            statement.setArray(3, connection.createArrayOf("bigint", deltas.keySet().toArray()));
+            statement.setArray(4, connection.createArrayOf("integer", deltas.values().toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Counts the pending movements of the inventory records of a warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the number of pending movements
+     */
+    public long countPending(long warehouseId) {
+        Long count = jdbcTemplate.queryForObject(PENDING_COUNT_SQL, Long.class, warehouseId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Folds up to {@code batchSize} of the oldest pending movements into the quantities of their inventory
+     * records in one statement.
+     *
+     * @param batchSize the maximum number of movements to fold
+     * @return the number of movements folded
+     */
+    public int compact(int batchSize) {
+        return jdbcTemplate.queryForList(COMPACT_SQL, Long.class, batchSize).stream()
+                .mapToInt(Long::intValue)
+                .sum();
+    }
+
+    /**
+     * Marks the pending movements of inventory records as compacted without folding them, because their
+     * quantities are being overwritten. Must run in the transaction that overwrites the quantities, before
+     * it writes them: that transaction then locks movements before inventory rows, in the same order as
+     * a compaction.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the number of movements superseded
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int supersede(Collection<Long> ids) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SUPERSEDE_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+
+    private Optional<Appended> append(String sql, boolean allowNegative, MovementType type, int delta,
+                                      String reference, Object... targetArgs) {
+        Object[] args = new Object[targetArgs.length + 5];
+        System.arraycopy(targetArgs, 0, args, 0, targetArgs.length);
+        int i = targetArgs.length;
+        args[i++] = type.name();
+        args[i++] = delta;
+        args[i++] = new SqlParameterValue(Types.VARCHAR, reference);
+        args[i++] = allowNegative;
+        args[i] = delta;
+        return first(jdbcTemplate.query(sql, (rs, rowNum) -> new Appended(STOCK_LEVEL.mapRow(rs, rowNum), rs.getBoolean("appended")), args));
+    }
+
+    private static <T> Optional<T> first(List<T> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * The outcome of recording a movement.
+     *
+     * @param stockLevel the stock level after the movement, or the unchanged one if it was not recorded
+     * @param recorded   {@code false} if the movement was checked and would have taken the quantity below zero
+     */
+    public record Appended(StockLevelDTO stockLevel, boolean recorded) {}
+}
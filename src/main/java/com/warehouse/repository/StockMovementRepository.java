@@ -0,0 +1,28 @@
+package com.warehouse.repository;
+
+import com.warehouse.entity.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository interface for reading the history of {@link StockMovement} records.
+ * Movements are recorded and compacted by {@link StockLedgerRepository}.
+ */
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    /**
+     * Retrieves a page of the movements of an inventory record whose ID is greater than the given cursor,
+     * ordered by ID, which is the order they were recorded in.
+     *
+     * @param inventoryId the ID of the inventory record
+     * @param after       the ID of the last movement of the previous page
+     * @param limit       the maximum number of movements to return
+     * @return the movements following the cursor
+     */
+    @Query("SELECT m FROM StockMovement m WHERE m.inventory.id = :inventoryId AND m.id > :after ORDER BY m.id")
+    List<StockMovement> findPageAfter(@Param("inventoryId") Long inventoryId, @Param("after") Long after, Limit limit);
+}
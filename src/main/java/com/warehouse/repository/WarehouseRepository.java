@@ -1,19 +1,41 @@
 package com.warehouse.repository;
 
+import com.warehouse.dto.search.SuggestionDTO;
+import com.warehouse.dto.warehouse.WarehouseExportRowDTO;
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
 import com.warehouse.entity.Warehouse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for {@link Warehouse} entities.
- * Provides CRUD operations and custom queries related to warehouses.
+ * Provides CRUD operations and custom queries related to warehouses, and queries with a
+ * fetch plan chosen at run time from {@link WarehouseSpecifications}.
  */
 @Repository
-public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+public interface WarehouseRepository extends JpaRepository<Warehouse, Long>, JpaSpecificationExecutor<Warehouse> {
+
+    /**
+     * Select and joins shared by the summary queries.
+     */
+    String SUMMARY_SELECT = "SELECT new com.warehouse.dto.warehouse.WarehouseSummaryDTO(" +
+            "w.id, w.name, w.capacity, COUNT(i.id), COALESCE(SUM(i.quantity), 0L), " +
+            "COALESCE(SUM(CASE WHEN i.quantity < i.minStock THEN 1L ELSE 0L END), 0L), " +
+            "COALESCE(SUM(i.quantity * p.weight), 0.0BD)) " +
+            "FROM Warehouse w LEFT JOIN w.inventories i LEFT JOIN i.product p ";
 
     /**
      * Retrieves all warehouses with their inventories and associated products eagerly fetched.
@@ -25,27 +47,98 @@ public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
     List<Warehouse> findAll();
 
     /**
-     * Finds warehouses whose names contain the specified substring, case-insensitive.
+     * Retrieves the IDs of a page of warehouses whose ID is greater than the given cursor, ordered by ID.
+     * The limit is applied to warehouse rows only, which a collection fetch join cannot do in SQL.
+     *
+     * @param after the ID of the last warehouse of the previous page
+     * @param limit the maximum number of IDs to return
+     * @return the warehouse IDs following the cursor
+     */
+    @Query("SELECT w.id FROM Warehouse w WHERE w.id > :after ORDER BY w.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Streams every warehouse joined with its inventories and their products as flat rows,
+     * ordered by warehouse ID so that the rows of one warehouse are contiguous.
+     * Rows are read through a forward-only cursor in chunks of the JDBC fetch size and are not
+     * managed entities, so the persistence context does not grow while the stream is consumed.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return a stream of warehouse/inventory/product rows; warehouses without inventories yield one row
+     *         with {@code null} inventory and product columns
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.warehouse.dto.warehouse.WarehouseExportRowDTO(" +
+            "w.id, w.name, w.address, w.capacity, w.managerName, i.id, i.quantity, i.minStock, i.maxStock, " +
+            "p.id, p.name, p.description, p.price, p.category, p.weight) " +
+            "FROM Warehouse w LEFT JOIN w.inventories i LEFT JOIN i.product p ORDER BY w.id, i.id")
+    Stream<WarehouseExportRowDTO> streamExportRows();
+
+    /**
+     * Aggregates the inventory records of every warehouse in one grouped query, ordered by warehouse ID.
+     * Warehouses without inventory records are included with zero totals.
+     *
+     * @return the summary of every warehouse
+     */
+    @Query(SUMMARY_SELECT + "GROUP BY w.id, w.name, w.capacity ORDER BY w.id")
+    List<WarehouseSummaryDTO> findSummaries();
+
+    /**
+     * Aggregates the inventory records of one warehouse.
+     *
+     * @param id the ID of the warehouse
+     * @return an {@link Optional} containing the summary, or empty if the warehouse does not exist
+     */
+    @Query(SUMMARY_SELECT + "WHERE w.id = :id GROUP BY w.id, w.name, w.capacity")
+    Optional<WarehouseSummaryDTO> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Retrieves a warehouse by its ID with its inventories and associated products eagerly fetched.
+     *
+     * @param id the ID of the warehouse
+     * @return an {@link Optional} containing the warehouse if found, or empty otherwise
+     */
+    @Override
+    @EntityGraph(attributePaths = {"inventories", "inventories.product"})
+    Optional<Warehouse> findById(Long id);
+
+    /**
+     * Finds warehouses whose names contain the specified substring, case-insensitive,
+     * with their inventories and associated products eagerly fetched.
      *
      * @param name the substring to search for in warehouse names
      * @return a list of warehouses matching the name criteria
      */
+    @EntityGraph(attributePaths = {"inventories", "inventories.product"})
     List<Warehouse> findByNameContainingIgnoreCase(String name);
 
     /**
-     * Finds warehouses with capacity greater than the specified value.
+     * Finds warehouses with capacity greater than the specified value,
+     * with their inventories and associated products eagerly fetched.
      *
      * @param capacity the capacity threshold
      * @return a list of warehouses with capacity greater than the specified amount
      */
+    @EntityGraph(attributePaths = {"inventories", "inventories.product"})
     List<Warehouse> findByCapacityGreaterThan(BigDecimal capacity);
 
     /**
-     * Finds warehouses that have a manager assigned (managerName is not null).
+     * Finds warehouses that have a manager assigned (managerName is not null),
+     * with their inventories and associated products eagerly fetched.
      *
      * @return a list of warehouses with assigned managers
      */
-    @Query("SELECT w FROM Warehouse w WHERE w.managerName IS NOT NULL")
+    @Query("SELECT w FROM Warehouse w LEFT JOIN FETCH w.inventories i LEFT JOIN FETCH i.product " +
+            "WHERE w.managerName IS NOT NULL")
     List<Warehouse> findWarehousesWithManager();
 
+    /**
+     * Streams the ID and name of every warehouse, reading them through a forward-only cursor
+     * in chunks of the JDBC fetch size.
+     *
+     * @return a stream of warehouse IDs and names
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.warehouse.dto.search.SuggestionDTO(w.id, w.name) FROM Warehouse w")
+    Stream<SuggestionDTO> streamNames();
 }
@@ -0,0 +1,46 @@
+package com.warehouse.repository;
+
+import com.warehouse.entity.Warehouse;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * {@link Specification} building blocks for {@link Warehouse} queries whose fetch plan is chosen at
+ * run time, through {@code findBy(specification, query -> query.project(paths)...)}.
+ */
+public final class WarehouseSpecifications {
+
+    private WarehouseSpecifications() {
+    }
+
+    /**
+     * Matches the warehouse with the given ID.
+     *
+     * @param id the ID
+     * @return the specification
+     */
+    public static Specification<Warehouse> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    /**
+     * Matches warehouses whose ID is greater than the given cursor.
+     *
+     * @param after the cursor
+     * @return the specification
+     */
+    public static Specification<Warehouse> idAfter(Long after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+
+    /**
+     * Matches the warehouses with the given IDs.
+     *
+     * @param ids the IDs
+     * @return the specification
+     */
+    public static Specification<Warehouse> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+}
@@ -1,11 +1,24 @@
 package com.warehouse.service;
 
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.dto.inventory.BulkInventoryResultDTO;
 import com.warehouse.dto.inventory.CreateInventoryDTO;
 import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.StockMovementDTO;
+import com.warehouse.dto.inventory.TransferResultDTO;
+import com.warehouse.dto.inventory.TransferStockDTO;
 import com.warehouse.dto.inventory.UpdateInventoryDTO;
+import com.warehouse.dto.page.CursorPageDTO;
 import com.warehouse.dto.reference.ReferenceDTO;
 import com.warehouse.entity.Inventory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +35,26 @@ public interface InventoryService {
      */
     List<ResponseInventoryDTO> getAllInventories();
 
+    /**
+     * Retrieves a page of inventory records ordered by ID, starting after the given cursor.
+     *
+     * @param after the ID of the last inventory of the previous page, or 0 for the first page
+     * @param limit the maximum number of inventories to return
+     * @return the page of inventories and the cursor of the next page
+     */
+    CursorPageDTO<ResponseInventoryDTO> getInventoryPage(Long after, int limit);
+
+    /**
+     * Retrieves a page of inventory records ordered by ID, starting after the given cursor,
+     * loading only the selected relations.
+     *
+     * @param after     the ID of the last inventory of the previous page, or 0 for the first page
+     * @param limit     the maximum number of inventories to return
+     * @param selection the relations to load; relations not selected are {@code null}
+     * @return the page of inventories and the cursor of the next page
+     */
+    CursorPageDTO<ResponseInventoryDTO> getInventoryPage(Long after, int limit, FieldSelection selection);
+
     /**
      * Retrieves an inventory record by its ID.
      *
@@ -30,6 +63,15 @@ public interface InventoryService {
      */
     Optional<ResponseInventoryDTO> getInventoryById(Long id);
 
+    /**
+     * Retrieves an inventory record by its ID, loading only the selected relations.
+     *
+     * @param id        the ID of the inventory
+     * @param selection the relations to load; relations not selected are {@code null}
+     * @return an {@link Optional} containing the inventory if found, or empty otherwise
+     */
+    Optional<ResponseInventoryDTO> getInventoryById(Long id, FieldSelection selection);
+
     /**
      * Creates a new inventory record.
      *
@@ -38,6 +80,37 @@ public interface InventoryService {
      */
     ResponseInventoryDTO createInventory(CreateInventoryDTO inventoryDTO);
 
+    /**
+     * Creates or updates inventory records in bulk, merging on the warehouse and product pair.
+     *
+     * @param inventoryDTOs the inventory records to create or update, consumed as they are read
+     * @return one result per input row, in input order
+     * @throws com.warehouse.exception.BulkUpsertException if a row cannot be read or written; rows before
+     *         it have been written and their results are carried by the exception
+     */
+    List<BulkInventoryResultDTO> upsertInventories(Iterator<CreateInventoryDTO> inventoryDTOs);
+
+    /**
+     * Creates or updates inventory records from a CSV file, merging on the warehouse and product pair.
+     *
+     * @param csv the CSV text, with a header naming the columns
+     * @return the numbers of rows read, written and rejected, and the first rejected lines
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     * @throws IOException              if the CSV cannot be read
+     */
+    ImportResultDTO importInventories(Reader csv) throws IOException;
+
+    /**
+     * Writes inventory records joined with their warehouse and product as CSV, without loading them
+     * as entities.
+     *
+     * @param warehouseId the warehouse to export, or {@code null} for all warehouses
+     * @param category    the product category to export, or {@code null} for all categories
+     * @param out         the stream the CSV is written to
+     * @return the number of inventory records written
+     */
+    long exportInventories(Long warehouseId, String category, OutputStream out);
+
     /**
      * Updates an existing inventory record identified by its ID.
      *
@@ -47,6 +120,62 @@ public interface InventoryService {
      */
     ResponseInventoryDTO updateInventory(Long id, UpdateInventoryDTO inventoryDTO);
 
+    /**
+     * Adjusts the quantity of an inventory record by a delta.
+     *
+     * @param id         the ID of the inventory to adjust
+     * @param adjustment the delta to apply
+     * @return the new stock level
+     */
+    StockLevelDTO adjustInventory(Long id, AdjustInventoryDTO adjustment);
+
+    /**
+     * Adjusts the quantity of the inventory record of a product in a warehouse by a delta.
+     *
+     * @param warehouseId the warehouse ID
+     * @param productId   the product ID
+     * @param adjustment  the delta to apply
+     * @return the new stock level
+     */
+    StockLevelDTO adjustInventory(Long warehouseId, Long productId, AdjustInventoryDTO adjustment);
+
+    /**
+     * Moves stock of one or more products from one warehouse to another in a single transaction,
+     * creating the inventory records of the destination warehouse that do not exist yet.
+     *
+     * @param fromWarehouseId the ID of the warehouse stock is moved from
+     * @param transfer        the destination warehouse and the products and quantities to move
+     * @return the new stock levels of the source and destination records
+     */
+    TransferResultDTO transferStock(Long fromWarehouseId, TransferStockDTO transfer);
+
+    /**
+     * Retrieves the current stock level of an inventory record.
+     *
+     * @param id the ID of the inventory
+     * @return an {@link Optional} containing the stock level if found, or empty otherwise
+     */
+    Optional<StockLevelDTO> getStockLevel(Long id);
+
+    /**
+     * Retrieves the current stock level of a product in a warehouse.
+     *
+     * @param warehouseId the warehouse ID
+     * @param productId   the product ID
+     * @return an {@link Optional} containing the stock level if found, or empty otherwise
+     */
+    Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId);
+
+    /**
+     * Retrieves a page of the stock movements of an inventory record, oldest first.
+     *
+     * @param id    the ID of the inventory
+     * @param after the ID of the last movement of the previous page
+     * @param limit the maximum number of movements to return
+     * @return an {@link Optional} containing the page if the inventory exists, or empty otherwise
+     */
+    Optional<CursorPageDTO<StockMovementDTO>> getStockMovements(Long id, Long after, int limit);
+
     /**
      * Deletes an inventory record by its ID.
      *
@@ -62,6 +191,24 @@ public interface InventoryService {
      */
     List<ResponseInventoryDTO> findWarehouseInventory(Long id);
 
+    /**
+     * Finds all inventory records of a warehouse by its ID, loading only the selected relations.
+     *
+     * @param id        the warehouse ID
+     * @param selection the relations to load; relations not selected are {@code null}
+     * @return a list of inventory items in the specified warehouse, ordered by ID
+     */
+    List<ResponseInventoryDTO> findWarehouseInventory(Long id, FieldSelection selection);
+
+    /**
+     * Retrieves a tag that changes whenever the inventory records of a warehouse, their products
+     * or the warehouse itself change, without loading any of them.
+     *
+     * @param id the warehouse ID
+     * @return an {@link Optional} containing the version tag, or empty if the warehouse does not exist
+     */
+    Optional<String> getWarehouseInventoryVersion(Long id);
+
     /**
      * Finds all inventory records associated with a specific warehouse.
      *
@@ -129,4 +276,12 @@ public interface InventoryService {
      */
     List<ResponseInventoryDTO> findLowStockInventory();
 
+    /**
+     * Finds the inventory items with quantity less than their minimum stock threshold in one warehouse.
+     *
+     * @param warehouseId the warehouse ID, or {@code null} for all warehouses
+     * @return a list of low stock inventory items
+     */
+    List<ResponseInventoryDTO> findLowStockInventory(Long warehouseId);
+
 }
@@ -1,34 +1,121 @@
 package com.warehouse.service;
 
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.dto.inventory.BulkInventoryResultDTO;
+import com.warehouse.dto.inventory.BulkInventoryResultDTO.Status;
 import com.warehouse.dto.inventory.CreateInventoryDTO;
 import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.StockMovementDTO;
+import com.warehouse.dto.inventory.TransferResultDTO;
+import com.warehouse.dto.inventory.TransferStockDTO;
 import com.warehouse.dto.inventory.UpdateInventoryDTO;
 import com.warehouse.dto.mapper.InventoryMapper;
+import com.warehouse.dto.page.CursorPageDTO;
 import com.warehouse.dto.reference.ReferenceDTO;
 import com.warehouse.entity.Inventory;
+import com.warehouse.entity.MovementType;
+import com.warehouse.exception.BulkUpsertException;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.CopyExportRepository;
+import com.warehouse.repository.CopyImportRepository;
+import com.warehouse.repository.CopyImportRepository.InventoryRow;
+import com.warehouse.repository.InventoryBulkRepository;
+import com.warehouse.repository.InventoryBulkRepository.TransferPair;
+import com.warehouse.repository.InventoryBulkRepository.UpsertedRow;
 import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.InventorySpecifications;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.service.imports.CsvReader;
+import com.warehouse.service.imports.CsvRows;
+import com.warehouse.service.imports.ImportReport;
+import com.warehouse.service.stock.LowStockIndex;
+import com.warehouse.service.stock.StockEngine;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Service implementation for managing {@link Inventory} entities.
  * Provides CRUD operations and business logic for inventory management.
  */
+@Slf4j
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class InventoryServiceImpl implements InventoryService {
 
+    /**
+     * Number of rows written per bulk upsert statement.
+     */
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    /**
+     * Number of IDs bound per lookup of inventory records by ID, well below the bind parameter limit
+     * of the JDBC driver.
+     */
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private static final List<String> IMPORT_COLUMNS =
+            List.of("warehouse_id", "product_id", "quantity", "min_stock", "max_stock");
+
     private final InventoryRepository inventoryRepository;
+    private final InventoryBulkRepository inventoryBulkRepository;
+    private final CopyImportRepository copyImportRepository;
+    private final CopyExportRepository copyExportRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockEngine stockEngine;
+    private final LowStockIndex lowStockIndex;
     private final InventoryMapper mapper;
 
     /**
      * Constructs an InventoryServiceImpl with the given {@code InventoryRepository}.
      *
-     * @param inventoryRepository repository for inventory persistence operations
+     * @param inventoryRepository     repository for inventory persistence operations
+     * @param inventoryBulkRepository repository for set-based bulk inventory writes
+     * @param copyImportRepository    repository for CSV imports
+     * @param copyExportRepository    repository for CSV exports
+     * @param stockMovementRepository repository for the stock movement history
+     * @param stockEngine             engine owning quantity reads and deltas
+     * @param lowStockIndex           index of the inventories below their minimum stock
      */
-    public InventoryServiceImpl(InventoryRepository inventoryRepository, InventoryMapper inventoryMapper) {
+    public InventoryServiceImpl(InventoryRepository inventoryRepository,
+                                InventoryBulkRepository inventoryBulkRepository,
+                                CopyImportRepository copyImportRepository,
+                                CopyExportRepository copyExportRepository,
+                                StockMovementRepository stockMovementRepository,
+                                StockEngine stockEngine,
+                                LowStockIndex lowStockIndex,
+                                InventoryMapper inventoryMapper) {
         this.inventoryRepository = inventoryRepository;
+        this.inventoryBulkRepository = inventoryBulkRepository;
+        this.copyImportRepository = copyImportRepository;
+        this.copyExportRepository = copyExportRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockEngine = stockEngine;
+        this.lowStockIndex = lowStockIndex;
         this.mapper = inventoryMapper;
     }
 
@@ -38,9 +125,44 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of all inventories
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> getAllInventories() {
         List<Inventory> inventories = inventoryRepository.findAll();
-        return mapper.toResponseDto(inventories);
+        return withHeldQuantities(mapper.toResponseDto(inventories));
+    }
+
+    /**
+     * Retrieves a page of inventory records ordered by ID using a keyset query,
+     * so the cost of a page does not depend on its depth.
+     *
+     * @param after the ID of the last inventory of the previous page
+     * @param limit the maximum number of inventories to return
+     * @return the page of inventories and the cursor of the next page
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ResponseInventoryDTO> getInventoryPage(Long after, int limit) {
+        return getInventoryPage(after, limit, FieldSelection.all(ResponseInventoryDTO.RELATIONS));
+    }
+
+    /**
+     * Retrieves a page of inventory records ordered by ID using a keyset query, joining only the
+     * selected relations.
+     *
+     * @param after     the ID of the last inventory of the previous page
+     * @param limit     the maximum number of inventories to return
+     * @param selection the relations to load
+     * @return the page of inventories and the cursor of the next page
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ResponseInventoryDTO> getInventoryPage(Long after, int limit, FieldSelection selection) {
+        CursorPageDTO.checkLimit(limit);
+        List<Inventory> inventories = inventoryRepository.findBy(InventorySpecifications.idAfter(after),
+                query -> query.project(selection.fetchPaths()).sortBy(BY_ID).limit(limit + 1).all());
+        return CursorPageDTO.of(withHeldQuantities(mapper.toResponseDto(inventories)), limit, ResponseInventoryDTO::id);
     }
 
     /**
@@ -50,9 +172,24 @@ public class InventoryServiceImpl implements InventoryService {
      * @return an Optional containing the found inventory or empty if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<ResponseInventoryDTO> getInventoryById(Long id) {
-        Optional<Inventory> inventory = inventoryRepository.findById(id);
-        return inventory.map(mapper::toResponseDto);
+        return getInventoryById(id, FieldSelection.all(ResponseInventoryDTO.RELATIONS));
+    }
+
+    /**
+     * Retrieves an inventory record by its ID, joining only the selected relations.
+     *
+     * @param id        the inventory ID
+     * @param selection the relations to load
+     * @return an Optional containing the found inventory or empty if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ResponseInventoryDTO> getInventoryById(Long id, FieldSelection selection) {
+        Optional<Inventory> inventory = inventoryRepository.findBy(InventorySpecifications.hasId(id),
+                query -> query.project(selection.fetchPaths()).one());
+        return inventory.map(mapper::toResponseDto).map(this::withHeldQuantity);
     }
 
     /**
@@ -62,15 +199,104 @@ public class InventoryServiceImpl implements InventoryService {
      * @return the saved inventory entity
      */
     @Override
+    @Transactional
     public ResponseInventoryDTO createInventory(CreateInventoryDTO inventoryDTO) {
         Inventory inventory = mapper.toEntity(inventoryDTO);
         Inventory saved = inventoryRepository.save(inventory);
+        indexLowStock(saved);
         return mapper.toResponseDto(saved);
     }
 
+    /**
+     * Creates or updates inventory records in bulk. Rows are consumed from the iterator and written
+     * in chunks of {@value #BULK_CHUNK_SIZE}, one statement per chunk, so the input never has to be
+     * held in memory. Each chunk commits on its own, so a failure leaves earlier chunks written; the
+     * exception then carries their results and the index of the first row not written. Rows read before
+     * a row that cannot be read are written first, so that index is the unreadable row.
+     * <p>
+     * Rows are rejected if they lack a warehouse or product reference, have negative stock values,
+     * reference a warehouse or product that does not exist, or are superseded by a later row for the
+     * same warehouse and product within the same chunk. In each chunk's transaction the stock engine
+     * drops what it held for the records the chunk overwrites before they are written.
+     *
+     * @param inventoryDTOs the inventory records to create or update
+     * @return one result per input row, in input order
+     * @throws BulkUpsertException if a row cannot be read or a chunk cannot be written
+     */
+    @Override
+    public List<BulkInventoryResultDTO> upsertInventories(Iterator<CreateInventoryDTO> inventoryDTOs) {
+        List<BulkInventoryResultDTO> results = new ArrayList<>();
+        List<CreateInventoryDTO> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        while (true) {
+            CreateInventoryDTO row;
+            try {
+                if (!inventoryDTOs.hasNext())
+                    break;
+                row = inventoryDTOs.next();
+            } catch (RuntimeException e) {
+                writeChunk(chunk, results);
+                throw new BulkUpsertException("Row " + results.size() + " cannot be read: " + e.getMessage(),
+                        results.size(), true, results, e);
+            }
+            chunk.add(row);
+            if (chunk.size() == BULK_CHUNK_SIZE)
+                writeChunk(chunk, results);
+        }
+        writeChunk(chunk, results);
+        return results;
+    }
+
+    /**
+     * Creates or updates inventory records from a CSV file with the columns {@code warehouse_id},
+     * {@code product_id}, {@code quantity}, {@code min_stock} and {@code max_stock}. Rows are validated
+     * as they are read and streamed into the database with the COPY protocol, then merged in one
+     * transaction, so the file never has to be held in memory and a failure writes nothing.
+     * <p>
+     * Rows are rejected if they cannot be parsed, have a missing or negative value, reference a
+     * warehouse or product that does not exist, or are superseded by a later row for the same
+     * warehouse and product. Before the merge, the stock engine drops what it held for the records the
+     * import overwrites, discarding their unflushed deltas as the bulk upsert does, and fences them until
+     * the import completes. Once it has committed, the low-stock index is rebuilt.
+     *
+     * @param csv the CSV text
+     * @return the numbers of rows read, written and rejected, and the first rejected lines
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     * @throws IOException              if the CSV cannot be read
+     */
+    @Override
+    public ImportResultDTO importInventories(Reader csv) throws IOException {
+        ImportReport report = new ImportReport();
+        CopyImportRepository.Merged merged;
+        try (CsvReader reader = new CsvReader(csv)) {
+            reader.readHeader(IMPORT_COLUMNS, List.of());
+            merged = copyImportRepository.importInventories(
+                    new CsvRows<>(reader, report, InventoryServiceImpl::toImportRow), stockEngine::evict, report::reject);
+        }
+        lowStockIndex.rebuild();
+        return report.finish(merged.inserted(), merged.updated());
+    }
+
+    /**
+     * Writes inventory records with the name of their warehouse and the name, category and price of
+     * their product as CSV, streamed from the database with {@code COPY ... TO STDOUT} in a read-only
+     * transaction. Quantities are those stored in the database, which may trail the stock engine by
+     * its unflushed deltas.
+     *
+     * @param warehouseId the warehouse to export, or {@code null} for all warehouses
+     * @param category    the product category to export, or {@code null} for all categories
+     * @param out         the stream the CSV is written to
+     * @return the number of inventory records written
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportInventories(Long warehouseId, String category, OutputStream out) {
+        return copyExportRepository.exportInventories(warehouseId, category, out);
+    }
+
     /**
      * Updates an existing inventory record by ID.
-     * Only quantity, minStock, and maxStock fields are updated.
+     * Only quantity, minStock, and maxStock fields are updated. The record is read and written in one
+     * transaction and flushed before the low-stock index is updated, so a conflicting update fails first.
      *
      * @param id        the ID of the inventory to update
      * @param inventoryDTO the inventory data to update
@@ -78,7 +304,9 @@ public class InventoryServiceImpl implements InventoryService {
      * @throws RuntimeException if the inventory with given ID is not found
      */
     @Override
+    @Transactional
     public ResponseInventoryDTO updateInventory(Long id, UpdateInventoryDTO inventoryDTO) {
+        stockEngine.evict(id);
         Inventory existing = inventoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Inventory not found: " + id));
         Inventory inventory = mapper.toEntity(inventoryDTO);
@@ -87,18 +315,154 @@ public class InventoryServiceImpl implements InventoryService {
         existing.setMinStock(inventory.getMinStock());
         existing.setMaxStock(inventory.getMaxStock());
 
-        Inventory saved = inventoryRepository.save(existing);
+        Inventory saved = inventoryRepository.saveAndFlush(existing);
+        indexLowStock(saved);
         return mapper.toResponseDto(saved);
     }
 
+    /**
+     * Adjusts the quantity of an inventory record by a delta through the configured {@link StockEngine},
+     * so concurrent adjustments of the same record are never lost.
+     *
+     * @param id         the ID of the inventory to adjust
+     * @param adjustment the delta to apply and the kind and reference of the movement
+     * @return the new stock level
+     * @throws IllegalArgumentException if the delta does not fit the kind of movement or the reference is too long
+     * @throws InsufficientStockException if the adjustment would take the quantity below zero
+     * @throws RuntimeException if the inventory with given ID is not found
+     */
+    @Override
+    public StockLevelDTO adjustInventory(Long id, AdjustInventoryDTO adjustment) {
+        validateAdjustment(adjustment);
+        return indexLowStock(stockEngine.adjust(id, adjustment.delta(), adjustment.allowNegative(),
+                adjustment.movementType(), adjustment.reference()));
+    }
+
+    /**
+     * Adjusts the quantity of the inventory record of a product in a warehouse by a delta
+     * through the configured {@link StockEngine}, so concurrent adjustments are never lost.
+     *
+     * @param warehouseId the warehouse ID
+     * @param productId   the product ID
+     * @param adjustment  the delta to apply and the kind and reference of the movement
+     * @return the new stock level
+     * @throws IllegalArgumentException if the delta does not fit the kind of movement or the reference is too long
+     * @throws InsufficientStockException if the adjustment would take the quantity below zero
+     * @throws RuntimeException if the product has no inventory record in the warehouse
+     */
+    @Override
+    public StockLevelDTO adjustInventory(Long warehouseId, Long productId, AdjustInventoryDTO adjustment) {
+        validateAdjustment(adjustment);
+        return indexLowStock(stockEngine.adjust(warehouseId, productId, adjustment.delta(), adjustment.allowNegative(),
+                adjustment.movementType(), adjustment.reference()));
+    }
+
+    /**
+     * Moves stock between two warehouses in one transaction. Missing destination records are created
+     * first, with no stock and the thresholds of their source record, then every source and destination
+     * quantity is changed in a single {@link StockEngine#adjustAll} call, which locks the records in ID
+     * order so concurrent transfers in opposite directions cannot deadlock.
+     *
+     * @param fromWarehouseId the ID of the warehouse stock is moved from
+     * @param transfer        the destination warehouse and the products and quantities to move
+     * @return the new stock levels of the source and destination records, in request order
+     * @throws IllegalArgumentException if the transfer is empty, too large, moves a product twice or a
+     *                                  non-positive quantity, targets its source warehouse, or its reference
+     *                                  is too long
+     * @throws InsufficientStockException if a source record holds less than the quantity moved
+     * @throws RuntimeException if a source record or the destination warehouse is not found
+     */
+    @Override
+    @Transactional
+    public TransferResultDTO transferStock(Long fromWarehouseId, TransferStockDTO transfer) {
+        validateTransfer(fromWarehouseId, transfer);
+        List<Long> productIds = new ArrayList<>(transfer.items().size());
+        for (TransferStockDTO.Item item : transfer.items())
+            productIds.add(item.productId());
+
+        Map<Long, TransferPair> pairs = new HashMap<>();
+        for (TransferPair pair : inventoryBulkRepository.createTransferTargets(fromWarehouseId,
+                transfer.toWarehouseId(), productIds))
+            pairs.put(pair.productId(), pair);
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (TransferStockDTO.Item item : transfer.items()) {
+            TransferPair pair = pairs.get(item.productId());
+            if (pair == null)
+                throw new RuntimeException("Inventory not found for product " + item.productId()
+                        + " in warehouse: " + fromWarehouseId);
+            if (pair.destinationId() == null)
+                throw new RuntimeException("Warehouse not found: " + transfer.toWarehouseId());
+            deltas.put(pair.sourceId(), -item.quantity());
+            deltas.put(pair.destinationId(), item.quantity());
+        }
+
+        Map<Long, StockLevelDTO> levels = stockEngine.adjustAll(deltas, MovementType.TRANSFER, transfer.reference());
+        levels.values().forEach(this::indexLowStock);
+        List<TransferResultDTO.Item> items = new ArrayList<>(transfer.items().size());
+        for (TransferStockDTO.Item item : transfer.items()) {
+            TransferPair pair = pairs.get(item.productId());
+            items.add(new TransferResultDTO.Item(item.productId(), item.quantity(),
+                    levels.get(pair.sourceId()), levels.get(pair.destinationId())));
+        }
+        return new TransferResultDTO(fromWarehouseId, transfer.toWarehouseId(), items);
+    }
+
+    /**
+     * Retrieves the current stock level of an inventory record from the configured {@link StockEngine}.
+     *
+     * @param id the ID of the inventory
+     * @return an Optional containing the stock level or empty if not found
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long id) {
+        return stockEngine.getStockLevel(id);
+    }
+
+    /**
+     * Retrieves the current stock level of a product in a warehouse from the configured {@link StockEngine}.
+     *
+     * @param warehouseId the warehouse ID
+     * @param productId   the product ID
+     * @return an Optional containing the stock level or empty if not found
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId) {
+        return stockEngine.getStockLevel(warehouseId, productId);
+    }
+
+    /**
+     * Retrieves a page of the stock movements of an inventory record using a keyset query. Movements are
+     * only recorded by the {@code ledger} stock engine.
+     *
+     * @param id    the ID of the inventory
+     * @param after the ID of the last movement of the previous page
+     * @param limit the maximum number of movements to return
+     * @return an Optional containing the page, or empty if the inventory is not found
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDTO<StockMovementDTO>> getStockMovements(Long id, Long after, int limit) {
+        CursorPageDTO.checkLimit(limit);
+        if (!inventoryRepository.existsById(id))
+            return Optional.empty();
+        List<StockMovementDTO> movements = mapper.toMovementDto(
+                stockMovementRepository.findPageAfter(id, after, Limit.of(limit + 1)));
+        return Optional.of(CursorPageDTO.of(movements, limit, StockMovementDTO::id));
+    }
+
     /**
      * Deletes an inventory record by its ID.
      *
      * @param id the ID of the inventory to delete
      */
     @Override
+    @Transactional
     public void deleteInventory(Long id) {
+        stockEngine.evict(id);
         inventoryRepository.deleteById(id);
+        lowStockIndex.remove(id);
     }
 
     /**
@@ -108,9 +472,43 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of inventory records in the specified warehouse
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findWarehouseInventory(Long id) {
-        List<Inventory> inventories = inventoryRepository.findByWarehouseId(id);
-        return mapper.toResponseDto(inventories);
+        return findWarehouseInventory(id, FieldSelection.all(ResponseInventoryDTO.RELATIONS));
+    }
+
+    /**
+     * Finds all inventory records in a warehouse by warehouse ID, ordered by ID, joining only the
+     * selected relations.
+     *
+     * @param id        the warehouse ID
+     * @param selection the relations to load
+     * @return list of inventory records in the specified warehouse
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResponseInventoryDTO> findWarehouseInventory(Long id, FieldSelection selection) {
+        List<Inventory> inventories = inventoryRepository.findBy(InventorySpecifications.inWarehouse(id),
+                query -> query.project(selection.fetchPaths()).sortBy(BY_ID).all());
+        return withHeldQuantities(mapper.toResponseDto(inventories));
+    }
+
+    /**
+     * Retrieves a tag combining the number, ID total and version total of the inventory records of a
+     * warehouse and their products, the warehouse version and the quantity changes the stock engine
+     * holds for the warehouse. Callers must read the tag before the inventory records, so that a
+     * concurrent write can only make the records newer than the tag.
+     *
+     * @param id the warehouse ID
+     * @return the version tag, or empty if the warehouse does not exist
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getWarehouseInventoryVersion(Long id) {
+        return inventoryRepository.findWarehouseInventoryVersion(id)
+                .map(version -> Long.toHexString(version.getSize()) + "-" + Long.toHexString(version.getIdSum())
+                        + "-" + Long.toHexString(version.getVersionSum())
+                        + "-" + Long.toHexString(stockEngine.heldChanges(id)));
     }
 
     /**
@@ -120,6 +518,7 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of inventory records in the specified warehouse
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findWarehouseInventory(ReferenceDTO warehouseDTO) {
         return findWarehouseInventory(warehouseDTO.id());
     }
@@ -131,9 +530,10 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of inventory records for the specified product
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInInventory(Long id) {
         List<Inventory> inventories = inventoryRepository.findByProductId(id);
-        return mapper.toResponseDto(inventories);
+        return withHeldQuantities(mapper.toResponseDto(inventories));
     }
 
     /**
@@ -143,6 +543,7 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of inventory records for the specified product
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInInventory(ReferenceDTO productDTO) {
         return findProductInInventory(productDTO.id());
     }
@@ -155,9 +556,10 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of matching inventory records
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInWarehouseInventory(Long productId, Long warehouseId) {
         List<Inventory> inventories = inventoryRepository.findByWarehouseIdAndProductId(warehouseId, productId);
-        return mapper.toResponseDto(inventories);
+        return withHeldQuantities(mapper.toResponseDto(inventories));
     }
 
     /**
@@ -168,6 +570,7 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of matching inventory records
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInWarehouseInventory(ReferenceDTO productDTO, Long warehouseId) {
         return findProductInWarehouseInventory(productDTO.id(), warehouseId);
     }
@@ -180,6 +583,7 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of matching inventory records
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInWarehouseInventory(Long productId, ReferenceDTO warehouseDTO) {
         return findProductInWarehouseInventory(productId, warehouseDTO.id());
     }
@@ -192,6 +596,7 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of matching inventory records
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findProductInWarehouseInventory(ReferenceDTO productDTO, ReferenceDTO warehouseDTO) {
         return findProductInWarehouseInventory(productDTO.id(), warehouseDTO.id());
     }
@@ -202,8 +607,198 @@ public class InventoryServiceImpl implements InventoryService {
      * @return list of inventory records with low stock
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseInventoryDTO> findLowStockInventory() {
-        List<Inventory> inventories = inventoryRepository.findLowStockItems();
-        return mapper.toResponseDto(inventories);
+        return findLowStockInventory(null);
+    }
+
+    /**
+     * Finds the inventory records with low stock, optionally in one warehouse only. Candidates are
+     * taken from the {@link LowStockIndex} and loaded by ID in chunks of {@value #LOOKUP_CHUNK_SIZE},
+     * so the cost depends on the size of the result rather than of the inventory table and no statement
+     * binds more IDs than a chunk; candidates no longer below their threshold are dropped.
+     *
+     * @param warehouseId the warehouse ID, or {@code null} for all warehouses
+     * @return list of inventory records with low stock, ordered by ID
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResponseInventoryDTO> findLowStockInventory(Long warehouseId) {
+        List<Long> ids = lowStockIndex.inventoryIds(warehouseId);
+        if (ids.isEmpty())
+            return List.of();
+        Collections.sort(ids);
+        List<Inventory> found = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE)
+            found.addAll(inventoryRepository.findAllByIdIn(
+                    ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE))));
+        List<ResponseInventoryDTO> inventories = withHeldQuantities(mapper.toResponseDto(found));
+        List<ResponseInventoryDTO> result = new ArrayList<>(inventories.size());
+        for (ResponseInventoryDTO inventory : inventories)
+            if (inventory.quantity() < inventory.minStock())
+                result.add(inventory);
+        return result;
+    }
+
+    private void indexLowStock(Inventory inventory) {
+        lowStockIndex.update(inventory.getId(), inventory.getWarehouse().getId(),
+                inventory.getQuantity(), inventory.getMinStock());
     }
+
+    private StockLevelDTO indexLowStock(StockLevelDTO stockLevel) {
+        lowStockIndex.update(stockLevel.id(), stockLevel.warehouseId(), stockLevel.quantity(), stockLevel.minStock());
+        return stockLevel;
+    }
+
+    /**
+     * Replaces the quantities of the given inventories with the ones held by the stock engine,
+     * which may not have been written to the inventory table yet.
+     */
+    private List<ResponseInventoryDTO> withHeldQuantities(List<ResponseInventoryDTO> inventories) {
+        if (inventories.isEmpty())
+            return inventories;
+        List<Long> ids = new ArrayList<>(inventories.size());
+        for (ResponseInventoryDTO inventory : inventories)
+            ids.add(inventory.id());
+        Map<Long, Integer> held = stockEngine.heldQuantities(ids);
+        List<ResponseInventoryDTO> result = new ArrayList<>(inventories.size());
+        for (ResponseInventoryDTO inventory : inventories) {
+            Integer quantity = held.get(inventory.id());
+            result.add(quantity != null ? withQuantity(inventory, quantity) : inventory);
+        }
+        return result;
+    }
+
+    private ResponseInventoryDTO withHeldQuantity(ResponseInventoryDTO inventory) {
+        OptionalInt held = stockEngine.heldQuantity(inventory.id());
+        return held.isPresent() ? withQuantity(inventory, held.getAsInt()) : inventory;
+    }
+
+    private static ResponseInventoryDTO withQuantity(ResponseInventoryDTO inventory, int quantity) {
+        if (quantity == inventory.quantity())
+            return inventory;
+        return new ResponseInventoryDTO(inventory.id(), quantity, inventory.minStock(),
+                inventory.maxStock(), inventory.warehouse(), inventory.product());
+    }
+
+    /**
+     * Checks that receipts add stock, picks remove it, and the reference fits its column.
+     */
+    private static void validateAdjustment(AdjustInventoryDTO adjustment) {
+        MovementType type = adjustment.movementType();
+        if (type == MovementType.RECEIPT && adjustment.delta() < 0 || type == MovementType.PICK && adjustment.delta() > 0)
+            throw new IllegalArgumentException("The delta of a " + type + " movement has the wrong sign.");
+        if (adjustment.reference() != null && adjustment.reference().length() > AdjustInventoryDTO.MAX_REFERENCE_LENGTH)
+            throw new IllegalArgumentException("The reference is longer than "
+                    + AdjustInventoryDTO.MAX_REFERENCE_LENGTH + " characters.");
+    }
+
+    /**
+     * Checks that a transfer moves between two warehouses a positive quantity of at most
+     * {@link TransferStockDTO#MAX_ITEMS} distinct products, and that its reference fits its column.
+     */
+    private static void validateTransfer(Long fromWarehouseId, TransferStockDTO transfer) {
+        if (transfer.toWarehouseId() == null || transfer.toWarehouseId().equals(fromWarehouseId))
+            throw new IllegalArgumentException("A transfer needs a destination warehouse other than its source.");
+        if (transfer.items() == null || transfer.items().isEmpty() || transfer.items().size() > TransferStockDTO.MAX_ITEMS)
+            throw new IllegalArgumentException("A transfer moves between 1 and " + TransferStockDTO.MAX_ITEMS + " products.");
+        Set<Long> productIds = new HashSet<>();
+        for (TransferStockDTO.Item item : transfer.items()) {
+            if (item == null || item.productId() == null)
+                throw new IllegalArgumentException("Every transferred item needs a product ID.");
+            if (item.quantity() <= 0)
+                throw new IllegalArgumentException("The quantity of product " + item.productId() + " must be positive.");
+            if (!productIds.add(item.productId()))
+                throw new IllegalArgumentException("Product " + item.productId() + " is transferred more than once.");
+        }
+        if (transfer.reference() != null && transfer.reference().length() > AdjustInventoryDTO.MAX_REFERENCE_LENGTH)
+            throw new IllegalArgumentException("The reference is longer than "
+                    + AdjustInventoryDTO.MAX_REFERENCE_LENGTH + " characters.");
+    }
+
+    /**
+     * Writes and clears a chunk of bulk rows, turning a failure into a {@link BulkUpsertException}
+     * that carries the results of the earlier chunks.
+     */
+    private void writeChunk(List<CreateInventoryDTO> chunk, List<BulkInventoryResultDTO> results) {
+        if (chunk.isEmpty())
+            return;
+        try {
+            upsertChunk(chunk, results);
+        } catch (RuntimeException e) {
+            log.error("Bulk upsert failed at row {}", results.size(), e);
+            throw new BulkUpsertException("Writing the rows from row " + results.size() + " failed.",
+                    results.size(), false, results, e);
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Validates one chunk of bulk rows, writes the valid ones in a single statement and appends
+     * a result for every row of the chunk to {@code results}, keeping input order.
+     */
+    private void upsertChunk(List<CreateInventoryDTO> chunk, List<BulkInventoryResultDTO> results) {
+        int offset = results.size();
+        BulkInventoryResultDTO[] chunkResults = new BulkInventoryResultDTO[chunk.size()];
+        Map<InventoryKey, Integer> lastIndexByKey = new HashMap<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            CreateInventoryDTO row = chunk.get(i);
+            String problem = validateBulkRow(row);
+            if (problem != null) {
+                chunkResults[i] = rejected(offset + i, row, problem);
+                continue;
+            }
+            Integer previous = lastIndexByKey.put(new InventoryKey(row.warehouse().id(), row.product().id()), i);
+            if (previous != null)
+                chunkResults[previous] = rejected(offset + previous, chunk.get(previous),
+                        "Superseded by row " + (offset + i) + ".");
+        }
+
+        List<CreateInventoryDTO> writable = new ArrayList<>(lastIndexByKey.size());
+        for (int i = 0; i < chunk.size(); i++)
+            if (chunkResults[i] == null)
+                writable.add(chunk.get(i));
+
+        if (!writable.isEmpty()) {
+            for (UpsertedRow written : inventoryBulkRepository.upsert(writable, stockEngine::evict)) {
+                lowStockIndex.update(written.id(), written.warehouseId(), written.quantity(), written.minStock());
+                int i = lastIndexByKey.get(new InventoryKey(written.warehouseId(), written.productId()));
+                chunkResults[i] = new BulkInventoryResultDTO(offset + i, written.id(), written.warehouseId(),
+                        written.productId(), written.inserted() ? Status.CREATED : Status.UPDATED, null);
+            }
+        }
+
+        for (int i = 0; i < chunk.size(); i++)
+            results.add(chunkResults[i] != null
+                    ? chunkResults[i]
+                    : rejected(offset + i, chunk.get(i), "Warehouse or product not found."));
+    }
+
+    private static InventoryRow toImportRow(CsvReader record) {
+        return new InventoryRow(record.line(),
+                record.requiredId("warehouse_id"),
+                record.requiredId("product_id"),
+                record.count("quantity"),
+                record.count("min_stock"),
+                record.count("max_stock"));
+    }
+
+    private static String validateBulkRow(CreateInventoryDTO row) {
+        if (row == null || row.warehouse() == null || row.warehouse().id() == null)
+            return "Warehouse id is required.";
+        if (row.product() == null || row.product().id() == null)
+            return "Product id is required.";
+        if (row.quantity() < 0 || row.minStock() < 0 || row.maxStock() < 0)
+            return "Stock values cannot be negative.";
+        return null;
+    }
+
+    private static BulkInventoryResultDTO rejected(int index, CreateInventoryDTO row, String message) {
+        Long warehouseId = row != null && row.warehouse() != null ? row.warehouse().id() : null;
+        Long productId = row != null && row.product() != null ? row.product().id() : null;
+        return new BulkInventoryResultDTO(index, null, warehouseId, productId, Status.REJECTED, message);
+    }
+
+    private record InventoryKey(Long warehouseId, Long productId) {}
 }
@@ -1,10 +1,18 @@
 package com.warehouse.service;
 
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.page.PageDTO;
 import com.warehouse.dto.product.CreateProductDTO;
 import com.warehouse.dto.product.ResponseProductDTO;
 import com.warehouse.dto.product.UpdateProductDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.entity.Product;
+import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +30,15 @@ public interface ProductService {
      */
     List<ResponseProductDTO> getAllProducts();
 
+    /**
+     * Retrieves a page of products ordered by ID, starting after the given cursor.
+     *
+     * @param after the ID of the last product of the previous page, or 0 for the first page
+     * @param limit the maximum number of products to return
+     * @return the page of products and the cursor of the next page
+     */
+    CursorPageDTO<ResponseProductDTO> getProductPage(Long after, int limit);
+
     /**
      * Retrieves a product by its ID.
      *
@@ -30,6 +47,15 @@ public interface ProductService {
      */
     Optional<ResponseProductDTO> getProductById(Long id);
 
+    /**
+     * Retrieves a tag that changes whenever the product returned by {@link #getProductById} changes,
+     * without building the product.
+     *
+     * @param id the product ID
+     * @return an Optional containing the version tag or empty if not found
+     */
+    Optional<String> getProductVersion(Long id);
+
     /**
      * Creates a new product.
      *
@@ -38,6 +64,25 @@ public interface ProductService {
      */
     ResponseProductDTO createProduct(CreateProductDTO productDTO);
 
+    /**
+     * Creates or updates products from a CSV file.
+     *
+     * @param csv the CSV text, with a header naming the columns
+     * @return the numbers of rows read, written and rejected, and the first rejected lines
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     * @throws IOException              if the CSV cannot be read
+     */
+    ImportResultDTO importProducts(Reader csv) throws IOException;
+
+    /**
+     * Writes products as CSV, without loading them as entities.
+     *
+     * @param category the category to export, or {@code null} for all products
+     * @param out      the stream the CSV is written to
+     * @return the number of products written
+     */
+    long exportProducts(String category, OutputStream out);
+
     /**
      * Updates an existing product by ID.
      *
@@ -87,13 +132,24 @@ public interface ProductService {
     List<String> findAllCategories();
 
     /**
-     * Searches for products using multiple optional filters.
+     * Searches for products matching every given filter, one page at a time.
      *
      * @param category the category name to filter by (nullable)
      * @param name     the name substring to search for (nullable)
      * @param minPrice the minimum price to filter by (nullable)
      * @param maxPrice the maximum price to filter by (nullable)
-     * @return a list of products matching the given criteria
+     * @param pageable the page number, page size, and sort
+     * @return the page of products matching the given criteria
+     */
+    PageDTO<ResponseProductDTO> search(String category, String name, BigDecimal minPrice, BigDecimal maxPrice,
+                                       Pageable pageable);
+
+    /**
+     * Suggests products whose name contains the query, ignoring case.
+     *
+     * @param query the substring typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to {@code limit} product IDs and names, best match first
      */
-    List<ResponseProductDTO> search(String category, String name, BigDecimal minPrice, BigDecimal maxPrice);
+    List<SuggestionDTO> suggest(String query, int limit);
 }
@@ -1,35 +1,102 @@
 package com.warehouse.service;
 
+import com.warehouse.config.CacheConfig;
+import com.warehouse.config.DataSourceRouting;
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.imports.ImportResultDTO;
 import com.warehouse.dto.mapper.ProductMapper;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.page.PageDTO;
 import com.warehouse.dto.product.CreateProductDTO;
 import com.warehouse.dto.product.ResponseProductDTO;
 import com.warehouse.dto.product.UpdateProductDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.entity.Product;
+import com.warehouse.repository.CopyExportRepository;
+import com.warehouse.repository.CopyImportRepository;
+import com.warehouse.repository.CopyImportRepository.ProductRow;
 import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.ProductSpecifications;
+import com.warehouse.service.imports.CsvReader;
+import com.warehouse.service.imports.CsvRows;
+import com.warehouse.service.imports.ImportReport;
+import com.warehouse.service.search.NgramIndex;
+import com.warehouse.service.search.ProductNameIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of {@link ProductService} that provides CRUD and business operations
  * for managing products in the warehouse system.
+ * <p>
+ * Products by ID, products by category and the category list are read through the caches named in
+ * {@link CacheConfig}. Entries are loaded atomically per key, and the writes of this service evict
+ * exactly the entries they affect once they commit, so a load racing with a write never caches the old
+ * value. Entries are loaded from the primary, since a replica may not have replayed the write that
+ * evicted them yet.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Properties search results may be sorted by.
+     */
+    private static final Set<String> SEARCH_SORT_PROPERTIES = Set.of("id", "name", "price", "category", "weight");
+
+    private static final List<String> IMPORT_COLUMNS = List.of("name", "description", "price", "category", "weight");
+
+    private static final List<String> OPTIONAL_IMPORT_COLUMNS = List.of("id");
+
     private final ProductRepository productRepository;
+    private final CopyImportRepository copyImportRepository;
+    private final CopyExportRepository copyExportRepository;
     private final ProductMapper mapper;
+    private final Cache productCache;
+    private final Cache categoryCache;
+    private final Cache categoriesCache;
+    private final ProductNameIndex nameIndex;
 
     /**
      * Constructs a new {@code ProductServiceImpl} with the given product repository.
      *
-     * @param productRepository the repository used to access product data
+     * @param productRepository    the repository used to access product data
+     * @param copyImportRepository the repository used for CSV imports
+     * @param copyExportRepository the repository used for CSV exports
+     * @param cacheManager         the manager providing the product caches
+     * @param nameIndex            the in-memory index of product names
      */
-    public ProductServiceImpl(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductServiceImpl(ProductRepository productRepository, CopyImportRepository copyImportRepository,
+                              CopyExportRepository copyExportRepository, ProductMapper productMapper,
+                              CacheManager cacheManager, ProductNameIndex nameIndex) {
         this.productRepository = productRepository;
+        this.copyImportRepository = copyImportRepository;
+        this.copyExportRepository = copyExportRepository;
         this.mapper = productMapper;
+        this.productCache = transactionAware(cacheManager, CacheConfig.PRODUCTS);
+        this.categoryCache = transactionAware(cacheManager, CacheConfig.PRODUCTS_BY_CATEGORY);
+        this.categoriesCache = transactionAware(cacheManager, CacheConfig.PRODUCT_CATEGORIES);
+        this.nameIndex = nameIndex;
     }
 
     /**
@@ -38,21 +105,50 @@ public class ProductServiceImpl implements ProductService {
      * @return a list of all products
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseProductDTO> getAllProducts() {
         List<Product> products = productRepository.findAll();
         return mapper.toResponseDto(products);
     }
 
     /**
-     * Retrieves a product by its ID.
+     * Retrieves a page of products ordered by ID using a keyset query,
+     * so the cost of a page does not depend on its depth.
+     *
+     * @param after the ID of the last product of the previous page
+     * @param limit the maximum number of products to return
+     * @return the page of products and the cursor of the next page
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ResponseProductDTO> getProductPage(Long after, int limit) {
+        CursorPageDTO.checkLimit(limit);
+        List<Product> products = productRepository.findPageAfter(after, Limit.of(limit + 1));
+        return CursorPageDTO.of(mapper.toResponseDto(products), limit, ResponseProductDTO::id);
+    }
+
+    /**
+     * Retrieves a product by its ID, from the cache if present. Missing products are cached as well.
      *
      * @param id the ID of the product
      * @return an {@link Optional} containing the product if found, or empty if not found
      */
     @Override
     public Optional<ResponseProductDTO> getProductById(Long id) {
-        Optional<Product> product = productRepository.findById(id);
-        return product.map(mapper::toResponseDto);
+        return getCachedProduct(id).map(CachedProduct::product);
+    }
+
+    /**
+     * Retrieves the version of a product, from the same cache entry as {@link #getProductById}, so the
+     * version never describes a newer state than the product served with it.
+     *
+     * @param id the ID of the product
+     * @return an {@link Optional} containing the version tag, or empty if the product does not exist
+     */
+    @Override
+    public Optional<String> getProductVersion(Long id) {
+        return getCachedProduct(id).map(cached -> Long.toHexString(cached.version()));
     }
 
     /**
@@ -62,14 +158,66 @@ public class ProductServiceImpl implements ProductService {
      * @return the created product
      */
     @Override
+    @Transactional
     public ResponseProductDTO createProduct(CreateProductDTO productDTO) {
         Product product = mapper.toEntity(productDTO);
         Product saved = productRepository.save(product);
-        return mapper.toResponseDto(saved);
+        ResponseProductDTO created = mapper.toResponseDto(saved);
+        productCache.put(created.id(), new CachedProduct(created, saved.getVersion()));
+        nameIndex.put(created.id(), created.name());
+        evictCategory(created.category());
+        return created;
+    }
+
+    /**
+     * Creates or updates products from a CSV file with the columns {@code name}, {@code description},
+     * {@code price}, {@code category} and {@code weight}, and optionally {@code id}: rows without an ID
+     * create a product, rows with one update it. Rows are validated as they are read and streamed into
+     * the database with the COPY protocol, then merged in one transaction, so the file never has to be
+     * held in memory and a failure writes nothing.
+     * <p>
+     * Rows are rejected if they cannot be parsed, have a missing, oversized or negative value, name a
+     * product that does not exist, or are superseded by a later row for the same product. Once the
+     * import has committed, the product caches are cleared and the name index is rebuilt.
+     *
+     * @param csv the CSV text
+     * @return the numbers of rows read, written and rejected, and the first rejected lines
+     * @throws IllegalArgumentException if the header is missing or lacks a required column
+     * @throws IOException              if the CSV cannot be read
+     */
+    @Override
+    public ImportResultDTO importProducts(Reader csv) throws IOException {
+        ImportReport report = new ImportReport();
+        CopyImportRepository.Merged merged;
+        try (CsvReader reader = new CsvReader(csv)) {
+            reader.readHeader(IMPORT_COLUMNS, OPTIONAL_IMPORT_COLUMNS);
+            merged = copyImportRepository.importProducts(
+                    new CsvRows<>(reader, report, ProductServiceImpl::toImportRow), report::reject);
+        }
+        productCache.clear();
+        categoryCache.clear();
+        categoriesCache.clear();
+        nameIndex.rebuild();
+        return report.finish(merged.inserted(), merged.updated());
     }
 
     /**
-     * Updates an existing product identified by its ID.
+     * Writes products ordered by ID as CSV, streamed from the database with {@code COPY ... TO STDOUT},
+     * in a read-only transaction.
+     *
+     * @param category the category to export, or {@code null} for all products
+     * @param out      the stream the CSV is written to
+     * @return the number of products written
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(String category, OutputStream out) {
+        return copyExportRepository.exportProducts(category, out);
+    }
+
+    /**
+     * Updates an existing product identified by its ID. The product is read and written in one
+     * transaction, and the name index is updated once it commits.
      *
      * @param id         the ID of the product to update
      * @param productDTO the product data to update
@@ -77,9 +225,11 @@ public class ProductServiceImpl implements ProductService {
      * @throws RuntimeException if the product with the specified ID does not exist
      */
     @Override
+    @Transactional
     public ResponseProductDTO updateProduct(Long id, UpdateProductDTO productDTO) {
         Product existing = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Inventory not found: " + id));
+                .orElseThrow(() -> new RuntimeException("Product not found: " + id));
+        String previousCategory = existing.getCategory();
         Product product = mapper.toEntity(productDTO);
 
         existing.setName(product.getName());
@@ -88,8 +238,13 @@ public class ProductServiceImpl implements ProductService {
         existing.setCategory(product.getCategory());
         existing.setWeight(product.getWeight());
 
-        Product saved = productRepository.save(existing);
-        return mapper.toResponseDto(saved);
+        Product saved = productRepository.saveAndFlush(existing);
+        ResponseProductDTO updated = mapper.toResponseDto(saved);
+        productCache.evict(id);
+        nameIndex.put(id, updated.name());
+        evictCategory(previousCategory);
+        evictCategory(updated.category());
+        return updated;
     }
 
     /**
@@ -99,19 +254,24 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        productRepository.findById(id).ifPresent(product -> {
+            productRepository.delete(product);
+            productCache.evict(id);
+            nameIndex.remove(id);
+            evictCategory(product.getCategory());
+        });
     }
 
     /**
-     * Finds products by category.
+     * Finds products by category, from the cache if present.
      *
      * @param category the category to filter by
-     * @return a list of products in the specified category
+     * @return an unmodifiable list of products in the specified category
      */
     @Override
     public List<ResponseProductDTO> findProductsByCategory(String category) {
-        List<Product> products = productRepository.findByCategory(category);
-        return mapper.toResponseDto(products);
+        return categoryCache.get(category, () -> DataSourceRouting.onPrimary(
+                () -> List.copyOf(mapper.toResponseDto(productRepository.findByCategory(category)))));
     }
 
     /**
@@ -121,6 +281,7 @@ public class ProductServiceImpl implements ProductService {
      * @return a list of products whose names contain the specified string
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseProductDTO> findProductsByName(String name) {
         List<Product> products = productRepository.findByNameContainingIgnoreCase(name);
         return mapper.toResponseDto(products);
@@ -134,41 +295,117 @@ public class ProductServiceImpl implements ProductService {
      * @return a list of products within the price range
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseProductDTO> findProductsByPriceBetween(BigDecimal low, BigDecimal high) {
         List<Product> products = productRepository.findByPriceBetween(low, high);
         return mapper.toResponseDto(products);
     }
 
     /**
-     * Searches for products based on optional criteria: category, name, and price range.
-     * Only one criterion is applied at a time.
+     * Searches for products matching every given criterion: category, name substring, and price range.
+     * Criteria left {@code null} are not applied. The query is built from {@link ProductSpecifications}
+     * and fetches one slice, so no count over the matching rows is run. Results are ordered by the
+     * requested sort, then by ID so pages are stable.
      *
      * @param category the category to filter by (optional)
-     * @param name     the product name substring to filter by (optional)
-     * @param minPrice the minimum price (optional)
-     * @param maxPrice the maximum price (optional)
-     * @return a list of products matching the search criteria
-     * @throws RuntimeException if multiple or no criteria are provided (bad request)
+     * @param name     the product name substring to filter by, ignoring case (optional)
+     * @param minPrice the minimum price, inclusive (optional)
+     * @param maxPrice the maximum price, inclusive (optional)
+     * @param pageable the page number, page size, and sort
+     * @return the page of products matching the search criteria
+     * @throws RuntimeException if the page size, sort property, or price range is invalid (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageDTO<ResponseProductDTO> search(String category, String name, BigDecimal minPrice, BigDecimal maxPrice,
+                                              Pageable pageable) {
+        CursorPageDTO.checkLimit(pageable.getPageSize());
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0)
+            throw new RuntimeException("Bad Request");
+        for (Sort.Order order : pageable.getSort())
+            if (!SEARCH_SORT_PROPERTIES.contains(order.getProperty()))
+                throw new RuntimeException("Bad Request");
+
+        List<Specification<Product>> criteria = new ArrayList<>();
+        if (category != null)
+            criteria.add(ProductSpecifications.hasCategory(category));
+        if (name != null && !name.isEmpty())
+            criteria.add(ProductSpecifications.nameContains(name));
+        if (minPrice != null)
+            criteria.add(ProductSpecifications.priceAtLeast(minPrice));
+        if (maxPrice != null)
+            criteria.add(ProductSpecifications.priceAtMost(maxPrice));
+
+        Pageable ordered = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                pageable.getSort().and(Sort.by("id")));
+        Slice<Product> products = productRepository.findBy(Specification.allOf(criteria), query -> query.slice(ordered));
+        return PageDTO.of(products.map(mapper::toResponseDto));
+    }
+
+    /**
+     * Suggests products whose name contains the query, ignoring case, from the in-memory name index.
+     * Queries shorter than three characters only match name prefixes.
+     *
+     * @param query the substring typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to {@code limit} product IDs and names, best match first
+     * @throws RuntimeException if the limit is out of bounds (bad request)
      */
     @Override
-    public List<ResponseProductDTO> search(String category, String name, BigDecimal minPrice, BigDecimal maxPrice) {
-        if (category != null && name == null && minPrice == null && maxPrice == null)
-            return this.findProductsByCategory(category);
-        else if (category == null && name != null && minPrice == null && maxPrice == null)
-            return this.findProductsByName(name);
-        else if (category == null && name == null && minPrice != null && maxPrice != null)
-            return this.findProductsByPriceBetween(minPrice, maxPrice);
-        else
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        if (limit < 1 || limit > NgramIndex.MAX_LIMIT)
             throw new RuntimeException("Bad Request");
+        return nameIndex.search(query, limit);
     }
 
     /**
-     * Retrieves all distinct product categories.
+     * Retrieves all distinct product categories, from the cache if present.
      *
-     * @return a list of all product categories
+     * @return an unmodifiable list of all product categories
      */
     @Override
     public List<String> findAllCategories() {
-        return productRepository.getAllCategories();
+        return categoriesCache.get(CacheConfig.ALL,
+                () -> DataSourceRouting.onPrimary(() -> List.copyOf(productRepository.getAllCategories())));
     }
+
+    /**
+     * Evicts the cached product list of a category and the category list,
+     * which a product entering or leaving the category may change.
+     */
+    private void evictCategory(String category) {
+        if (category != null)
+            categoryCache.evict(category);
+        categoriesCache.evict(CacheConfig.ALL);
+    }
+
+    private static ProductRow toImportRow(CsvReader record) {
+        return new ProductRow(record.line(),
+                record.id("id"),
+                record.text("name", 100),
+                record.text("description", 512),
+                record.decimal("price", 10, 2),
+                record.text("category", 100),
+                record.decimal("weight", 10, 2));
+    }
+
+    /**
+     * Wraps a cache so that puts and evictions made in a transaction are applied once it commits; an
+     * eviction applied earlier would let a concurrent load cache the row as it was before the write.
+     */
+    private static Cache transactionAware(CacheManager cacheManager, String name) {
+        return new TransactionAwareCacheDecorator(Objects.requireNonNull(cacheManager.getCache(name)));
+    }
+
+    private Optional<CachedProduct> getCachedProduct(Long id) {
+        return Optional.ofNullable(productCache.get(id, () -> DataSourceRouting.onPrimary(
+                () -> productRepository.findById(id)
+                        .map(product -> new CachedProduct(mapper.toResponseDto(product), product.getVersion()))
+                        .orElse(null))));
+    }
+
+    /**
+     * A product as held in the product cache, with the version it was read at.
+     */
+    private record CachedProduct(ResponseProductDTO product, long version) {}
 }
@@ -1,13 +1,19 @@
 package com.warehouse.service;
 
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.dto.warehouse.CreateWarehouseDTO;
 import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
 import com.warehouse.dto.warehouse.UpdateWarehouseDTO;
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
 import com.warehouse.entity.Warehouse;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing {@link Warehouse} entities.
@@ -22,6 +28,42 @@ public interface WarehouseService {
      */
     List<ResponseWarehouseDTO> getAllWarehouses();
 
+    /**
+     * Retrieves a page of warehouses ordered by ID, starting after the given cursor.
+     *
+     * @param after the ID of the last warehouse of the previous page, or 0 for the first page
+     * @param limit the maximum number of warehouses to return
+     * @return the page of warehouses and the cursor of the next page
+     */
+    CursorPageDTO<ResponseWarehouseDTO> getWarehousePage(Long after, int limit);
+
+    /**
+     * Retrieves a page of warehouses ordered by ID, starting after the given cursor,
+     * loading only the selected relations.
+     *
+     * @param after     the ID of the last warehouse of the previous page, or 0 for the first page
+     * @param limit     the maximum number of warehouses to return
+     * @param selection the relations to load; relations not selected are {@code null}
+     * @return the page of warehouses and the cursor of the next page
+     */
+    CursorPageDTO<ResponseWarehouseDTO> getWarehousePage(Long after, int limit, FieldSelection selection);
+
+    /**
+     * Streams all warehouses with their inventories and products, one warehouse at a time,
+     * without holding the whole result in memory.
+     *
+     * @param consumer receives each warehouse as soon as all of its rows have been read
+     */
+    void exportWarehouses(Consumer<ResponseWarehouseDTO> consumer);
+
+    /**
+     * Writes all warehouses as CSV, without loading them as entities.
+     *
+     * @param out the stream the CSV is written to
+     * @return the number of warehouses written
+     */
+    long exportWarehouses(OutputStream out);
+
     /**
      * Retrieves a warehouse by its ID.
      *
@@ -30,6 +72,30 @@ public interface WarehouseService {
      */
     Optional<ResponseWarehouseDTO> getWarehouseById(Long id);
 
+    /**
+     * Retrieves a warehouse by its ID, loading only the selected relations.
+     *
+     * @param id        the ID of the warehouse
+     * @param selection the relations to load; relations not selected are {@code null}
+     * @return an {@link Optional} containing the warehouse if found, or empty if not found
+     */
+    Optional<ResponseWarehouseDTO> getWarehouseById(Long id, FieldSelection selection);
+
+    /**
+     * Retrieves the stock summary of every warehouse, computed by the database.
+     *
+     * @return the summaries ordered by warehouse ID
+     */
+    List<WarehouseSummaryDTO> getSummaries();
+
+    /**
+     * Retrieves the stock summary of a warehouse, computed by the database.
+     *
+     * @param id the ID of the warehouse
+     * @return an {@link Optional} containing the summary, or empty if not found
+     */
+    Optional<WarehouseSummaryDTO> getSummary(Long id);
+
     /**
      * Creates a new warehouse.
      *
@@ -79,4 +145,13 @@ public interface WarehouseService {
      * @return a list of warehouses matching the search criteria
      */
     List<ResponseWarehouseDTO> search(String name, BigDecimal minCapacity);
+
+    /**
+     * Suggests warehouses whose name contains the query, ignoring case.
+     *
+     * @param query the substring typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to {@code limit} warehouse IDs and names, best match first
+     */
+    List<SuggestionDTO> suggest(String query, int limit);
 }
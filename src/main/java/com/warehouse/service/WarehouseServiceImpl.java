@@ -1,35 +1,88 @@
 package com.warehouse.service;
 
+import com.warehouse.config.MetricsConfig;
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.inventory.MinimalInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.search.SuggestionDTO;
 import com.warehouse.dto.warehouse.CreateWarehouseDTO;
 import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
 import com.warehouse.dto.warehouse.UpdateWarehouseDTO;
-import com.warehouse.dto.mapper.WarehouseMapper;
+import com.warehouse.dto.warehouse.WarehouseExportRowDTO;
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
 import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.CopyExportRepository;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.InventoryRepository.StoredStock;
 import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.repository.WarehouseSpecifications;
+import com.warehouse.service.search.NgramIndex;
+import com.warehouse.service.search.WarehouseNameIndex;
+import com.warehouse.service.stock.StockEngine;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementation of {@link WarehouseService} that provides CRUD and business operations
  * for managing warehouses.
+ * <p>
+ * Quantities read from the database are overlaid with the ones the {@link StockEngine} holds but has
+ * not written yet, in embedded inventories and in summaries alike, so they match the inventory endpoints.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class WarehouseServiceImpl implements WarehouseService {
 
+    private static final Sort BY_ID = Sort.by("id");
+
+    /**
+     * Number of IDs bound per lookup of inventory records by ID, well below the bind parameter limit
+     * of the JDBC driver.
+     */
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final WarehouseRepository warehouseRepository;
+    private final InventoryRepository inventoryRepository;
+    private final CopyExportRepository copyExportRepository;
+    private final StockEngine stockEngine;
     private final WarehouseMapper mapper;
+    private final WarehouseNameIndex nameIndex;
 
     /**
      * Constructs a new {@code WarehouseServiceImpl} with the given warehouse repository.
      *
-     * @param warehouseRepository the repository used to access warehouse data
+     * @param warehouseRepository  the repository used to access warehouse data
+     * @param inventoryRepository  the repository used to read the stored stock of held quantities
+     * @param copyExportRepository the repository used for CSV exports
+     * @param stockEngine          the engine whose held quantities are overlaid on stored ones
+     * @param nameIndex            the in-memory index of warehouse names
      */
-    public WarehouseServiceImpl(WarehouseRepository warehouseRepository, WarehouseMapper warehouseMapper) {
+    public WarehouseServiceImpl(WarehouseRepository warehouseRepository, InventoryRepository inventoryRepository,
+                                CopyExportRepository copyExportRepository, StockEngine stockEngine,
+                                WarehouseMapper warehouseMapper, WarehouseNameIndex nameIndex) {
         this.warehouseRepository = warehouseRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.copyExportRepository = copyExportRepository;
+        this.stockEngine = stockEngine;
         this.mapper = warehouseMapper;
+        this.nameIndex = nameIndex;
     }
 
     /**
@@ -38,9 +91,97 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @return a list of all warehouses
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseWarehouseDTO> getAllWarehouses() {
         List<Warehouse> warehouses = warehouseRepository.findAll();
-        return mapper.toResponseDto(warehouses);
+        return withHeldQuantities(mapper.toResponseDto(warehouses));
+    }
+
+    /**
+     * Retrieves a page of warehouses ordered by ID, with their inventories and products.
+     *
+     * @param after the ID of the last warehouse of the previous page
+     * @param limit the maximum number of warehouses to return
+     * @return the page of warehouses and the cursor of the next page
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ResponseWarehouseDTO> getWarehousePage(Long after, int limit) {
+        return getWarehousePage(after, limit, FieldSelection.all(ResponseWarehouseDTO.RELATIONS));
+    }
+
+    /**
+     * Retrieves a page of warehouses ordered by ID, joining only the selected relations. Without
+     * inventories the page is one keyset query. With inventories it is selected with a keyset query
+     * on warehouse IDs first, and only those warehouses are then loaded with their inventories,
+     * since a collection fetch join cannot be limited in SQL.
+     *
+     * @param after     the ID of the last warehouse of the previous page
+     * @param limit     the maximum number of warehouses to return
+     * @param selection the relations to load
+     * @return the page of warehouses and the cursor of the next page
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ResponseWarehouseDTO> getWarehousePage(Long after, int limit, FieldSelection selection) {
+        CursorPageDTO.checkLimit(limit);
+        if (!selection.loads("inventories")) {
+            List<Warehouse> warehouses = warehouseRepository.findBy(WarehouseSpecifications.idAfter(after),
+                    query -> query.sortBy(BY_ID).limit(limit + 1).all());
+            return CursorPageDTO.of(mapper.toResponseDto(warehouses), limit, ResponseWarehouseDTO::id);
+        }
+        List<Long> ids = warehouseRepository.findIdsAfter(after, Limit.of(limit + 1));
+        Long nextCursor = ids.size() > limit ? ids.get(limit - 1) : null;
+        List<Long> pageIds = ids.subList(0, Math.min(ids.size(), limit));
+        if (pageIds.isEmpty())
+            return new CursorPageDTO<>(List.of(), null);
+        List<Warehouse> warehouses = warehouseRepository.findBy(WarehouseSpecifications.idIn(pageIds),
+                query -> query.project(selection.fetchPaths()).sortBy(BY_ID).all());
+        return new CursorPageDTO<>(withHeldQuantities(mapper.toResponseDto(warehouses)), nextCursor);
+    }
+
+    /**
+     * Streams all warehouses through a forward-only cursor. Rows arrive ordered by warehouse,
+     * so each warehouse is assembled from its contiguous rows, overlaid with the quantities the stock
+     * engine holds, and handed to the consumer before the next one is read.
+     *
+     * @param consumer receives each warehouse as soon as all of its rows have been read
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportWarehouses(Consumer<ResponseWarehouseDTO> consumer) {
+        try (Stream<WarehouseExportRowDTO> rows = warehouseRepository.streamExportRows()) {
+            Iterator<WarehouseExportRowDTO> iterator = rows.iterator();
+            WarehouseExportRowDTO current = null;
+            List<MinimalInventoryDTO> inventories = new ArrayList<>();
+            while (iterator.hasNext()) {
+                WarehouseExportRowDTO row = iterator.next();
+                if (current != null && !current.warehouseId().equals(row.warehouseId())) {
+                    consumer.accept(withHeldQuantities(toResponseDto(current, inventories)));
+                    inventories = new ArrayList<>();
+                }
+                current = row;
+                if (row.inventoryId() != null)
+                    inventories.add(toMinimalInventoryDto(row));
+            }
+            if (current != null)
+                consumer.accept(withHeldQuantities(toResponseDto(current, inventories)));
+        }
+    }
+
+    /**
+     * Writes all warehouses ordered by ID as CSV, streamed from the database with
+     * {@code COPY ... TO STDOUT}, in a read-only transaction.
+     *
+     * @param out the stream the CSV is written to
+     * @return the number of warehouses written
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportWarehouses(OutputStream out) {
+        return copyExportRepository.exportWarehouses(out);
     }
 
     /**
@@ -50,11 +191,50 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @return an {@link Optional} containing the warehouse if found, or empty if not found
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<ResponseWarehouseDTO> getWarehouseById(Long id) {
-        Optional<Warehouse> warehouse = warehouseRepository.findById(id);
-        Optional<ResponseWarehouseDTO> responseWarehouseDTO;
-        responseWarehouseDTO = warehouse.map(mapper::toResponseDto);
-        return responseWarehouseDTO;
+        return getWarehouseById(id, FieldSelection.all(ResponseWarehouseDTO.RELATIONS));
+    }
+
+    /**
+     * Retrieves a warehouse by its ID, joining only the selected relations.
+     *
+     * @param id        the ID of the warehouse
+     * @param selection the relations to load
+     * @return an {@link Optional} containing the warehouse if found, or empty if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ResponseWarehouseDTO> getWarehouseById(Long id, FieldSelection selection) {
+        List<Warehouse> warehouses = warehouseRepository.findBy(WarehouseSpecifications.hasId(id),
+                query -> query.project(selection.fetchPaths()).all());
+        return warehouses.stream().findFirst().map(mapper::toResponseDto).map(this::withHeldQuantities);
+    }
+
+    /**
+     * Retrieves the stock summary of every warehouse with one grouped aggregate query, corrected for
+     * the quantities the stock engine holds.
+     *
+     * @return the summaries ordered by warehouse ID
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WarehouseSummaryDTO> getSummaries() {
+        return withHeldQuantities(warehouseRepository.findSummaries(), null);
+    }
+
+    /**
+     * Retrieves the stock summary of a warehouse with one aggregate query, corrected for the quantities
+     * the stock engine holds.
+     *
+     * @param id the ID of the warehouse
+     * @return an {@link Optional} containing the summary, or empty if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<WarehouseSummaryDTO> getSummary(Long id) {
+        return warehouseRepository.findSummaryById(id)
+                .map(summary -> withHeldQuantities(List.of(summary), id).get(0));
     }
 
     /**
@@ -64,14 +244,17 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @return the created warehouse
      */
     @Override
+    @Transactional
     public ResponseWarehouseDTO createWarehouse(CreateWarehouseDTO warehouseDTO) {
         Warehouse warehouse = mapper.toEntity(warehouseDTO);
         Warehouse saved = warehouseRepository.save(warehouse);
+        nameIndex.put(saved.getId(), saved.getName());
         return mapper.toResponseDto(saved);
     }
 
     /**
-     * Updates an existing warehouse identified by its ID.
+     * Updates an existing warehouse identified by its ID. The warehouse is read and written in one
+     * transaction, and the name index is updated once it commits.
      *
      * @param id        the ID of the warehouse to update
      * @param warehouseDTO the updated warehouse data
@@ -79,6 +262,7 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @throws RuntimeException if the warehouse with the specified ID does not exist
      */
     @Override
+    @Transactional
     public ResponseWarehouseDTO updateWarehouse(Long id, UpdateWarehouseDTO warehouseDTO) {
         Warehouse existing = warehouseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Warehouse not found: " + id));
@@ -89,7 +273,8 @@ public class WarehouseServiceImpl implements WarehouseService {
         existing.setCapacity(warehouse.getCapacity());
         existing.setManagerName(warehouse.getManagerName());
 
-        Warehouse saved = warehouseRepository.save(existing);
+        Warehouse saved = warehouseRepository.saveAndFlush(existing);
+        nameIndex.put(saved.getId(), saved.getName());
         return mapper.toResponseDto(saved);
     }
 
@@ -101,6 +286,7 @@ public class WarehouseServiceImpl implements WarehouseService {
     @Override
     public void deleteWarehouse(Long id) {
         warehouseRepository.deleteById(id);
+        nameIndex.remove(id);
     }
 
     /**
@@ -110,9 +296,10 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @return a list of warehouses matching the name criteria
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseWarehouseDTO> findWarehousesByName(String name) {
         List<Warehouse> warehouses = warehouseRepository.findByNameContainingIgnoreCase(name);
-        return mapper.toResponseDto(warehouses);
+        return withHeldQuantities(mapper.toResponseDto(warehouses));
     }
 
     /**
@@ -122,9 +309,10 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @return a list of warehouses with capacity greater than the specified amount
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseWarehouseDTO> findWarehousesByCapacity(BigDecimal minCapacity) {
         List<Warehouse> warehouses = warehouseRepository.findByCapacityGreaterThan(minCapacity);
-        return mapper.toResponseDto(warehouses);
+        return withHeldQuantities(mapper.toResponseDto(warehouses));
     }
 
     /**
@@ -137,6 +325,7 @@ public class WarehouseServiceImpl implements WarehouseService {
      * @throws RuntimeException if both or none of the parameters are provided
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ResponseWarehouseDTO> search(String name, BigDecimal minCapacity) {
         if (name != null && minCapacity == null)
             return this.findWarehousesByName(name);
@@ -145,4 +334,123 @@ public class WarehouseServiceImpl implements WarehouseService {
         else
             throw new RuntimeException("Bad Request");
     }
+
+    /**
+     * Suggests warehouses whose name contains the query, ignoring case, from the in-memory name index.
+     * Queries shorter than three characters only match name prefixes.
+     *
+     * @param query the substring typed so far
+     * @param limit the maximum number of suggestions
+     * @return up to {@code limit} warehouse IDs and names, best match first
+     * @throws RuntimeException if the limit is out of bounds (bad request)
+     */
+    @Override
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        if (limit < 1 || limit > NgramIndex.MAX_LIMIT)
+            throw new RuntimeException("Bad Request");
+        return nameIndex.search(query, limit);
+    }
+
+    private ResponseWarehouseDTO withHeldQuantities(ResponseWarehouseDTO warehouse) {
+        return withHeldQuantities(List.of(warehouse)).get(0);
+    }
+
+    /**
+     * Replaces the quantities of the embedded inventories with the ones held by the stock engine,
+     * which may not have been written to the inventory table yet.
+     */
+    private List<ResponseWarehouseDTO> withHeldQuantities(List<ResponseWarehouseDTO> warehouses) {
+        List<Long> ids = new ArrayList<>();
+        for (ResponseWarehouseDTO warehouse : warehouses)
+            if (warehouse.inventories() != null)
+                for (MinimalInventoryDTO inventory : warehouse.inventories())
+                    ids.add(inventory.id());
+        if (ids.isEmpty())
+            return warehouses;
+        Map<Long, Integer> held = stockEngine.heldQuantities(ids);
+        if (held.isEmpty())
+            return warehouses;
+        List<ResponseWarehouseDTO> result = new ArrayList<>(warehouses.size());
+        for (ResponseWarehouseDTO warehouse : warehouses) {
+            if (warehouse.inventories() == null) {
+                result.add(warehouse);
+                continue;
+            }
+            List<MinimalInventoryDTO> inventories = new ArrayList<>(warehouse.inventories().size());
+            for (MinimalInventoryDTO inventory : warehouse.inventories()) {
+                Integer quantity = held.get(inventory.id());
+                inventories.add(quantity == null || quantity == inventory.quantity() ? inventory
+                        : new MinimalInventoryDTO(inventory.id(), quantity, inventory.minStock(),
+                                inventory.maxStock(), inventory.product()));
+            }
+            result.add(new ResponseWarehouseDTO(warehouse.id(), warehouse.name(), warehouse.address(),
+                    warehouse.capacity(), warehouse.managerName(), inventories));
+        }
+        return result;
+    }
+
+    /**
+     * Corrects the aggregates of the summaries with the difference between the quantities held by the
+     * stock engine and the stored ones, which are read in chunks of {@value #LOOKUP_CHUNK_SIZE}.
+     *
+     * @param warehouseId the only warehouse summarized, or {@code null} for all warehouses
+     */
+    private List<WarehouseSummaryDTO> withHeldQuantities(List<WarehouseSummaryDTO> summaries, Long warehouseId) {
+        Map<Long, StockLevelDTO> held = new HashMap<>();
+        for (StockLevelDTO level : stockEngine.heldStockLevels())
+            if (warehouseId == null || warehouseId.equals(level.warehouseId()))
+                held.put(level.id(), level);
+        if (held.isEmpty())
+            return summaries;
+
+        Map<Long, SummaryCorrection> corrections = new HashMap<>();
+        List<Long> ids = new ArrayList<>(held.keySet());
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            for (StoredStock stored : inventoryRepository.findStoredStockByIdIn(
+                    ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE)))) {
+                int quantity = held.get(stored.getId()).quantity();
+                if (quantity != stored.getQuantity())
+                    corrections.computeIfAbsent(stored.getWarehouseId(), id -> new SummaryCorrection())
+                            .add(stored, quantity);
+            }
+        }
+        if (corrections.isEmpty())
+            return summaries;
+
+        List<WarehouseSummaryDTO> result = new ArrayList<>(summaries.size());
+        for (WarehouseSummaryDTO summary : summaries) {
+            SummaryCorrection correction = corrections.get(summary.id());
+            result.add(correction == null ? summary : new WarehouseSummaryDTO(summary.id(), summary.name(),
+                    summary.capacity(), summary.skuCount(), summary.totalUnits() + correction.units,
+                    summary.lowStockCount() + correction.lowStock, summary.totalWeight().add(correction.weight)));
+        }
+        return result;
+    }
+
+    private static ResponseWarehouseDTO toResponseDto(WarehouseExportRowDTO row, List<MinimalInventoryDTO> inventories) {
+        return new ResponseWarehouseDTO(row.warehouseId(), row.warehouseName(), row.address(),
+                row.capacity(), row.managerName(), inventories);
+    }
+
+    private static MinimalInventoryDTO toMinimalInventoryDto(WarehouseExportRowDTO row) {
+        ResponseProductDTO product = new ResponseProductDTO(row.productId(), row.productName(),
+                row.description(), row.price(), row.category(), row.weight());
+        return new MinimalInventoryDTO(row.inventoryId(), row.quantity(), row.minStock(), row.maxStock(), product);
+    }
+
+    /**
+     * Differences between the held and the stored stock of the inventory records of one warehouse.
+     */
+    private static final class SummaryCorrection {
+        private long units;
+        private long lowStock;
+        private BigDecimal weight = BigDecimal.ZERO;
+
+        private void add(StoredStock stored, int quantity) {
+            units += quantity - stored.getQuantity();
+            lowStock += (quantity < stored.getMinStock() ? 1 : 0) - (stored.getQuantity() < stored.getMinStock() ? 1 : 0);
+            if (stored.getWeight() != null)
+                weight = weight.add(stored.getWeight().multiply(BigDecimal.valueOf(quantity - stored.getQuantity())));
+        }
+    }
 }
@@ -0,0 +1,330 @@
+package com.warehouse.service.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader of RFC 4180 CSV: comma-separated fields, optionally enclosed in double quotes,
+ * with doubled quotes escaping a quote and quoted fields spanning line breaks. Records are read one
+ * at a time into a reused buffer, so a file of any size is read in constant memory.
+ * <p>
+ * The first record is the header. Its column names are matched case-insensitively and columns the
+ * caller does not ask for are ignored, so a file exported with extra columns can be imported as is.
+ * Blank lines are skipped. A record that cannot be parsed or has a different number of fields than
+ * the header is still returned, with {@link #problem()} describing it, so the caller can reject it
+ * and carry on with the next line.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private final Map<String, Integer> columns = new HashMap<>();
+    private int width = -1;
+    private long nextLine = 1;
+    private long line;
+    private String problem;
+
+    /**
+     * Constructs a CsvReader.
+     *
+     * @param reader the CSV text
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the header record.
+     *
+     * @param required the columns that must be present
+     * @param optional the columns that may be present
+     * @throws IllegalArgumentException if the input is empty, the header cannot be parsed,
+     *                                  or a required column is missing
+     * @throws IOException              if the input cannot be read
+     */
+    public void readHeader(List<String> required, List<String> optional) throws IOException {
+        if (!next())
+            throw new IllegalArgumentException("The CSV header is missing.");
+        if (problem != null)
+            throw new IllegalArgumentException("Malformed CSV header: " + problem);
+        List<String> wanted = new ArrayList<>(required);
+        wanted.addAll(optional);
+        for (int i = 0; i < fields.size(); i++) {
+            String name = fields.get(i).strip().toLowerCase(Locale.ROOT);
+            if (wanted.contains(name) && columns.putIfAbsent(name, i) != null)
+                throw new IllegalArgumentException("Duplicate CSV column: " + name);
+        }
+        for (String name : required)
+            if (!columns.containsKey(name))
+                throw new IllegalArgumentException("Missing CSV column: " + name);
+        width = fields.size();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return {@code true} if a record was read, {@code false} at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    public boolean next() throws IOException {
+        do {
+            fields.clear();
+            problem = null;
+            line = nextLine;
+            int c = read();
+            if (c == -1)
+                return false;
+            boolean blank = c == '\r' || c == '\n';
+            if (!blank)
+                readRecord(c);
+            else
+                endLine(c);
+        } while (fields.isEmpty());
+        if (problem == null && width >= 0 && fields.size() != width)
+            problem = "Expected " + width + " fields, found " + fields.size() + ".";
+        return true;
+    }
+
+    /**
+     * Returns the line number the current record starts on, counting from 1.
+     *
+     * @return the line number
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Returns why the current record cannot be used, if it cannot.
+     *
+     * @return the problem, or {@code null} if the record is well-formed
+     */
+    public String problem() {
+        return problem;
+    }
+
+    /**
+     * Returns whether the header has a column.
+     *
+     * @param column the column name, in lower case
+     * @return {@code true} if the column is present
+     */
+    public boolean hasColumn(String column) {
+        return columns.containsKey(column);
+    }
+
+    /**
+     * Returns a field of the current record as read.
+     *
+     * @param column the column name, in lower case
+     * @return the field, or {@code null} if the header has no such column
+     */
+    public String get(String column) {
+        Integer index = columns.get(column);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Returns a required text field.
+     *
+     * @param column    the column name
+     * @param maxLength the maximum length
+     * @return the field
+     * @throws IllegalArgumentException if the field is blank, too long or contains a NUL character
+     */
+    public String text(String column, int maxLength) {
+        String value = get(column);
+        if (value == null || value.isBlank())
+            throw new IllegalArgumentException("Column " + column + " is required.");
+        if (value.indexOf('\0') >= 0)
+            throw new IllegalArgumentException("Column " + column + " contains a NUL character.");
+        if (value.length() > maxLength)
+            throw new IllegalArgumentException("Column " + column + " is longer than " + maxLength + " characters.");
+        return value;
+    }
+
+    /**
+     * Returns an ID field, which may be absent.
+     *
+     * @param column the column name
+     * @return the ID, or {@code null} if the column is absent or empty
+     * @throws IllegalArgumentException if the field is not a positive integer
+     */
+    public Long id(String column) {
+        String value = get(column);
+        if (value == null || value.isBlank())
+            return null;
+        try {
+            long id = Long.parseLong(value.strip());
+            if (id > 0)
+                return id;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Column " + column + " is not a valid ID.");
+    }
+
+    /**
+     * Returns a required ID field.
+     *
+     * @param column the column name
+     * @return the ID
+     * @throws IllegalArgumentException if the field is empty or not a positive integer
+     */
+    public long requiredId(String column) {
+        Long id = id(column);
+        if (id == null)
+            throw new IllegalArgumentException("Column " + column + " is required.");
+        return id;
+    }
+
+    /**
+     * Returns a required non-negative integer field.
+     *
+     * @param column the column name
+     * @return the value
+     * @throws IllegalArgumentException if the field is empty, not an integer or negative
+     */
+    public int count(String column) {
+        String value = get(column);
+        if (value == null || value.isBlank())
+            throw new IllegalArgumentException("Column " + column + " is required.");
+        int count;
+        try {
+            count = Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Column " + column + " is not an integer.");
+        }
+        if (count < 0)
+            throw new IllegalArgumentException("Column " + column + " cannot be negative.");
+        return count;
+    }
+
+    /**
+     * Returns a required non-negative decimal field that fits a {@code DECIMAL(precision, scale)} column.
+     *
+     * @param column    the column name
+     * @param precision the maximum number of digits
+     * @param scale     the maximum number of digits after the decimal point
+     * @return the value
+     * @throws IllegalArgumentException if the field is empty, not a number, negative or out of range
+     */
+    public BigDecimal decimal(String column, int precision, int scale) {
+        String value = get(column);
+        if (value == null || value.isBlank())
+            throw new IllegalArgumentException("Column " + column + " is required.");
+        BigDecimal decimal;
+        try {
+            decimal = new BigDecimal(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Column " + column + " is not a number.");
+        }
+        if (decimal.signum() < 0)
+            throw new IllegalArgumentException("Column " + column + " cannot be negative.");
+        BigDecimal digits = decimal.stripTrailingZeros();
+        if (digits.scale() > scale || digits.precision() - digits.scale() > precision - scale)
+            throw new IllegalArgumentException("Column " + column + " does not fit DECIMAL(" + precision + "," + scale + ").");
+        return decimal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readRecord(int c) throws IOException {
+        while (true) {
+            field.setLength(0);
+            if (c == '"')
+                c = readQuoted();
+            else
+                c = readUnquoted(c);
+            fields.add(field.toString());
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c != -1)
+                endLine(c);
+            return;
+        }
+    }
+
+    /**
+     * Reads an unquoted field starting with {@code c} and returns the character that ended it.
+     */
+    private int readUnquoted(int c) throws IOException {
+        while (c != ',' && c != '\r' && c != '\n' && c != -1) {
+            field.append((char) c);
+            c = read();
+        }
+        return c;
+    }
+
+    /**
+     * Reads a quoted field after its opening quote and returns the character following the closing quote.
+     * Text between the closing quote and the next delimiter is dropped and reported as a problem.
+     */
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                problem = "Unterminated quoted field.";
+                return c;
+            }
+            if (c == '"') {
+                c = read();
+                if (c != '"') {
+                    if (c == ',' || c == '\r' || c == '\n' || c == -1)
+                        return c;
+                    problem = "Unexpected text after a closing quote.";
+                    field.setLength(0);
+                    return readUnquoted(c);
+                }
+            } else if (c == '\n' || c == '\r' && peek() != '\n') {
+                nextLine++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private void endLine(int c) throws IOException {
+        if (c == '\r' && peek() == '\n')
+            read();
+        nextLine++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill())
+            return -1;
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0)
+            return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.warehouse.service.imports;
+
+import com.warehouse.dto.imports.RejectedLineDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator over the valid rows of a CSV file, converting each record as it is read and reporting the
+ * records that fail to parse or convert to an {@link ImportReport} instead of returning them.
+ *
+ * @param <T> the row type
+ */
+public class CsvRows<T> implements Iterator<T> {
+
+    private final CsvReader reader;
+    private final ImportReport report;
+    private final Function<CsvReader, T> converter;
+    private T next;
+
+    /**
+     * Constructs a CsvRows over a reader whose header has been read.
+     *
+     * @param reader    the reader
+     * @param report    the report rows are counted and rejected in
+     * @param converter converts the current record of the reader into a row, throwing an
+     *                  {@link IllegalArgumentException} with the reason if it is invalid
+     */
+    public CsvRows(CsvReader reader, ImportReport report, Function<CsvReader, T> converter) {
+        this.reader = reader;
+        this.report = report;
+        this.converter = converter;
+    }
+
+    /**
+     * Reads ahead to the next valid row.
+     *
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null && reader.next()) {
+                report.row();
+                if (reader.problem() != null) {
+                    report.reject(new RejectedLineDTO(reader.line(), reader.problem()));
+                    continue;
+                }
+                try {
+                    next = converter.apply(reader);
+                } catch (IllegalArgumentException e) {
+                    report.reject(new RejectedLineDTO(reader.line(), e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        T row = next;
+        next = null;
+        return row;
+    }
+}
@@ -0,0 +1,64 @@
+package com.warehouse.service.imports;
+
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.imports.RejectedLineDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tally of a running CSV import. Every rejected line is counted, but only the first
+ * {@link #MAX_REJECTED_LINES} by line number are kept, since lines are rejected both while the file
+ * is read and when it is merged.
+ */
+public class ImportReport {
+
+    /**
+     * Maximum number of rejected lines listed in the result.
+     */
+    public static final int MAX_REJECTED_LINES = 100;
+
+    private final long startNanos = System.nanoTime();
+    private final PriorityQueue<RejectedLineDTO> rejectedLines =
+            new PriorityQueue<>(Comparator.comparingLong(RejectedLineDTO::line).reversed());
+    private long rows;
+    private long rejected;
+
+    /**
+     * Counts a data row read from the file.
+     */
+    public void row() {
+        rows++;
+    }
+
+    /**
+     * Counts a rejected line.
+     *
+     * @param line the rejected line
+     */
+    public void reject(RejectedLineDTO line) {
+        rejected++;
+        rejectedLines.add(line);
+        if (rejectedLines.size() > MAX_REJECTED_LINES)
+            rejectedLines.poll();
+    }
+
+    /**
+     * Builds the result of the import.
+     *
+     * @param inserted the number of records created
+     * @param updated  the number of records updated
+     * @return the result
+     */
+    public ImportResultDTO finish(long inserted, long updated) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        List<RejectedLineDTO> lines = new ArrayList<>(rejectedLines);
+        lines.sort(Comparator.comparingLong(RejectedLineDTO::line));
+        return new ImportResultDTO(rows, inserted, updated, rejected, lines,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+    }
+}
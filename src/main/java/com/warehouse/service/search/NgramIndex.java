@@ -0,0 +1,344 @@
+package com.warehouse.service.search;
+
+import com.warehouse.dto.search.SuggestionDTO;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted trigram index over entity names, answering case-insensitive substring and
+ * prefix queries without touching the database.
+ * <p>
+ * Every name is lower-cased and split into overlapping trigrams, padded with two start markers so
+ * that the first characters of a name form trigrams of their own. Each trigram maps to the sorted
+ * document numbers of the names containing it. A query of three or more characters intersects the
+ * postings of its trigrams, starting with the shortest, and verifies the survivors with a plain
+ * substring check. Shorter queries can only be matched as name prefixes, through the padded
+ * trigrams. Matches are ranked exact match first, then name prefix, then word prefix, then any
+ * substring, and within a rank by shorter name, name, and ID.
+ * <p>
+ * Reads and incremental writes are guarded by a read-write lock. {@link #rebuild} loads a fresh
+ * index without holding the lock and replays the writes that happened meanwhile before swapping it in.
+ * <p>
+ * Like a {@link org.springframework.cache.transaction.TransactionAwareCacheDecorator}, the index applies
+ * writes made in a transaction only once it commits, so a rolled-back write is never applied and a write
+ * is never applied before a rebuild's read could see the row it describes.
+ */
+public class NgramIndex {
+
+    /**
+     * Maximum number of results a single query may ask for.
+     */
+    public static final int MAX_LIMIT = 100;
+
+    private static final char START = '\u0002';
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Documents documents = new Documents();
+    private List<Consumer<Documents>> pendingWrites;
+
+    /**
+     * Adds or replaces the name of an entity, after the current transaction commits if there is one.
+     *
+     * @param id   the ID of the entity
+     * @param name its name
+     */
+    public void put(Long id, String name) {
+        write(documents -> documents.put(id, name));
+    }
+
+    /**
+     * Removes an entity from the index, after the current transaction commits if there is one.
+     *
+     * @param id the ID of the entity
+     */
+    public void remove(Long id) {
+        write(documents -> documents.remove(id));
+    }
+
+    /**
+     * Returns the best-ranked entities whose name contains the query, ignoring case. Queries shorter
+     * than three characters only match names starting with them.
+     *
+     * @param query the substring to search for
+     * @param limit the maximum number of results
+     * @return up to {@code limit} matches, best first
+     */
+    public List<SuggestionDTO> search(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty() || limit < 1)
+            return List.of();
+        lock.readLock().lock();
+        try {
+            return documents.search(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed entities.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.docById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the index with the entities produced by a loader. Writes made while the loader runs
+     * are applied to the new index as well. If the loader fails, the current index is kept.
+     *
+     * @param loader passes every (ID, name) pair of the entities to index to the given consumer
+     */
+    public synchronized void rebuild(Consumer<BiConsumer<Long, String>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Documents rebuilt = new Documents();
+        boolean loaded = false;
+        try {
+            loader.accept(rebuilt::put);
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    for (Consumer<Documents> write : pendingWrites)
+                        write.accept(rebuilt);
+                    documents = rebuilt;
+                }
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void write(Consumer<Documents> write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(write);
+                }
+            });
+        } else {
+            apply(write);
+        }
+    }
+
+    private void apply(Consumer<Documents> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(documents);
+            if (pendingWrites != null)
+                pendingWrites.add(write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long gram(CharSequence text, int from) {
+        return ((long) text.charAt(from) << 32) | ((long) text.charAt(from + 1) << 16) | text.charAt(from + 2);
+    }
+
+    /**
+     * Trigrams of a name as stored in the index, including the padded leading ones.
+     */
+    private static Set<Long> indexGrams(String key) {
+        String padded = "" + START + START + key;
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++)
+            grams.add(gram(padded, i));
+        return grams;
+    }
+
+    /**
+     * Trigrams every name matching the query must contain.
+     */
+    private static Set<Long> queryGrams(String key) {
+        if (key.length() < 3) {
+            String padded = (key.length() == 1 ? "" + START + START : "" + START) + key;
+            return Set.of(gram(padded, 0));
+        }
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= key.length(); i++)
+            grams.add(gram(key, i));
+        return grams;
+    }
+
+    /**
+     * Rank of a verified match, lower is better.
+     */
+    private static int rank(String name, String key) {
+        if (name.equals(key))
+            return 0;
+        if (name.startsWith(key))
+            return 1;
+        for (int at = name.indexOf(key); at >= 0; at = name.indexOf(key, at + 1))
+            if (!Character.isLetterOrDigit(name.charAt(at - 1)))
+                return 2;
+        return 3;
+    }
+
+    private record Match(int doc, int rank, String key, long id, String name) {}
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.key().length())
+            .thenComparing(Match::key)
+            .thenComparingLong(Match::id);
+
+    /**
+     * The indexed names and their postings. Document numbers are assigned in insertion order and
+     * kept when a name is replaced; numbers of removed entities are not reused until the next rebuild.
+     */
+    private static final class Documents {
+        private final Map<Long, Integer> docById = new HashMap<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private long[] ids = new long[1024];
+        private String[] names = new String[1024];
+        private String[] keys = new String[1024];
+        private int next;
+
+        private void put(Long id, String name) {
+            String key = normalize(name);
+            Integer existing = docById.get(id);
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                if (keys[doc].equals(key)) {
+                    names[doc] = name;
+                    return;
+                }
+                unindex(doc);
+            } else {
+                doc = next++;
+                if (doc == ids.length) {
+                    ids = Arrays.copyOf(ids, doc * 2);
+                    names = Arrays.copyOf(names, doc * 2);
+                    keys = Arrays.copyOf(keys, doc * 2);
+                }
+                ids[doc] = id;
+                docById.put(id, doc);
+            }
+            names[doc] = name;
+            keys[doc] = key.equals(name) ? name : key;
+            for (Long gram : indexGrams(key))
+                postings.computeIfAbsent(gram, g -> new Postings()).add(doc);
+        }
+
+        private void remove(Long id) {
+            Integer doc = docById.remove(id);
+            if (doc == null)
+                return;
+            unindex(doc);
+            names[doc] = null;
+            keys[doc] = null;
+        }
+
+        private void unindex(int doc) {
+            for (Long gram : indexGrams(keys[doc])) {
+                Postings docs = postings.get(gram);
+                if (docs != null && docs.remove(doc) && docs.size == 0)
+                    postings.remove(gram);
+            }
+        }
+
+        private List<SuggestionDTO> search(String key, int limit) {
+            Set<Long> grams = queryGrams(key);
+            Postings[] lists = new Postings[grams.size()];
+            int n = 0;
+            for (Long gram : grams) {
+                Postings docs = postings.get(gram);
+                if (docs == null)
+                    return List.of();
+                lists[n++] = docs;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(docs -> docs.size));
+
+            boolean prefixOnly = key.length() < 3;
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+            Postings shortest = lists[0];
+            candidates:
+            for (int i = 0; i < shortest.size; i++) {
+                int doc = shortest.docs[i];
+                for (int l = 1; l < lists.length; l++)
+                    if (!lists[l].contains(doc))
+                        continue candidates;
+                String name = keys[doc];
+                if (prefixOnly ? !name.startsWith(key) : !name.contains(key))
+                    continue;
+                best.add(new Match(doc, rank(name, key), name, ids[doc], names[doc]));
+                if (best.size() > limit)
+                    best.poll();
+            }
+
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(BEST_FIRST);
+            List<SuggestionDTO> result = new ArrayList<>(matches.size());
+            for (Match match : matches)
+                result.add(new SuggestionDTO(match.id(), match.name()));
+            return result;
+        }
+    }
+
+    /**
+     * Sorted, growable array of document numbers. New documents have the highest number,
+     * so adding them appends.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        private void add(int doc) {
+            int at = size == 0 || docs[size - 1] < doc ? size : Arrays.binarySearch(docs, 0, size, doc);
+            if (at >= 0 && at < size)
+                return;
+            int insertAt = at < 0 ? -at - 1 : at;
+            if (size == docs.length)
+                docs = Arrays.copyOf(docs, size * 2);
+            System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+            docs[insertAt] = doc;
+            size++;
+        }
+
+        private boolean remove(int doc) {
+            int at = Arrays.binarySearch(docs, 0, size, doc);
+            if (at < 0)
+                return false;
+            System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        private boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.warehouse.service.search;
+
+import com.warehouse.config.DataSourceRouting;
+import com.warehouse.dto.search.SuggestionDTO;
+import com.warehouse.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * {@link NgramIndex} over {@link com.warehouse.entity.Product} names, loaded once the application is ready
+ * and kept up to date by the product service.
+ */
+@Component
+public class ProductNameIndex extends NgramIndex {
+
+    private final ProductRepository productRepository;
+
+    /**
+     * Constructs a ProductNameIndex.
+     *
+     * @param productRepository repository used to load the product names
+     */
+    public ProductNameIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Rebuilds the index from every product in the database. The names are read from the primary, so that
+     * writes applied to the index before the rebuild are not lost to a lagging replica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuild(index -> {
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.pinToPrimary();
+                 Stream<SuggestionDTO> names = productRepository.streamNames()) {
+                names.forEach(name -> index.accept(name.id(), name.name()));
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.warehouse.service.search;
+
+import com.warehouse.config.DataSourceRouting;
+import com.warehouse.dto.search.SuggestionDTO;
+import com.warehouse.repository.WarehouseRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * {@link NgramIndex} over {@link com.warehouse.entity.Warehouse} names, loaded once the application is ready
+ * and kept up to date by the warehouse service.
+ */
+@Component
+public class WarehouseNameIndex extends NgramIndex {
+
+    private final WarehouseRepository warehouseRepository;
+
+    /**
+     * Constructs a WarehouseNameIndex.
+     *
+     * @param warehouseRepository repository used to load the warehouse names
+     */
+    public WarehouseNameIndex(WarehouseRepository warehouseRepository) {
+        this.warehouseRepository = warehouseRepository;
+    }
+
+    /**
+     * Rebuilds the index from every warehouse in the database. The names are read from the primary, so that
+     * writes applied to the index before the rebuild are not lost to a lagging replica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        rebuild(index -> {
+            try (DataSourceRouting.Scope ignored = DataSourceRouting.pinToPrimary();
+                 Stream<SuggestionDTO> names = warehouseRepository.streamNames()) {
+                names.forEach(name -> index.accept(name.id(), name.name()));
+            }
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.MovementType;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.InventoryBulkRepository;
+import com.warehouse.repository.InventoryRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Default {@link StockEngine} that reads and updates quantities directly in the {@code inventory} table,
+ * each delta as a single conditional update.
+ */
+@Component
+@ConditionalOnProperty(name = "warehouse.stock-engine.mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseStockEngine implements StockEngine {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBulkRepository inventoryBulkRepository;
+
+    /**
+     * Constructs a DatabaseStockEngine with the given {@code InventoryRepository}.
+     *
+     * @param inventoryRepository     repository for inventory persistence operations
+     * @param inventoryBulkRepository repository for set-based quantity updates
+     */
+    public DatabaseStockEngine(InventoryRepository inventoryRepository,
+                               InventoryBulkRepository inventoryBulkRepository) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryBulkRepository = inventoryBulkRepository;
+    }
+
+    /**
+     * Retrieves the stock level of an inventory record from the database.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the stock level, or empty if the record does not exist
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long id) {
+        return inventoryRepository.findStockLevelById(id);
+    }
+
+    /**
+     * Retrieves the stock level of a product in a warehouse from the database.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return an {@link Optional} containing the stock level, or empty if there is no such record
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId) {
+        return inventoryRepository.findStockLevel(warehouseId, productId);
+    }
+
+    /**
+     * Adds a delta to the quantity of an inventory record with a single conditional update,
+     * so concurrent adjustments of the same record are never lost.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the inventory with given ID is not found
+     */
+    @Override
+    public StockLevelDTO adjust(Long id, int delta, boolean allowNegative) {
+        return inventoryRepository.adjustQuantity(id, delta, allowNegative)
+                .orElseThrow(() -> inventoryRepository.existsById(id)
+                        ? new InsufficientStockException("Insufficient stock in inventory: " + id)
+                        : new RuntimeException("Inventory not found: " + id));
+    }
+
+    /**
+     * Adds a delta to the quantity of a product in a warehouse with a single conditional update,
+     * so concurrent adjustments are never lost.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the product has no inventory record in the warehouse
+     */
+    @Override
+    public StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative) {
+        return inventoryRepository.adjustQuantity(warehouseId, productId, delta, allowNegative)
+                .orElseThrow(() -> inventoryRepository.existsByWarehouseIdAndProductId(warehouseId, productId)
+                        ? new InsufficientStockException("Insufficient stock of product " + productId
+                                + " in warehouse: " + warehouseId)
+                        : new RuntimeException("Inventory not found for product " + productId
+                                + " in warehouse: " + warehouseId));
+    }
+
+    /**
+     * Locks the inventory records with {@code SELECT ... ORDER BY id FOR UPDATE}, checks every resulting
+     * quantity, and adds all deltas in one update. Runs in the caller's transaction, or in its own.
+     *
+     * @param deltas    the delta of each inventory record by ID
+     * @param type      ignored, no history is kept
+     * @param reference ignored, no history is kept
+     * @return the new stock level of each record by ID
+     * @throws InsufficientStockException if a delta would take a quantity below zero
+     * @throws RuntimeException if an inventory record does not exist
+     */
+    @Override
+    @Transactional
+    public Map<Long, StockLevelDTO> adjustAll(Map<Long, Integer> deltas, MovementType type, String reference) {
+        List<StockLevelDTO> locked = inventoryBulkRepository.lockStockLevels(deltas.keySet());
+        Map<Long, StockLevelDTO> adjusted = new LinkedHashMap<>();
+        for (StockLevelDTO level : locked) {
+            int delta = deltas.get(level.id());
+            int quantity = level.quantity() + delta;
+            if (delta < 0 && quantity < 0)
+                throw new InsufficientStockException("Insufficient stock in inventory: " + level.id());
+            adjusted.put(level.id(), new StockLevelDTO(level.id(), level.warehouseId(), level.productId(),
+                    quantity, level.minStock()));
+        }
+        for (Long id : deltas.keySet())
+            if (!adjusted.containsKey(id))
+                throw new RuntimeException("Inventory not found: " + id);
+        inventoryBulkRepository.addQuantities(deltas);
+        return adjusted;
+    }
+
+    /**
+     * The database always holds the current quantity.
+     *
+     * @param id the ID of the inventory record
+     * @return always empty
+     */
+    @Override
+    public OptionalInt heldQuantity(Long id) {
+        return OptionalInt.empty();
+    }
+
+    /**
+     * The database always holds the current quantities.
+     *
+     * @return always empty
+     */
+    @Override
+    public List<StockLevelDTO> heldStockLevels() {
+        return List.of();
+    }
+
+    /**
+     * Every change is written to the database, which increments the version of the record.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return always 0
+     */
+    @Override
+    public long heldChanges(Long warehouseId) {
+        return 0;
+    }
+
+    /**
+     * Nothing is held outside the database.
+     *
+     * @param ids the IDs of the inventory records
+     */
+    @Override
+    public void evict(Collection<Long> ids) {
+    }
+}
@@ -0,0 +1,282 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.MovementType;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.StockLedgerRepository;
+import com.warehouse.repository.StockLedgerRepository.Appended;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * {@link StockEngine} that records every delta as a row of the append-only {@code stock_movement}
+ * ledger instead of updating the {@code inventory} row.
+ * <p>
+ * The quantity of an inventory record is derived from its stored quantity and its pending movements,
+ * so deltas on the same SKU are concurrent inserts rather than updates queued on one row lock. Only
+ * deltas that must not take the quantity below zero are serialized per record, for the duration of
+ * one statement. Every {@code warehouse.stock-engine.compact-interval-ms} milliseconds the pending
+ * movements are folded into the {@code inventory} rows in batches of
+ * {@code warehouse.stock-engine.compact-batch-size}, which keeps derived reads cheap. Nothing is held
+ * in memory, so unlike {@link ShardedStockEngine} the engine can run in several application instances.
+ * <p>
+ * Reads that bypass the engine, such as JPA loads of inventory records, see the quantity as of the
+ * last compaction unless they overlay {@link #heldQuantities(Collection)} or {@link #heldStockLevels()}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warehouse.stock-engine.mode", havingValue = "ledger")
+public class LedgerStockEngine implements StockEngine {
+
+    private final StockLedgerRepository ledger;
+    private final int compactBatchSize;
+
+    /**
+     * Constructs a LedgerStockEngine.
+     *
+     * @param stockLedgerRepository repository of the stock ledger
+     * @param compactBatchSize      maximum number of movements folded per statement
+     */
+    public LedgerStockEngine(StockLedgerRepository stockLedgerRepository,
+                             @Value("${warehouse.stock-engine.compact-batch-size:10000}") int compactBatchSize) {
+        this.ledger = stockLedgerRepository;
+        this.compactBatchSize = compactBatchSize;
+    }
+
+    /**
+     * Retrieves the stock level of an inventory record, derived from the ledger.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the stock level, or empty if the record does not exist
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long id) {
+        return ledger.findStockLevel(id);
+    }
+
+    /**
+     * Retrieves the stock level of a product in a warehouse, derived from the ledger.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return an {@link Optional} containing the stock level, or empty if there is no such record
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId) {
+        return ledger.findStockLevel(warehouseId, productId);
+    }
+
+    /**
+     * Records a delta of an inventory record as an {@link MovementType#ADJUSTMENT} movement.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the inventory with given ID is not found
+     */
+    @Override
+    public StockLevelDTO adjust(Long id, int delta, boolean allowNegative) {
+        return adjust(id, delta, allowNegative, MovementType.ADJUSTMENT, null);
+    }
+
+    /**
+     * Records a delta of a product in a warehouse as an {@link MovementType#ADJUSTMENT} movement.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the product has no inventory record in the warehouse
+     */
+    @Override
+    public StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative) {
+        return adjust(warehouseId, productId, delta, allowNegative, MovementType.ADJUSTMENT, null);
+    }
+
+    /**
+     * Records a delta of an inventory record as a movement. A delta that removes stock and must not
+     * take the quantity below zero is checked under a per-record lock; any other delta is a plain insert.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @param type          the kind of movement
+     * @param reference     the reference of the movement, or {@code null}
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the inventory with given ID is not found
+     */
+    @Override
+    public StockLevelDTO adjust(Long id, int delta, boolean allowNegative, MovementType type, String reference) {
+        Optional<Appended> appended = checked(delta, allowNegative)
+                ? ledger.appendChecked(id, type, delta, reference)
+                : ledger.append(id, type, delta, reference);
+        return recorded(appended.orElseThrow(() -> new RuntimeException("Inventory not found: " + id)));
+    }
+
+    /**
+     * Records a delta of a product in a warehouse as a movement, checked like
+     * {@link #adjust(Long, int, boolean, MovementType, String)}.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @param type          the kind of movement
+     * @param reference     the reference of the movement, or {@code null}
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the product has no inventory record in the warehouse
+     */
+    @Override
+    public StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative,
+                                MovementType type, String reference) {
+        Optional<Appended> appended = checked(delta, allowNegative)
+                ? ledger.appendChecked(warehouseId, productId, type, delta, reference)
+                : ledger.append(warehouseId, productId, type, delta, reference);
+        return recorded(appended.orElseThrow(() -> new RuntimeException("Inventory not found for product "
+                + productId + " in warehouse: " + warehouseId)));
+    }
+
+    /**
+     * Records one movement per inventory record. If any delta removes stock, the advisory locks of all the
+     * records are taken in ID order first, and the derived quantities are checked under them.
+     *
+     * @param deltas    the delta of each inventory record by ID
+     * @param type      the kind of the movements
+     * @param reference the reference of the movements, or {@code null}
+     * @return the new stock level of each record by ID
+     * @throws InsufficientStockException if a delta would take a quantity below zero
+     * @throws RuntimeException if an inventory record does not exist
+     */
+    @Override
+    @Transactional
+    public Map<Long, StockLevelDTO> adjustAll(Map<Long, Integer> deltas, MovementType type, String reference) {
+        if (deltas.values().stream().anyMatch(delta -> delta < 0))
+            ledger.lock(deltas.keySet());
+        Map<Long, StockLevelDTO> adjusted = new LinkedHashMap<>();
+        for (StockLevelDTO level : ledger.findStockLevels(deltas.keySet())) {
+            int delta = deltas.get(level.id());
+            int quantity = level.quantity() + delta;
+            if (delta < 0 && quantity < 0)
+                throw new InsufficientStockException("Insufficient stock in inventory: " + level.id());
+            adjusted.put(level.id(), new StockLevelDTO(level.id(), level.warehouseId(), level.productId(),
+                    quantity, level.minStock()));
+        }
+        for (Long id : deltas.keySet())
+            if (!adjusted.containsKey(id))
+                throw new RuntimeException("Inventory not found: " + id);
+        ledger.appendAll(deltas, type, reference);
+        return adjusted;
+    }
+
+    /**
+     * Returns the quantity of an inventory record derived from the ledger, which is newer than the
+     * stored one while the record has pending movements.
+     *
+     * @param id the ID of the inventory record
+     * @return the derived quantity, or empty if the record does not exist
+     */
+    @Override
+    public OptionalInt heldQuantity(Long id) {
+        return ledger.findStockLevel(id).map(level -> OptionalInt.of(level.quantity())).orElse(OptionalInt.empty());
+    }
+
+    /**
+     * Returns the quantities of inventory records derived from the ledger, in one statement.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the derived quantity of each existing record, by ID
+     */
+    @Override
+    public Map<Long, Integer> heldQuantities(Collection<Long> ids) {
+        return ids.isEmpty() ? Map.of() : ledger.findQuantities(ids);
+    }
+
+    /**
+     * Returns the derived stock levels of the inventory records that have pending movements, in one statement.
+     *
+     * @return the derived stock levels, in no particular order
+     */
+    @Override
+    public List<StockLevelDTO> heldStockLevels() {
+        return ledger.findPendingStockLevels();
+    }
+
+    /**
+     * Returns the number of pending movements of the inventory records of a warehouse. It only
+     * decreases when a compaction folds movements, which increments the versions of their records.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the number of pending movements in the warehouse
+     */
+    @Override
+    public long heldChanges(Long warehouseId) {
+        return ledger.countPending(warehouseId);
+    }
+
+    /**
+     * Supersedes the pending movements of inventory records whose quantities are being overwritten,
+     * so they are not added to the new quantities. Called in the transaction that writes the records,
+     * before the write, the movements are only superseded if that write commits.
+     *
+     * @param ids the IDs of the inventory records
+     * @throws org.springframework.transaction.IllegalTransactionStateException if no transaction is active
+     */
+    @Override
+    public void evict(Collection<Long> ids) {
+        if (!ids.isEmpty())
+            ledger.supersede(ids);
+    }
+
+    /**
+     * Folds pending movements into the {@code inventory} table, batch after batch until a batch
+     * comes back short. A failed batch is rolled back and retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.stock-engine.compact-interval-ms:500}")
+    public void compact() {
+        try {
+            int folded;
+            do {
+                folded = ledger.compact(compactBatchSize);
+            } while (folded == compactBatchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to compact stock movements, retrying on next run", e);
+        }
+    }
+
+    /**
+     * Folds the pending movements before the application shuts down, so an instance restarted in another
+     * stock engine mode, which ignores the ledger, starts from current quantities.
+     */
+    @PreDestroy
+    public void shutdown() {
+        compact();
+    }
+
+    private static boolean checked(int delta, boolean allowNegative) {
+        return delta < 0 && !allowNegative;
+    }
+
+    private static StockLevelDTO recorded(Appended appended) {
+        if (!appended.recorded())
+            throw new InsufficientStockException("Insufficient stock in inventory: " + appended.stockLevel().id());
+        return appended.stockLevel();
+    }
+}
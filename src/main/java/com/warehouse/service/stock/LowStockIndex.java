@@ -0,0 +1,174 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory set of the inventory records whose quantity is below their minimum stock,
+ * grouped by warehouse, so low-stock queries cost O(result size) instead of a table scan.
+ * <p>
+ * Writers report every quantity or threshold they change through {@link #update} and
+ * {@link #remove}; inside a transaction these are applied once it commits, so a rolled-back write
+ * never reaches the index. Updates for the same record racing each other can be applied out of order,
+ * and writes that bypass the application are not reported at all, so the set is rebuilt from the
+ * partial {@code inventory_low_stock_idx} index on startup and every
+ * {@code warehouse.low-stock.resync-interval-ms} milliseconds, overlaid with the quantities the
+ * {@link StockEngine} holds but has not written yet. Writes applied while a rebuild runs are replayed
+ * onto the rebuilt set before it is swapped in. Readers must treat the set as candidates and re-check
+ * the threshold on the records they load.
+ */
+@Slf4j
+@Component
+public class LowStockIndex {
+
+    private final InventoryRepository inventoryRepository;
+    private final StockEngine stockEngine;
+    private final Object rebuildLock = new Object();
+    private volatile Entries entries = new Entries();
+
+    /**
+     * Writes applied while a rebuild runs, also guarded by {@code this}; {@code null} outside a rebuild.
+     */
+    private List<Consumer<Entries>> pendingWrites;
+
+    /**
+     * Constructs a LowStockIndex.
+     *
+     * @param inventoryRepository repository used to rebuild the index
+     * @param stockEngine         engine whose held quantities are overlaid on a rebuild
+     */
+    public LowStockIndex(InventoryRepository inventoryRepository, StockEngine stockEngine) {
+        this.inventoryRepository = inventoryRepository;
+        this.stockEngine = stockEngine;
+    }
+
+    /**
+     * Records the current stock of an inventory record, adding it to or removing it from the
+     * index depending on whether it is below its minimum stock.
+     *
+     * @param id          the ID of the inventory record
+     * @param warehouseId the ID of its warehouse
+     * @param quantity    its current quantity
+     * @param minStock    its minimum stock threshold
+     */
+    public void update(Long id, Long warehouseId, int quantity, int minStock) {
+        afterCommit(entries -> entries.update(id, warehouseId, quantity, minStock));
+    }
+
+    /**
+     * Removes a deleted inventory record from the index.
+     *
+     * @param id the ID of the inventory record
+     */
+    public void remove(Long id) {
+        afterCommit(entries -> entries.remove(id));
+    }
+
+    /**
+     * Returns the IDs of the inventory records below their minimum stock.
+     *
+     * @param warehouseId the warehouse to restrict the result to, or {@code null} for all warehouses
+     * @return the IDs of the low-stock inventory records, in no particular order
+     */
+    public List<Long> inventoryIds(Long warehouseId) {
+        Entries current = entries;
+        if (warehouseId == null)
+            return new ArrayList<>(current.warehouseByInventory.keySet());
+        Set<Long> ids = current.inventoriesByWarehouse.get(warehouseId);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    /**
+     * Rebuilds the index from the database and the quantities held by the stock engine, replacing the
+     * current entries. If the rebuild fails, the current entries are kept.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.low-stock.resync-interval-ms:60000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingWrites = new ArrayList<>();
+            }
+            Entries rebuilt = new Entries();
+            boolean loaded = false;
+            try {
+                for (InventoryRepository.LowStockEntry entry : inventoryRepository.findLowStockEntries())
+                    rebuilt.add(entry.getId(), entry.getWarehouseId());
+                for (StockLevelDTO level : stockEngine.heldStockLevels())
+                    rebuilt.update(level.id(), level.warehouseId(), level.quantity(), level.minStock());
+                loaded = true;
+            } finally {
+                synchronized (this) {
+                    if (loaded) {
+                        for (Consumer<Entries> write : pendingWrites)
+                            write.accept(rebuilt);
+                        entries = rebuilt;
+                    }
+                    pendingWrites = null;
+                }
+            }
+            log.debug("Rebuilt low-stock index with {} entries", rebuilt.warehouseByInventory.size());
+        }
+    }
+
+    private void afterCommit(Consumer<Entries> write) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(write);
+                }
+            });
+        } else {
+            apply(write);
+        }
+    }
+
+    private synchronized void apply(Consumer<Entries> write) {
+        write.accept(entries);
+        if (pendingWrites != null)
+            pendingWrites.add(write);
+    }
+
+    private static final class Entries {
+        private final Map<Long, Long> warehouseByInventory = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> inventoriesByWarehouse = new ConcurrentHashMap<>();
+
+        private void update(Long id, Long warehouseId, int quantity, int minStock) {
+            if (quantity < minStock)
+                add(id, warehouseId);
+            else
+                remove(id);
+        }
+
+        private void add(Long id, Long warehouseId) {
+            warehouseByInventory.put(id, warehouseId);
+            inventoriesByWarehouse.compute(warehouseId, (w, ids) -> {
+                Set<Long> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                updated.add(id);
+                return updated;
+            });
+        }
+
+        private void remove(Long id) {
+            Long warehouseId = warehouseByInventory.remove(id);
+            if (warehouseId == null)
+                return;
+            inventoriesByWarehouse.computeIfPresent(warehouseId, (w, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.MovementType;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.InventoryBulkRepository;
+import com.warehouse.repository.InventoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link StockEngine} that keeps the quantity of each (warehouse, product) pair in memory and
+ * writes changes back to the {@code inventory} table asynchronously.
+ * <p>
+ * Quantities are partitioned into lock-striped shards, so deltas on different SKUs rarely contend
+ * and deltas on the same SKU are serialized by a short in-memory critical section instead of a
+ * database row lock. A quantity is loaded from the database the first time it is used. Dirty
+ * quantities are flushed in JDBC batches every {@code warehouse.stock-engine.flush-interval-ms}
+ * milliseconds, which bounds the window of deltas lost on a crash, and once more on shutdown.
+ * <p>
+ * The engine assumes it is the only writer of quantities: it must run in a single application
+ * instance, and writes that bypass it must call {@link #evict(Collection)} in their transaction before
+ * writing. Evicted records stay fenced until that transaction completes: their quantities are not
+ * loaded again, reads fall back to the committed row and deltas wait up to
+ * {@code warehouse.stock-engine.fence-timeout-ms} milliseconds for the write to finish.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warehouse.stock-engine.mode", havingValue = "memory")
+public class ShardedStockEngine implements StockEngine {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBulkRepository inventoryBulkRepository;
+    private final Shard[] shards;
+    private final int flushBatchSize;
+    private final long fenceTimeoutNanos;
+    private final Map<Long, StockKey> keysById = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> changesByWarehouse = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Number of uncompleted writes fencing each record, also the monitor of {@link #fenceEpoch}.
+     */
+    private final Map<Long, Integer> fences = new HashMap<>();
+
+    /**
+     * Incremented whenever a fence is lifted, so a quantity read before a write committed is not installed.
+     */
+    private long fenceEpoch;
+
+    /**
+     * Constructs a ShardedStockEngine.
+     *
+     * @param inventoryRepository     repository used to load quantities on first use
+     * @param inventoryBulkRepository repository used to flush quantities in batches
+     * @param shardCount              number of lock stripes
+     * @param flushBatchSize          maximum number of quantities written per JDBC batch
+     * @param fenceTimeoutMs          how long a delta waits for the write fencing its record, in milliseconds
+     */
+    public ShardedStockEngine(InventoryRepository inventoryRepository,
+                              InventoryBulkRepository inventoryBulkRepository,
+                              @Value("${warehouse.stock-engine.shards:64}") int shardCount,
+                              @Value("${warehouse.stock-engine.flush-batch-size:500}") int flushBatchSize,
+                              @Value("${warehouse.stock-engine.fence-timeout-ms:5000}") long fenceTimeoutMs) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryBulkRepository = inventoryBulkRepository;
+        this.flushBatchSize = flushBatchSize;
+        this.fenceTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(fenceTimeoutMs);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new Shard();
+    }
+
+    /**
+     * Retrieves the stock level of an inventory record from memory, loading it on first use.
+     * A record being overwritten is read from the database.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the stock level, or empty if the record does not exist
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long id) {
+        return withSlot(id, Slot::toStockLevel, Function.identity());
+    }
+
+    /**
+     * Retrieves the stock level of a product in a warehouse from memory, loading it on first use.
+     * A record being overwritten is read from the database.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return an {@link Optional} containing the stock level, or empty if there is no such record
+     */
+    @Override
+    public Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId) {
+        return withSlot(new StockKey(warehouseId, productId), Slot::toStockLevel, Function.identity());
+    }
+
+    /**
+     * Adds a delta to the in-memory quantity of an inventory record and marks it for flushing.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws CannotAcquireLockException if the record is still being overwritten after the fence timeout
+     * @throws RuntimeException if the inventory with given ID is not found
+     */
+    @Override
+    public StockLevelDTO adjust(Long id, int delta, boolean allowNegative) {
+        return withSlot(id, slot -> apply(slot, delta, allowNegative), null)
+                .orElseThrow(() -> new RuntimeException("Inventory not found: " + id));
+    }
+
+    /**
+     * Adds a delta to the in-memory quantity of a product in a warehouse and marks it for flushing.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws CannotAcquireLockException if the record is still being overwritten after the fence timeout
+     * @throws RuntimeException if the product has no inventory record in the warehouse
+     */
+    @Override
+    public StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative) {
+        return withSlot(new StockKey(warehouseId, productId), slot -> apply(slot, delta, allowNegative), null)
+                .orElseThrow(() -> new RuntimeException("Inventory not found for product " + productId
+                        + " in warehouse: " + warehouseId));
+    }
+
+    /**
+     * Adds deltas to the quantities of several inventory records, all or nothing. The shard locks of
+     * the records are taken in shard order, so concurrent calls cannot deadlock, and all quantities are
+     * checked before any is changed.
+     * <p>
+     * In a transaction, only the deltas that remove stock are applied in memory at once, as reservations
+     * that are given back if the transaction rolls back. Deltas that add stock to a record held in memory
+     * are applied when the transaction commits; the other records may have been created by the
+     * transaction, so their deltas are added to the rows in it and they stay fenced until it completes.
+     *
+     * @param deltas    the delta of each inventory record by ID
+     * @param type      the kind of the movements, not recorded by this engine
+     * @param reference the reference of the movements, not recorded by this engine
+     * @return the new stock level of each record by ID, as of the commit for the records that gain stock
+     * @throws InsufficientStockException if a delta would take a quantity below zero
+     * @throws CannotAcquireLockException if a record is still being overwritten after the fence timeout
+     * @throws RuntimeException if an inventory record does not exist
+     */
+    @Override
+    public Map<Long, StockLevelDTO> adjustAll(Map<Long, Integer> deltas, MovementType type, String reference) {
+        Map<Long, StockLevelDTO> adjusted = new LinkedHashMap<>();
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            applyAll(deltas).forEach((slot, level) -> adjusted.put(slot.id, level));
+            return adjusted;
+        }
+        Map<Long, Integer> removals = new LinkedHashMap<>();
+        Map<Long, Integer> additions = new TreeMap<>();
+        deltas.forEach((id, delta) -> (delta < 0 ? removals : additions).put(id, delta));
+
+        Map<Slot, StockLevelDTO> reserved = applyAll(removals);
+        reserved.forEach((slot, level) -> adjusted.put(slot.id, level));
+        Map<Slot, Integer> pending = new LinkedHashMap<>();
+        synchronized (fences) {
+            for (Long id : additions.keySet())
+                fences.merge(id, 1, Integer::sum);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK)
+                    reserved.keySet().forEach(slot -> settle(slot, -removals.get(slot.id)));
+                else
+                    pending.forEach(ShardedStockEngine.this::settle);
+                lift(additions.keySet(), List.of());
+            }
+        });
+
+        Map<Long, Integer> stored = new TreeMap<>();
+        additions.forEach((id, delta) -> {
+            StockKey key = keysById.get(id);
+            Optional<StockLevelDTO> held = key == null ? Optional.empty() : withHeldSlot(key, slot -> {
+                pending.put(slot, delta);
+                return plus(slot.toStockLevel(), delta);
+            });
+            held.ifPresentOrElse(level -> adjusted.put(id, level), () -> stored.put(id, delta));
+        });
+        if (!stored.isEmpty()) {
+            List<StockLevelDTO> levels = inventoryBulkRepository.lockStockLevels(stored.keySet());
+            if (levels.size() < stored.size())
+                throw new RuntimeException("Inventory not found: " + stored.keySet().stream()
+                        .filter(id -> levels.stream().noneMatch(level -> level.id().equals(id)))
+                        .findFirst().orElseThrow());
+            inventoryBulkRepository.addQuantities(stored);
+            for (StockLevelDTO level : levels)
+                adjusted.put(level.id(), plus(level, stored.get(level.id())));
+        }
+        return adjusted;
+    }
+
+    /**
+     * Returns the in-memory quantity of an inventory record if it has been loaded.
+     *
+     * @param id the ID of the inventory record
+     * @return the held quantity, or empty if the record is not held in memory
+     */
+    @Override
+    public OptionalInt heldQuantity(Long id) {
+        StockKey key = keysById.get(id);
+        if (key == null)
+            return OptionalInt.empty();
+        Shard shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            Slot slot = shard.slots.get(key);
+            return slot != null ? OptionalInt.of(slot.quantity) : OptionalInt.empty();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the stock levels of all inventory records loaded in memory, flushed or not.
+     *
+     * @return the in-memory stock levels, in no particular order
+     */
+    @Override
+    public List<StockLevelDTO> heldStockLevels() {
+        List<StockLevelDTO> levels = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Slot slot : shard.slots.values())
+                    levels.add(slot.toStockLevel());
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Returns the number of deltas applied in memory to the inventory records of a warehouse
+     * since the application started.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the number of deltas applied in the warehouse
+     */
+    @Override
+    public long heldChanges(Long warehouseId) {
+        LongAdder changes = changesByWarehouse.get(warehouseId);
+        return changes != null ? changes.sum() : 0;
+    }
+
+    /**
+     * Drops the in-memory quantities of inventory records, including unflushed deltas, and fences the
+     * records until the current transaction completes. Waits for a running flush to finish, so that
+     * flush cannot overwrite a value written to the database after this call returns. If the
+     * transaction rolls back, the dropped quantities are held again unless a newer one was loaded.
+     *
+     * @param ids the IDs of the inventory records
+     */
+    @Override
+    public void evict(Collection<Long> ids) {
+        if (ids.isEmpty())
+            return;
+        synchronized (fences) {
+            for (Long id : ids)
+                fences.merge(id, 1, Integer::sum);
+        }
+        List<Slot> dropped = new ArrayList<>();
+        flushLock.lock();
+        try {
+            for (Long id : ids) {
+                StockKey key = keysById.remove(id);
+                if (key == null)
+                    continue;
+                Shard shard = shardFor(key);
+                shard.lock.lock();
+                try {
+                    Slot slot = shard.slots.remove(key);
+                    if (slot != null) {
+                        shard.dirty.remove(slot);
+                        dropped.add(slot);
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lift(ids, List.of());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lift(ids, status == STATUS_ROLLED_BACK ? dropped : List.of());
+            }
+        });
+    }
+
+    /**
+     * Writes all dirty quantities to the database in batches. Quantities whose batch fails, or whose
+     * update matched no row, are marked dirty again and retried on the next flush.
+     */
+    @Scheduled(fixedDelayString = "${warehouse.stock-engine.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<StockLevelDTO> pending = new ArrayList<>();
+            for (Shard shard : shards) {
+                shard.lock.lock();
+                try {
+                    for (Slot slot : shard.dirty) {
+                        slot.dirty = false;
+                        pending.add(slot.toStockLevel());
+                    }
+                    shard.dirty.clear();
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            for (int from = 0; from < pending.size(); from += flushBatchSize) {
+                List<StockLevelDTO> batch = pending.subList(from, Math.min(pending.size(), from + flushBatchSize));
+                try {
+                    int[] counts = inventoryBulkRepository.updateQuantities(batch);
+                    List<StockLevelDTO> missed = new ArrayList<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0)
+                            missed.add(batch.get(i));
+                    }
+                    if (!missed.isEmpty()) {
+                        log.warn("{} stock levels matched no inventory record, retrying on next flush: {}",
+                                missed.size(), missed.stream().map(StockLevelDTO::id).toList());
+                        markDirty(missed);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to flush {} stock levels, retrying on next flush", pending.size() - from, e);
+                    markDirty(pending.subList(from, pending.size()));
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes pending quantities before the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private StockLevelDTO apply(Slot slot, int delta, boolean allowNegative) {
+        int updated = slot.quantity + delta;
+        if (!allowNegative && updated < 0)
+            throw new InsufficientStockException("Insufficient stock in inventory: " + slot.id);
+        slot.quantity = updated;
+        changesByWarehouse.computeIfAbsent(slot.key.warehouseId(), warehouseId -> new LongAdder()).increment();
+        if (!slot.dirty) {
+            slot.dirty = true;
+            shardFor(slot.key).dirty.add(slot);
+        }
+        return slot.toStockLevel();
+    }
+
+    /**
+     * Applies deltas to the slots of several records under their shard locks, loading missing slots
+     * first, and returns the new level of each slot applied to in the order of the deltas.
+     */
+    private Map<Slot, StockLevelDTO> applyAll(Map<Long, Integer> deltas) {
+        while (true) {
+            Map<Long, StockKey> keys = new LinkedHashMap<>();
+            TreeMap<Integer, Shard> locked = new TreeMap<>();
+            for (Long id : deltas.keySet()) {
+                StockKey key = keysById.get(id);
+                if (key == null)
+                    key = load(() -> inventoryRepository.findStockLevelById(id), slot -> slot.key, null)
+                            .orElseThrow(() -> new RuntimeException("Inventory not found: " + id));
+                keys.put(id, key);
+                locked.put(shardIndex(key), shardFor(key));
+            }
+            locked.values().forEach(shard -> shard.lock.lock());
+            try {
+                List<Slot> slots = new ArrayList<>();
+                for (StockKey key : keys.values()) {
+                    Slot slot = shardFor(key).slots.get(key);
+                    if (slot == null)
+                        break;
+                    slots.add(slot);
+                }
+                // A slot evicted between loading and locking is loaded again
+                if (slots.size() < keys.size())
+                    continue;
+                for (Slot slot : slots) {
+                    int delta = deltas.get(slot.id);
+                    if (delta < 0 && slot.quantity + delta < 0)
+                        throw new InsufficientStockException("Insufficient stock in inventory: " + slot.id);
+                }
+                Map<Slot, StockLevelDTO> applied = new LinkedHashMap<>();
+                for (Slot slot : slots)
+                    applied.put(slot, apply(slot, deltas.get(slot.id), true));
+                return applied;
+            } finally {
+                locked.descendingMap().values().forEach(shard -> shard.lock.unlock());
+            }
+        }
+    }
+
+    /**
+     * Applies a delta of a completed transaction to a slot it used. A slot evicted since then is not
+     * flushed, but keeps the delta in case the eviction rolls back and the slot is held again.
+     */
+    private void settle(Slot slot, int delta) {
+        Shard shard = shardFor(slot.key);
+        shard.lock.lock();
+        try {
+            if (shard.slots.get(slot.key) == slot) {
+                apply(slot, delta, true);
+            } else {
+                slot.quantity += delta;
+                slot.dirty = true;
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private static StockLevelDTO plus(StockLevelDTO level, int delta) {
+        return new StockLevelDTO(level.id(), level.warehouseId(), level.productId(), level.quantity() + delta,
+                level.minStock());
+    }
+
+    /**
+     * Lifts one fence from each record and holds the given slots again where no fence or newer slot remains.
+     */
+    private void lift(Collection<Long> ids, List<Slot> restored) {
+        synchronized (fences) {
+            for (Long id : ids)
+                fences.computeIfPresent(id, (k, count) -> count > 1 ? count - 1 : null);
+            fenceEpoch++;
+            fences.notifyAll();
+        }
+        for (Slot slot : restored) {
+            Shard shard = shardFor(slot.key);
+            shard.lock.lock();
+            try {
+                if (isFenced(slot.id) || shard.slots.putIfAbsent(slot.key, slot) != null)
+                    continue;
+                keysById.put(slot.id, slot.key);
+                if (slot.dirty)
+                    shard.dirty.add(slot);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private boolean isFenced(Long id) {
+        synchronized (fences) {
+            return fences.containsKey(id);
+        }
+    }
+
+    private long fenceEpoch() {
+        synchronized (fences) {
+            return fenceEpoch;
+        }
+    }
+
+    private void awaitUnfenced(Long id) {
+        long deadline = System.nanoTime() + fenceTimeoutNanos;
+        synchronized (fences) {
+            try {
+                while (fences.containsKey(id)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        throw new CannotAcquireLockException("Inventory is being overwritten: " + id);
+                    TimeUnit.NANOSECONDS.timedWait(fences, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Interrupted while waiting for inventory: " + id, e);
+            }
+        }
+    }
+
+    private void markDirty(List<StockLevelDTO> levels) {
+        for (StockLevelDTO level : levels) {
+            StockKey key = keysById.get(level.id());
+            if (key == null)
+                continue;
+            Shard shard = shardFor(key);
+            shard.lock.lock();
+            try {
+                Slot slot = shard.slots.get(key);
+                if (slot != null && !slot.dirty) {
+                    slot.dirty = true;
+                    shard.dirty.add(slot);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies an action to the slot of an inventory record under its shard lock,
+     * loading the slot by ID first if it is not held yet.
+     */
+    private <T> Optional<T> withSlot(Long id, Function<Slot, T> action, Function<StockLevelDTO, T> whileFenced) {
+        StockKey key = keysById.get(id);
+        if (key != null) {
+            Optional<T> result = withHeldSlot(key, action);
+            if (result.isPresent())
+                return result;
+        }
+        return load(() -> inventoryRepository.findStockLevelById(id), action, whileFenced);
+    }
+
+    /**
+     * Applies an action to the slot of a (warehouse, product) pair under its shard lock,
+     * loading the slot first if it is not held yet.
+     */
+    private <T> Optional<T> withSlot(StockKey key, Function<Slot, T> action, Function<StockLevelDTO, T> whileFenced) {
+        Optional<T> result = withHeldSlot(key, action);
+        if (result.isPresent())
+            return result;
+        return load(() -> inventoryRepository.findStockLevel(key.warehouseId(), key.productId()), action, whileFenced);
+    }
+
+    private <T> Optional<T> withHeldSlot(StockKey key, Function<Slot, T> action) {
+        Shard shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            Slot slot = shard.slots.get(key);
+            return slot != null ? Optional.of(action.apply(slot)) : Optional.empty();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a stock level from the database and installs it. If the record is fenced, or a fence was
+     * lifted while it was read, the level read is passed to {@code whileFenced} instead, or, if that is
+     * {@code null}, the record is read again once it is no longer fenced.
+     */
+    private <T> Optional<T> load(Supplier<Optional<StockLevelDTO>> reader, Function<Slot, T> action,
+                                 Function<StockLevelDTO, T> whileFenced) {
+        while (true) {
+            long epoch = fenceEpoch();
+            Optional<StockLevelDTO> level = reader.get();
+            if (level.isEmpty())
+                return Optional.empty();
+            T result = install(level.get(), epoch, action);
+            if (result != null)
+                return Optional.of(result);
+            if (whileFenced != null)
+                return level.map(whileFenced);
+            awaitUnfenced(level.get().id());
+        }
+    }
+
+    /**
+     * Installs a slot loaded from the database unless another thread installed it first, and applies
+     * the action to whichever slot is held. Returns {@code null} without installing anything if the
+     * record is fenced or a fence was lifted since the epoch the level was read at.
+     */
+    private <T> T install(StockLevelDTO level, long epoch, Function<Slot, T> action) {
+        StockKey key = new StockKey(level.warehouseId(), level.productId());
+        Shard shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            Slot slot = shard.slots.get(key);
+            if (slot == null) {
+                synchronized (fences) {
+                    if (fences.containsKey(level.id()) || fenceEpoch != epoch)
+                        return null;
+                }
+                slot = new Slot(level.id(), key, level.quantity(), level.minStock());
+                shard.slots.put(key, slot);
+                keysById.put(slot.id, key);
+            }
+            return action.apply(slot);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private Shard shardFor(StockKey key) {
+        return shards[shardIndex(key)];
+    }
+
+    private int shardIndex(StockKey key) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private record StockKey(Long warehouseId, Long productId) {}
+
+    private static final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<StockKey, Slot> slots = new HashMap<>();
+        private final List<Slot> dirty = new ArrayList<>();
+    }
+
+    private static final class Slot {
+        private final Long id;
+        private final StockKey key;
+        private final int minStock;
+        private int quantity;
+        private boolean dirty;
+
+        private Slot(Long id, StockKey key, int quantity, int minStock) {
+            this.id = id;
+            this.key = key;
+            this.quantity = quantity;
+            this.minStock = minStock;
+        }
+
+        private StockLevelDTO toStockLevel() {
+            return new StockLevelDTO(id, key.warehouseId(), key.productId(), quantity, minStock);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.MovementType;
+import com.warehouse.exception.InsufficientStockException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Engine that owns reads and delta updates of inventory quantities.
+ * The implementation is selected with the {@code warehouse.stock-engine.mode} property.
+ */
+public interface StockEngine {
+
+    /**
+     * Retrieves the current stock level of an inventory record.
+     *
+     * @param id the ID of the inventory record
+     * @return an {@link Optional} containing the stock level, or empty if the record does not exist
+     */
+    Optional<StockLevelDTO> getStockLevel(Long id);
+
+    /**
+     * Retrieves the current stock level of a product in a warehouse.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @param productId   the ID of the product
+     * @return an {@link Optional} containing the stock level, or empty if there is no such record
+     */
+    Optional<StockLevelDTO> getStockLevel(Long warehouseId, Long productId);
+
+    /**
+     * Atomically adds a delta to the quantity of an inventory record.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the inventory record does not exist
+     */
+    StockLevelDTO adjust(Long id, int delta, boolean allowNegative);
+
+    /**
+     * Atomically adds a delta to the quantity of a product in a warehouse.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if there is no inventory record for the product in the warehouse
+     */
+    StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative);
+
+    /**
+     * Atomically adds a delta to the quantity of an inventory record as a movement of the given kind.
+     * Engines that keep no movement history ignore the kind and reference.
+     *
+     * @param id            the ID of the inventory record
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @param type          the kind of movement
+     * @param reference     the reference of the movement, or {@code null}
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if the inventory record does not exist
+     */
+    default StockLevelDTO adjust(Long id, int delta, boolean allowNegative, MovementType type, String reference) {
+        return adjust(id, delta, allowNegative);
+    }
+
+    /**
+     * Atomically adds a delta to the quantity of a product in a warehouse as a movement of the given kind.
+     * Engines that keep no movement history ignore the kind and reference.
+     *
+     * @param warehouseId   the ID of the warehouse
+     * @param productId     the ID of the product
+     * @param delta         the amount to add (negative to remove stock)
+     * @param allowNegative whether the resulting quantity may be negative
+     * @param type          the kind of movement
+     * @param reference     the reference of the movement, or {@code null}
+     * @return the new stock level
+     * @throws InsufficientStockException if the quantity would go below zero
+     * @throws RuntimeException if there is no inventory record for the product in the warehouse
+     */
+    default StockLevelDTO adjust(Long warehouseId, Long productId, int delta, boolean allowNegative,
+                                 MovementType type, String reference) {
+        return adjust(warehouseId, productId, delta, allowNegative);
+    }
+
+    /**
+     * Atomically adds deltas to the quantities of several inventory records: either every delta is applied
+     * or none is. No delta that removes stock may take a quantity below zero. The records are locked in a
+     * deterministic order, so concurrent calls over overlapping records cannot deadlock. Database-backed
+     * engines apply the deltas in the caller's transaction if there is one.
+     *
+     * @param deltas    the delta of each inventory record by ID
+     * @param type      the kind of movement
+     * @param reference the reference of the movements, or {@code null}
+     * @return the new stock level of each record by ID
+     * @throws InsufficientStockException if a delta would take a quantity below zero
+     * @throws RuntimeException if an inventory record does not exist
+     */
+    Map<Long, StockLevelDTO> adjustAll(Map<Long, Integer> deltas, MovementType type, String reference);
+
+    /**
+     * Returns the quantity of an inventory record if the engine holds a value that may be newer
+     * than the one stored in the database.
+     *
+     * @param id the ID of the inventory record
+     * @return the held quantity, or empty if the database value is current
+     */
+    OptionalInt heldQuantity(Long id);
+
+    /**
+     * Returns the quantities of inventory records for which the engine holds a value that may be newer
+     * than the one stored in the database, as {@link #heldQuantity(Long)} does for one record.
+     *
+     * @param ids the IDs of the inventory records
+     * @return the held quantity of each record that has one, by ID
+     */
+    default Map<Long, Integer> heldQuantities(Collection<Long> ids) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Long id : ids)
+            heldQuantity(id).ifPresent(quantity -> quantities.put(id, quantity));
+        return quantities;
+    }
+
+    /**
+     * Returns the stock levels of all inventory records for which the engine holds a quantity that may be
+     * newer than the one stored in the database, so readers of stored quantities can overlay them.
+     *
+     * @return the held stock levels, in no particular order
+     */
+    List<StockLevelDTO> heldStockLevels();
+
+    /**
+     * Returns a counter of the quantity changes the engine made in a warehouse that are not necessarily
+     * reflected in the database versions of its inventory records yet. The counter never decreases
+     * while those versions stay the same, so it can be combined with them into a validator.
+     *
+     * @param warehouseId the ID of the warehouse
+     * @return the number of quantity changes held for the warehouse
+     */
+    long heldChanges(Long warehouseId);
+
+    /**
+     * Discards any state held for inventory records whose quantities are about to be overwritten or deleted
+     * outside of this engine. Must be called in the transaction that writes the records, before the write:
+     * engines that hold quantities keep the records fenced until that transaction completes, so no delta is
+     * applied to a quantity the write is replacing.
+     *
+     * @param ids the IDs of the inventory records
+     */
+    void evict(Collection<Long> ids);
+
+    /**
+     * Discards any state held for an inventory record, as {@link #evict(Collection)} does.
+     *
+     * @param id the ID of the inventory record
+     */
+    default void evict(Long id) {
+        evict(List.of(id));
+    }
+}
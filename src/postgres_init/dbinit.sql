@@ -6,7 +6,8 @@ CREATE TABLE warehouse(
     capacity DECIMAL(10,2) NOT NULL,
     manager_name VARCHAR(100) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 DROP TABLE IF EXISTS product CASCADE;
@@ -18,7 +19,8 @@ CREATE TABLE product(
     category VARCHAR(100) NOT NULL,
     weight DECIMAL(10,2) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 DROP TABLE IF EXISTS inventory CASCADE;
@@ -31,5 +33,37 @@ CREATE TABLE inventory(
     max_stock INT NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     UNIQUE (warehouse_id, product_id)
-);
\ No newline at end of file
+);
+
+-- Covers only the rows below their minimum stock, so rebuilding the low-stock index on startup
+-- reads the low-stock set instead of the whole table.
+CREATE INDEX inventory_low_stock_idx ON inventory (warehouse_id, id) WHERE quantity < min_stock;
+
+-- Product search: the trigram index serves unanchored lower(name) LIKE '%...%' patterns,
+-- the btree indexes serve category equality and price ranges, alone or combined.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX product_name_trgm_idx ON product USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX product_category_price_idx ON product (category, price, id);
+CREATE INDEX product_price_idx ON product (price, id);
+
+-- Append-only stock ledger of the "ledger" stock engine. The quantity of an inventory record is
+-- inventory.quantity plus its pending movements (compacted_at IS NULL); the compactor folds pending
+-- movements into inventory.quantity in batches. The history index serves keyset reads of the movements
+-- of one record; the partial indexes only cover pending movements, so derived reads and compaction
+-- stay cheap however long the history grows.
+DROP TABLE IF EXISTS stock_movement CASCADE;
+CREATE TABLE stock_movement(
+    id BIGSERIAL PRIMARY KEY NOT NULL,
+    inventory_id BIGINT NOT NULL REFERENCES inventory(id) ON DELETE CASCADE,
+    type VARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    reference VARCHAR(100),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    compacted_at TIMESTAMP
+);
+
+CREATE INDEX stock_movement_history_idx ON stock_movement (inventory_id, id);
+CREATE INDEX stock_movement_pending_idx ON stock_movement (inventory_id) INCLUDE (quantity) WHERE compacted_at IS NULL;
+CREATE INDEX stock_movement_compaction_idx ON stock_movement (id) WHERE compacted_at IS NULL;
@@ -0,0 +1,45 @@
+package com.warehouse;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Condition of the tests that run on the {@code postgres} profile, for the PostgreSQL-specific SQL the H2
+ * {@code test} profile cannot run. They are enabled with {@code @EnabledIf("com.warehouse.TestPostgres#isAvailable")}
+ * and skipped when the disposable database of that profile cannot be reached. It defaults to
+ * {@code warehouse_test} on the server of {@code docker-compose.yml} and is overridden with the
+ * {@code WAREHOUSE_TEST_POSTGRES_URL}, {@code _USER} and {@code _PASSWORD} environment variables.
+ */
+public final class TestPostgres {
+
+    private static Boolean available;
+
+    private TestPostgres() {
+    }
+
+    /**
+     * Returns whether the test database accepts connections, checked once per run.
+     *
+     * @return {@code true} if the tests on the {@code postgres} profile can run
+     */
+    public static synchronized boolean isAvailable() {
+        if (available == null) {
+            DriverManager.setLoginTimeout(2);
+            try (Connection connection = DriverManager.getConnection(
+                    env("WAREHOUSE_TEST_POSTGRES_URL", "jdbc:postgresql://localhost:5432/warehouse_test"),
+                    env("WAREHOUSE_TEST_POSTGRES_USER", "warehouse_user"),
+                    env("WAREHOUSE_TEST_POSTGRES_PASSWORD", "warehouse_pass"))) {
+                available = connection.isValid(2);
+            } catch (SQLException e) {
+                available = false;
+            }
+        }
+        return available;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
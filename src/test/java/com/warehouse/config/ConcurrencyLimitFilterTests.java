@@ -0,0 +1,64 @@
+package com.warehouse.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the concurrency limit with a single permit: requests beyond it are rejected with 503 and
+ * {@code Retry-After}, and a streamed response keeps its permit until it completes.
+ */
+@SpringBootTest(properties = {
+        "warehouse.concurrency.limit-enabled=true",
+        "warehouse.concurrency.max-in-flight=1",
+        "warehouse.concurrency.acquire-timeout-ms=100"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConcurrencyLimitFilterTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void streamedResponsesHoldTheirPermitUntilTheyComplete() throws Exception {
+        MvcResult streaming = mockMvc.perform(get("/api/warehouses/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(get("/api/warehouses"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        mockMvc.perform(asyncDispatch(streaming))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/warehouses"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/warehouses"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void requestsOutsideTheApiAreNotLimited() throws Exception {
+        MvcResult streaming = mockMvc.perform(get("/api/warehouses/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(streaming))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,134 @@
+package com.warehouse.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the binary formats are negotiated for responses and requests, and carry the same
+ * content as JSON, including the DTOs written with field selection filters.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JacksonConfigTests {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final ObjectMapper json = reader(new JsonFactory());
+    private final ObjectMapper cbor = reader(new CBORFactory());
+    private final ObjectMapper smile = reader(new SmileFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Negotiated warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(new BigDecimal("1000.50"));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Negotiated product");
+        product.setDescription("Test product");
+        product.setPrice(new BigDecimal("12.34"));
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void binaryFormatsCarryTheJsonContent() throws Exception {
+        for (String uri : new String[] {"/api/products/" + product.getId(), "/api/warehouses/" + warehouse.getId(),
+                "/api/warehouses/" + warehouse.getId() + "?fields=id,capacity"}) {
+            JsonNode expected = json.readTree(fetch(uri, MediaType.APPLICATION_JSON));
+
+            assertThat(cbor.readTree(fetch(uri, MediaType.APPLICATION_CBOR))).isEqualTo(expected);
+            assertThat(smile.readTree(fetch(uri, SMILE))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        mockMvc.perform(get("/api/products/" + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void requestsAreReadInBinaryFormats() throws Exception {
+        byte[] body = cbor.writeValueAsBytes(json.readTree("""
+                {"name":"CBOR product","description":"Test product","price":5,"category":"Category","weight":1}"""));
+
+        byte[] created = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(cbor.readTree(created).get("name").asText()).isEqualTo("CBOR product");
+    }
+
+    /**
+     * Reads decimals as {@code BigDecimal} in every format, so that trees compare equal whether a
+     * format encodes them as text or as decimal fractions.
+     */
+    private static ObjectMapper reader(JsonFactory factory) {
+        return new ObjectMapper(factory).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    private byte[] fetch(String uri, MediaType mediaType) throws Exception {
+        return mockMvc.perform(get(uri).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package com.warehouse.config;
+
+import com.warehouse.dto.product.CreateProductDTO;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.service.ProductService;
+import com.warehouse.service.ProductServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that service methods are timed and that Hibernate and connection pool metrics are bound.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MetricsConfigTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void serviceMethodsAreTimedWithTheirOutcome() {
+        ResponseProductDTO product = productService.createProduct(new CreateProductDTO("Timed product",
+                "Description", BigDecimal.ONE, "Category", BigDecimal.ONE));
+        assertThatThrownBy(() -> productService.updateProduct(-1L, null)).isInstanceOf(RuntimeException.class);
+
+        assertThat(product.id()).isNotNull();
+        assertThat(serviceTimer("createProduct", "none").count()).isEqualTo(1);
+        assertThat(serviceTimer("updateProduct", "RuntimeException").count()).isEqualTo(1);
+    }
+
+    @Test
+    void hibernateAndConnectionPoolMetricsAreBound() {
+        productService.getAllProducts();
+
+        assertThat(registry.find("hibernate.statements").functionCounter()).isNotNull();
+        assertThat(registry.find("hibernate.entities.loads").functionCounter()).isNotNull();
+        assertThat(registry.find("hibernate.flushes").functionCounter()).isNotNull();
+        assertThat(registry.find("hikaricp.connections.pending").gauge()).isNotNull();
+        assertThat(registry.find("spring.data.repository.invocations").timer()).isNotNull();
+    }
+
+    private Timer serviceTimer(String method, String exception) {
+        return registry.get(MetricsConfig.SERVICE_TIMER)
+                .tag("class", ProductServiceImpl.class.getName())
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+    }
+}
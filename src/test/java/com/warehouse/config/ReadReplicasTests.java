@@ -0,0 +1,141 @@
+package com.warehouse.config;
+
+import com.warehouse.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks which pool read-only transactions are routed to. The replica is a second pool on the test
+ * database, and its lag is read from a table the tests control.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "warehouse.datasource.replicas[0].url=jdbc:h2:mem:routing_db;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "warehouse.datasource.lag-query=SELECT lag FROM replica_lag",
+        "warehouse.datasource.lag-check-interval-ms=3600000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicasTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadReplicas readReplicas;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setLag() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag DOUBLE PRECISION)");
+        lag(0);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        double replica = reads("replica-0");
+        double primary = reads("primary");
+
+        read(true);
+        assertThat(reads("replica-0")).isEqualTo(replica + 1);
+
+        read(false);
+        assertThat(reads("replica-0")).isEqualTo(replica + 1);
+        assertThat(reads("primary")).isEqualTo(primary);
+    }
+
+    @Test
+    void pinnedReadsUseThePrimary() {
+        double replica = reads("replica-0");
+        double primary = reads("primary");
+
+        try (DataSourceRouting.Scope ignored = DataSourceRouting.pinToPrimary()) {
+            read(true);
+        }
+        assertThat(reads("primary")).isEqualTo(primary + 1);
+        assertThat(reads("replica-0")).isEqualTo(replica);
+    }
+
+    @Test
+    void laggingReplicasAreSkippedUntilTheyCatchUp() {
+        double primary = reads("primary");
+
+        lag(10);
+        read(true);
+        assertThat(reads("primary")).isEqualTo(primary + 1);
+
+        lag(0.5);
+        double replica = reads("replica-0");
+        read(true);
+        assertThat(reads("replica-0")).isEqualTo(replica + 1);
+    }
+
+    @Test
+    void writesPinTheClientsFollowingReads() throws Exception {
+        Cookie pin = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Routed product\",\"description\":\"Test product\",\"price\":5,"
+                                + "\"category\":\"Category\",\"weight\":1}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        double replica = reads("replica-0");
+        double primary = reads("primary");
+        mockMvc.perform(get("/api/products").cookie(pin)).andExpect(status().isOk());
+        assertThat(reads("replica-0")).isEqualTo(replica);
+        assertThat(reads("primary")).isGreaterThan(primary);
+
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        assertThat(reads("replica-0")).isGreaterThan(replica);
+    }
+
+    private void lag(double seconds) {
+        jdbcTemplate.update("DELETE FROM replica_lag");
+        jdbcTemplate.update("INSERT INTO replica_lag (lag) VALUES (?)", seconds);
+        readReplicas.checkLag();
+    }
+
+    private void read(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        transaction.executeWithoutResult(status -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+    }
+
+    private double reads(String target) {
+        return registry.counter(ReadReplicas.READS_METER, "target", target).count();
+    }
+}
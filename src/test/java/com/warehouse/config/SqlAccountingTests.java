@@ -0,0 +1,92 @@
+package com.warehouse.config;
+
+import com.warehouse.entity.Product;
+import com.warehouse.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the per-request SQL accounting: statement shapes, repeated statement detection, and the
+ * headers and metrics reported for a request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlAccountingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @AfterEach
+    void cleanUp() {
+        SqlStatistics.end();
+        productRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void shapesIgnoreLiteralsAndParameterListLengths() {
+        assertThat(SqlStatistics.shape("select p.id from product p\n where p.id in (?, ?, ?) and p.name = 'a'"))
+                .isEqualTo(SqlStatistics.shape("select p.id from product p where p.id in (?) and p.name = 'b'"))
+                .isEqualTo("select p.id from product p where p.id in (?) and p.name = ?");
+        assertThat(SqlStatistics.shape("select * from inventory where id = 42"))
+                .isNotEqualTo(SqlStatistics.shape("select * from product where id = 42"));
+    }
+
+    @Test
+    void repeatedShapesAreReportedFromTheThreshold() {
+        SqlStatistics statistics = SqlStatistics.begin();
+        for (int i = 0; i < 10; i++)
+            statistics.statementExecuted("select * from product where id = " + i, 1);
+        statistics.statementExecuted("select * from warehouse", 1);
+
+        assertThat(statistics.statements()).isEqualTo(11);
+        assertThat(statistics.repeatedShapes(11)).isEmpty();
+        assertThat(statistics.repeatedShapes(10)).containsExactly(
+                Map.entry("select * from product where id = ?", 10));
+    }
+
+    @Test
+    void requestsReportTheirStatementsAndRows() throws Exception {
+        Product product = new Product();
+        product.setName("Accounted product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        Long id = productRepository.save(product).getId();
+
+        mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-SQL-Statements", "1"))
+                .andExpect(header().string("X-SQL-Rows", "1"))
+                .andExpect(header().exists("X-SQL-Time-Micros"));
+
+        assertThat(registry.get("warehouse.request.sql.statements")
+                .tag("method", "GET").tag("uri", "/api/products/{id}").summary().totalAmount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.warehouse.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks how bulk upserts report input that cannot be parsed. The rows here are rejected before any of
+ * the PostgreSQL-specific upsert SQL runs.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkInventoryTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void reportsTheRowsProcessedBeforeAnUnreadableRow() throws Exception {
+        mockMvc.perform(post("/api/inventories/bulk").contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"quantity\":1}\n{\"quantity\":\"many\"}\n{\"quantity\":2}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.failedIndex").value(1))
+                .andExpect(jsonPath("$.message").value(startsWith("Row 1 cannot be read")))
+                .andExpect(jsonPath("$.results", hasSize(1)))
+                .andExpect(jsonPath("$.results[0].status").value("REJECTED"));
+    }
+
+    @Test
+    void reportsABodyThatIsNotJson() throws Exception {
+        mockMvc.perform(post("/api/inventories/bulk").contentType(MediaType.APPLICATION_JSON).content("not json"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.failedIndex").value(0))
+                .andExpect(jsonPath("$.results", hasSize(0)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.warehouse.controller;
+
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the ETags of the polled read endpoints are stable while nothing changes, answer
+ * {@code If-None-Match} with 304 Not Modified, and change with every write that changes the response.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Warehouse warehouse;
+    private Product product;
+    private Inventory inventory;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Polled warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Polled product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+
+        inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(5);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(100);
+        inventory = inventoryRepository.save(inventory);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void warehouseInventoryETagFollowsInventoryAndProductWrites() throws Exception {
+        String uri = "/api/warehouses/" + warehouse.getId() + "/inventory";
+        String etag = etag(uri);
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/inventories/" + inventory.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":7,\"minStock\":1,\"maxStock\":100}"))
+                .andExpect(status().isOk());
+        String afterInventoryWrite = etag(uri, etag);
+
+        mockMvc.perform(put("/api/products/" + product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed product\",\"description\":\"Test product\",\"price\":10,"
+                                + "\"category\":\"Category\",\"weight\":1}"))
+                .andExpect(status().isOk());
+        String afterProductWrite = etag(uri, afterInventoryWrite);
+
+        inventoryRepository.deleteAllInBatch();
+        assertThat(etag(uri, afterProductWrite)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void productETagFollowsProductWrites() throws Exception {
+        String uri = "/api/products/" + product.getId();
+        String etag = etag(uri);
+
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Renamed product\",\"description\":\"Test product\",\"price\":10,"
+                                + "\"category\":\"Category\",\"weight\":1}"))
+                .andExpect(status().isOk());
+        etag(uri, etag);
+
+        mockMvc.perform(get("/api/products/" + (product.getId() + 1000)))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+
+    /**
+     * Revalidates a stale ETag and returns the new one.
+     */
+    private String etag(String uri, String stale) throws Exception {
+        String etag = mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank().isNotEqualTo(stale);
+        return etag;
+    }
+}
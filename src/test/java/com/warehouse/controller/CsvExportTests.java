@@ -0,0 +1,241 @@
+package com.warehouse.controller;
+
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the CSV exports on PostgreSQL, which runs their {@code COPY ... TO STDOUT}: columns, order, filters,
+ * CSV quoting and the escaping of filter values, and the abort of the connection of an export whose client
+ * went away.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@DirtiesContext
+class CsvExportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Warehouse north;
+    private Warehouse south;
+    private Product bolt;
+    private Product pie;
+    private Product nut;
+
+    @BeforeEach
+    void seed() {
+        north = warehouse("North");
+        south = warehouse("South");
+        bolt = product("Bolt, \"hex\" 10mm", "Hardware");
+        pie = product("Shepherd's pie", "O'Brien's");
+        nut = product("Nut", "Hardware");
+        inventory(south, bolt, 7);
+        inventory(north, nut, 3);
+        inventory(north, bolt, 5);
+        inventory(north, pie, 2);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void exportsProductsOrderedByIdWithQuotedFields() throws Exception {
+        List<String> lines = export(get("/api/products/export.csv"), "products.csv");
+
+        assertEquals("id,name,description,price,category,weight,created_at,updated_at,version", lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith(bolt.getId() + ",\"Bolt, \"\"hex\"\" 10mm\",Test product,10.00,Hardware,1.00,"));
+        assertTrue(lines.get(2).startsWith(pie.getId() + ",Shepherd's pie,Test product,10.00,O'Brien's,1.00,"));
+        assertTrue(lines.get(3).startsWith(nut.getId() + ",Nut,"));
+    }
+
+    @Test
+    void filtersProductsByEscapedCategory() throws Exception {
+        List<String> lines = export(get("/api/products/export.csv").param("category", "O'Brien's"), "products.csv");
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).startsWith(pie.getId() + ","));
+
+        assertEquals(1, export(get("/api/products/export.csv").param("category", "x' OR '1'='1"), "products.csv").size());
+    }
+
+    @Test
+    void exportsWarehousesOrderedById() throws Exception {
+        List<String> lines = export(get("/api/warehouses/export.csv"), "warehouses.csv");
+
+        assertEquals("id,name,address,capacity,manager_name,created_at,updated_at,version", lines.get(0));
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith(north.getId() + ",North,1 Test Street,1000.00,Test Manager,"));
+        assertTrue(lines.get(2).startsWith(south.getId() + ",South,"));
+    }
+
+    @Test
+    void exportsInventoriesOrderedByWarehouseAndProduct() throws Exception {
+        List<String> lines = export(get("/api/inventories/export.csv"), "inventories.csv");
+
+        assertEquals("id,warehouse_id,warehouse_name,product_id,product_name,category,price,quantity,min_stock,"
+                + "max_stock,updated_at,version", lines.get(0));
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(1).contains("," + north.getId() + ",North," + bolt.getId()
+                + ",\"Bolt, \"\"hex\"\" 10mm\",Hardware,10.00,5,1,1000,"));
+        assertTrue(lines.get(2).contains("," + north.getId() + ",North," + pie.getId() + ",Shepherd's pie,"));
+        assertTrue(lines.get(3).contains("," + north.getId() + ",North," + nut.getId() + ",Nut,"));
+        assertTrue(lines.get(4).contains("," + south.getId() + ",South," + bolt.getId() + ","));
+    }
+
+    @Test
+    void filtersInventoriesByWarehouseAndCategory() throws Exception {
+        List<String> lines = export(get("/api/inventories/export.csv")
+                .param("warehouseId", north.getId().toString())
+                .param("category", "Hardware"), "inventories.csv");
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("," + north.getId() + ",North," + bolt.getId() + ","));
+        assertTrue(lines.get(2).contains("," + north.getId() + ",North," + nut.getId() + ","));
+
+        lines = export(get("/api/inventories/export.csv").param("category", "O'Brien's"), "inventories.csv");
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("," + pie.getId() + ",Shepherd's pie,O'Brien's,"));
+    }
+
+    @Test
+    void abortsTheConnectionOfAnInterruptedExport() throws Exception {
+        jdbcTemplate.update("INSERT INTO product (name, description, price, category, weight) "
+                + "SELECT 'Bulk ' || n, repeat('x', 500), 1, 'Bulk', 1 FROM generate_series(1, 20000) AS n");
+        AtomicReference<Integer> copyPid = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            OutputStream closed = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    try {
+                        copyPid.set(executor.submit(() -> jdbcTemplate.queryForObject(
+                                "SELECT pid FROM pg_stat_activity WHERE query LIKE 'COPY (%' AND pid <> pg_backend_pid()",
+                                Integer.class)).get());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    throw new IOException("Broken pipe");
+                }
+            };
+
+            assertThrows(RuntimeException.class, () -> productService.exportProducts("Bulk", closed));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNotNull(copyPid.get());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (backendExists(copyPid.get()) && System.currentTimeMillis() < deadline)
+            Thread.sleep(50);
+        assertFalse(backendExists(copyPid.get()));
+        for (int i = 0; i < 10; i++)
+            assertEquals(3, export(get("/api/products/export.csv").param("category", "Hardware"), "products.csv").size());
+    }
+
+    private boolean backendExists(int pid) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity WHERE pid = ?", Integer.class, pid) > 0;
+    }
+
+    private List<String> export(MockHttpServletRequestBuilder requestBuilder, String filename) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"" + filename + "\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return body.lines().toList();
+    }
+
+    private Inventory inventory(Warehouse warehouse, Product product, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Warehouse warehouse(String name) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        return warehouseRepository.save(warehouse);
+    }
+
+    private Product product(String name, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory(category);
+        product.setWeight(BigDecimal.ONE);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,184 @@
+package com.warehouse.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walks the keyset-paged list endpoints page by page: every page but the last is full and its cursor is
+ * the ID of its last item, the last page has no cursor, and the pages together hold every row once, in
+ * ID order. Limits outside {@code [1, MAX_LIMIT]} are rejected.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CursorPagingTests {
+
+    private static final List<String> LIST_URIS = List.of("/api/warehouses", "/api/inventories", "/api/products");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private final List<Long> warehouseIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<Long> inventoryIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        for (int w = 0; w < 7; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("Paged warehouse " + w);
+            warehouse.setAddress("1 Test Street");
+            warehouse.setCapacity(BigDecimal.valueOf(1000));
+            warehouse.setManagerName("Test Manager");
+            warehouseIds.add(warehouseRepository.save(warehouse).getId());
+        }
+        for (int p = 0; p < 3; p++) {
+            Product product = new Product();
+            product.setName("Paged product " + p);
+            product.setDescription("Test product");
+            product.setPrice(BigDecimal.TEN);
+            product.setCategory("Category");
+            product.setWeight(BigDecimal.ONE);
+            productIds.add(productRepository.save(product).getId());
+        }
+        for (Warehouse warehouse : warehouseRepository.findAllById(warehouseIds))
+            for (Product product : productRepository.findAllById(productIds)) {
+                Inventory inventory = new Inventory();
+                inventory.setWarehouse(warehouse);
+                inventory.setProduct(product);
+                inventory.setQuantity(5);
+                inventory.setMinStock(1);
+                inventory.setMaxStock(100);
+                inventoryIds.add(inventoryRepository.save(inventory).getId());
+            }
+        inventoryIds.sort(null);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        warehouseIds.clear();
+        productIds.clear();
+        inventoryIds.clear();
+    }
+
+    @Test
+    void pagesCoverEveryWarehouseOnce() throws Exception {
+        assertThat(walk("/api/warehouses", 3)).containsExactlyElementsOf(warehouseIds);
+        assertThat(walk("/api/warehouses?fields=id,name", 3)).containsExactlyElementsOf(warehouseIds);
+        assertThat(walk("/api/warehouses", 7)).containsExactlyElementsOf(warehouseIds);
+        assertThat(walk("/api/warehouses", 100)).containsExactlyElementsOf(warehouseIds);
+    }
+
+    @Test
+    void pagesCoverEveryInventoryOnce() throws Exception {
+        assertThat(walk("/api/inventories", 4)).containsExactlyElementsOf(inventoryIds);
+        assertThat(walk("/api/inventories", 1)).containsExactlyElementsOf(inventoryIds);
+        assertThat(walk("/api/inventories", 21)).containsExactlyElementsOf(inventoryIds);
+    }
+
+    @Test
+    void pagesCoverEveryProductOnce() throws Exception {
+        assertThat(walk("/api/products", 2)).containsExactlyElementsOf(productIds);
+        assertThat(walk("/api/products", 3)).containsExactlyElementsOf(productIds);
+    }
+
+    @Test
+    void afterSkipsExactlyThePreviousPages() throws Exception {
+        JsonNode page = page("/api/warehouses?after=" + warehouseIds.get(2) + "&limit=2");
+        assertThat(ids(page)).containsExactly(warehouseIds.get(3), warehouseIds.get(4));
+        assertThat(page.get("nextCursor").asLong()).isEqualTo(warehouseIds.get(4));
+
+        page = page("/api/warehouses?after=" + warehouseIds.get(6) + "&limit=2");
+        assertThat(ids(page)).isEmpty();
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void limitsOutOfBoundsAreRejected() throws Exception {
+        for (String uri : LIST_URIS) {
+            mockMvc.perform(get(uri).param("limit", "0"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", "-1"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", String.valueOf(CursorPageDTO.MAX_LIMIT + 1)))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", String.valueOf(CursorPageDTO.MAX_LIMIT)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    /**
+     * Follows the cursors of an endpoint from the first page to the last, checking each page, and
+     * returns the IDs of all items in the order they were served.
+     */
+    private List<Long> walk(String uri, int limit) throws Exception {
+        String separator = uri.contains("?") ? "&" : "?";
+        List<Long> served = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            JsonNode page = page(uri + separator + "after=" + after + "&limit=" + limit);
+            List<Long> ids = ids(page);
+            JsonNode nextCursor = page.get("nextCursor");
+            served.addAll(ids);
+            if (nextCursor.isNull()) {
+                assertThat(ids.size()).isLessThanOrEqualTo(limit);
+                return served;
+            }
+            assertThat(ids).hasSize(limit);
+            assertThat(nextCursor.asLong()).isEqualTo(ids.get(ids.size() - 1));
+            after = nextCursor.asLong();
+        }
+    }
+
+    private JsonNode page(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode item : page.get("items"))
+            ids.add(item.get("id").asLong());
+        return ids;
+    }
+}
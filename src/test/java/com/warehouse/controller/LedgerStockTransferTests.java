@@ -0,0 +1,12 @@
+package com.warehouse.controller;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the PostgreSQL stock transfer checks with the {@code ledger} stock engine.
+ */
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@TestPropertySource(properties = "warehouse.stock-engine.mode=ledger")
+class LedgerStockTransferTests extends PostgresStockTransferTests {
+}
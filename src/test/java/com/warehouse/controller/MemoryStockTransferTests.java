@@ -0,0 +1,95 @@
+package com.warehouse.controller;
+
+import com.warehouse.dto.inventory.TransferStockDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.service.stock.ShardedStockEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the PostgreSQL stock transfer checks with the {@code memory} stock engine, which also has to keep
+ * its in-memory quantities in step with the transfer's transaction and flush them. Flushes only run when
+ * a test calls them.
+ */
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@TestPropertySource(properties = {
+        "warehouse.stock-engine.mode=memory",
+        "warehouse.stock-engine.flush-interval-ms=3600000"})
+class MemoryStockTransferTests extends PostgresStockTransferTests {
+
+    @Autowired
+    private ShardedStockEngine stockEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rolledBackTransfersLeaveMemoryUnchanged() {
+        inventory(source, first, 10);
+        inventory(destination, first, 5);
+        inventory(source, second, 10);
+        assertEquals(5, quantity(destination, first));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.transferStock(source.getId(), new TransferStockDTO(destination.getId(), null, List.of(
+                    new TransferStockDTO.Item(first.getId(), 3), new TransferStockDTO.Item(second.getId(), 4))));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(10, quantity(source, first));
+        assertEquals(5, quantity(destination, first));
+        assertEquals(10, quantity(source, second));
+        assertTrue(inventoryService.getStockLevel(destination.getId(), second.getId()).isEmpty());
+        stockEngine.flush();
+        assertEquals(10, stored(source, first));
+        assertEquals(5, stored(destination, first));
+    }
+
+    @Test
+    void flushWritesTransferredQuantities() throws Exception {
+        inventory(source, first, 10);
+        inventory(destination, first, 5);
+        assertEquals(5, quantity(destination, first));
+
+        transfer(source, "{\"toWarehouseId\":" + destination.getId() + ",\"items\":[" + item(first, 3) + "]}");
+        transfer(source, "{\"toWarehouseId\":" + destination.getId() + ",\"items\":[" + item(first, 3) + "]}");
+        stockEngine.flush();
+
+        assertEquals(4, stored(source, first));
+        assertEquals(11, stored(destination, first));
+    }
+
+    @Test
+    void flushRetriesQuantitiesWhoseRowIsMissing() {
+        Inventory inventory = inventory(source, first, 10);
+        inventoryService.getStockLevel(inventory.getId());
+        stockEngine.adjust(inventory.getId(), -4, false);
+        jdbcTemplate.update("DELETE FROM inventory WHERE id = ?", inventory.getId());
+
+        stockEngine.flush();
+        jdbcTemplate.update("INSERT INTO inventory (id, warehouse_id, product_id, quantity, min_stock, max_stock) "
+                + "VALUES (?, ?, ?, 10, 1, 1000)", inventory.getId(), source.getId(), first.getId());
+        stockEngine.flush();
+
+        assertEquals(6, stored(source, first));
+    }
+
+    private int stored(Warehouse warehouse, Product product) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE warehouse_id = ? AND product_id = ?",
+                Integer.class, warehouse.getId(), product.getId());
+    }
+}
@@ -0,0 +1,224 @@
+package com.warehouse.controller;
+
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks stock transfers on PostgreSQL, once per stock engine mode selected by the subclasses: stock moves,
+ * missing destination records are created, transfers are all or nothing and failures map to their statuses.
+ * {@code @EnabledIf} is not inherited, so each subclass carries the PostgreSQL condition itself.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+@DirtiesContext
+abstract class PostgresStockTransferTests {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected InventoryService inventoryService;
+
+    @Autowired
+    protected WarehouseRepository warehouseRepository;
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @Autowired
+    protected InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    protected Warehouse source;
+    protected Warehouse destination;
+    protected Product first;
+    protected Product second;
+
+    @BeforeEach
+    void seed() {
+        source = warehouse("Source warehouse");
+        destination = warehouse("Destination warehouse");
+        first = product("First product");
+        second = product("Second product");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockMovementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void movesStockAndCreatesMissingDestinations() throws Exception {
+        inventory(source, first, 10);
+        inventory(source, second, 10);
+        inventory(destination, first, 5);
+
+        transfer(source, "{\"toWarehouseId\":" + destination.getId() + ",\"reference\":\"T-1\",\"items\":["
+                + item(first, 3) + "," + item(second, 4) + "]}")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].source.quantity").value(7))
+                .andExpect(jsonPath("$.items[0].destination.quantity").value(8))
+                .andExpect(jsonPath("$.items[1].source.quantity").value(6))
+                .andExpect(jsonPath("$.items[1].destination.quantity").value(4));
+
+        assertEquals(7, quantity(source, first));
+        assertEquals(6, quantity(source, second));
+        assertEquals(8, quantity(destination, first));
+        assertEquals(4, quantity(destination, second));
+        Inventory created = inventoryRepository.findAll().stream()
+                .filter(inventory -> inventory.getWarehouse().getId().equals(destination.getId())
+                        && inventory.getProduct().getId().equals(second.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(1, created.getMinStock());
+        assertEquals(1000, created.getMaxStock());
+    }
+
+    @Test
+    void movesStockOfASingleProduct() throws Exception {
+        inventory(source, first, 10);
+
+        mockMvc.perform(post("/api/warehouses/" + source.getId() + "/inventory/product/transfer?id=" + first.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"toWarehouseId\":" + destination.getId() + ",\"quantity\":10}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].source.quantity").value(0))
+                .andExpect(jsonPath("$.items[0].destination.quantity").value(10));
+
+        assertEquals(0, quantity(source, first));
+        assertEquals(10, quantity(destination, first));
+    }
+
+    @Test
+    void movesNothingIfAnySourceHoldsTooLittle() throws Exception {
+        inventory(source, first, 10);
+        inventory(source, second, 2);
+
+        transfer(source, "{\"toWarehouseId\":" + destination.getId() + ",\"items\":["
+                + item(first, 3) + "," + item(second, 5) + "]}")
+                .andExpect(status().isConflict());
+
+        assertEquals(10, quantity(source, first));
+        assertEquals(2, quantity(source, second));
+        assertTrue(inventoryService.getStockLevel(destination.getId(), first.getId()).isEmpty());
+        assertTrue(inventoryService.getStockLevel(destination.getId(), second.getId()).isEmpty());
+    }
+
+    @Test
+    void rejectsMissingSourcesAndDestinations() throws Exception {
+        inventory(source, first, 10);
+
+        transfer(source, "{\"toWarehouseId\":" + destination.getId() + ",\"items\":["
+                + item(first, 1) + "," + item(second, 1) + "]}")
+                .andExpect(status().isNotFound());
+        transfer(source, "{\"toWarehouseId\":" + (destination.getId() + 1000) + ",\"items\":["
+                + item(first, 1) + "]}")
+                .andExpect(status().isNotFound());
+
+        assertEquals(10, quantity(source, first));
+        assertTrue(inventoryService.getStockLevel(destination.getId(), first.getId()).isEmpty());
+    }
+
+    @Test
+    void concurrentTransfersInBothDirectionsConserveStock() throws Exception {
+        inventory(source, first, 20);
+        inventory(destination, first, 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                Warehouse from = i % 2 == 0 ? source : destination;
+                Warehouse to = i % 2 == 0 ? destination : source;
+                futures.add(executor.submit(() -> transfer(from, "{\"toWarehouseId\":" + to.getId()
+                        + ",\"items\":[" + item(first, 1) + "]}").andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> future : futures)
+                assertEquals(200, future.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(20, quantity(source, first));
+        assertEquals(20, quantity(destination, first));
+    }
+
+    protected ResultActions transfer(Warehouse from, String body) throws Exception {
+        return mockMvc.perform(post("/api/warehouses/" + from.getId() + "/inventory/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    protected static String item(Product product, int quantity) {
+        return "{\"productId\":" + product.getId() + ",\"quantity\":" + quantity + "}";
+    }
+
+    protected int quantity(Warehouse warehouse, Product product) {
+        return inventoryService.getStockLevel(warehouse.getId(), product.getId())
+                .map(StockLevelDTO::quantity).orElseThrow();
+    }
+
+    protected Inventory inventory(Warehouse warehouse, Product product, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Warehouse warehouse(String name) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        return warehouseRepository.save(warehouse);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,145 @@
+package com.warehouse.controller;
+
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.MovementType;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.StockMovement;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the stock movement history endpoint and the validation of typed adjustments. The ledger itself
+ * runs PostgreSQL-specific SQL, so movements are written through JPA here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockMovementTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Inventory inventory;
+    private final List<Long> movementIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName("Ledger warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        Product product = new Product();
+        product.setName("Ledger product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+
+        inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(5);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(100);
+        inventory = inventoryRepository.save(inventory);
+
+        movementIds.add(record(MovementType.RECEIPT, 10, "PO-1"));
+        movementIds.add(record(MovementType.PICK, -3, "SO-1"));
+        movementIds.add(record(MovementType.ADJUSTMENT, -2, null));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockMovementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pagesMovementsInTheOrderTheyWereRecorded() throws Exception {
+        String uri = "/api/inventories/" + inventory.getId() + "/movements";
+
+        mockMvc.perform(get(uri).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].type").value(contains("RECEIPT", "PICK")))
+                .andExpect(jsonPath("$.items[*].quantity").value(contains(10, -3)))
+                .andExpect(jsonPath("$.items[0].reference").value("PO-1"))
+                .andExpect(jsonPath("$.nextCursor").value(movementIds.get(1)));
+
+        mockMvc.perform(get(uri).param("after", movementIds.get(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].type").value(contains("ADJUSTMENT")))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        mockMvc.perform(get(uri).param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/inventories/" + (inventory.getId() + 1000) + "/movements"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rejectsMovementsWhoseDeltaDoesNotFitTheirType() throws Exception {
+        String uri = "/api/inventories/" + inventory.getId() + "/adjust";
+
+        mockMvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-1,\"type\":\"RECEIPT\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1,\"type\":\"PICK\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1,\"type\":\"RECEIPT\",\"reference\":\"" + "x".repeat(101) + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long record(MovementType type, int quantity, String reference) {
+        StockMovement movement = new StockMovement();
+        movement.setInventory(inventory);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        movement.setReference(reference);
+        movement.setCreatedAt(LocalDateTime.now());
+        return stockMovementRepository.save(movement).getId();
+    }
+}
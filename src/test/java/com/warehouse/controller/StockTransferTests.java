@@ -0,0 +1,54 @@
+package com.warehouse.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the validation of stock transfers, which runs before any of their PostgreSQL-specific SQL.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockTransferTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void rejectsInvalidTransfers() throws Exception {
+        String uri = "/api/warehouses/1/inventory/transfer";
+
+        expectBadRequest(uri, "{\"items\":[{\"productId\":1,\"quantity\":1}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":1,\"items\":[{\"productId\":1,\"quantity\":1}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"items\":[]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"items\":[{\"quantity\":1}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"items\":[{\"productId\":1,\"quantity\":0}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"items\":[{\"productId\":1,\"quantity\":1},"
+                + "{\"productId\":1,\"quantity\":2}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"reference\":\"" + "x".repeat(101) + "\","
+                + "\"items\":[{\"productId\":1,\"quantity\":1}]}");
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"items\":[" + "{\"productId\":1,\"quantity\":1},".repeat(1000)
+                + "{\"productId\":2,\"quantity\":1}]}");
+    }
+
+    @Test
+    void rejectsInvalidSingleProductTransfers() throws Exception {
+        String uri = "/api/warehouses/1/inventory/product/transfer?id=1";
+
+        expectBadRequest(uri, "{\"toWarehouseId\":2,\"quantity\":-5}");
+        expectBadRequest(uri, "{\"toWarehouseId\":1,\"quantity\":5}");
+    }
+
+    private void expectBadRequest(String uri, String body) throws Exception {
+        mockMvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+    }
+}
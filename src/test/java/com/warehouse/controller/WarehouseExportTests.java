@@ -0,0 +1,176 @@
+package com.warehouse.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the streamed NDJSON export of the warehouses: one warehouse per line in ID order with its
+ * inventories and their products embedded, and the read-only transaction of the stream committed and
+ * its connection returned once the export completes.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WarehouseExportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Warehouse north;
+    private Warehouse south;
+    private Warehouse empty;
+    private Product bolt;
+    private Product nut;
+
+    @BeforeEach
+    void seed() {
+        north = warehouse("North");
+        south = warehouse("South");
+        empty = warehouse("Empty");
+        bolt = product("Bolt");
+        nut = product("Nut");
+        inventory(north, nut, 3);
+        inventory(north, bolt, 5);
+        inventory(south, bolt, 7);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamsOneWarehousePerLineWithInventoriesAndProducts() throws Exception {
+        List<JsonNode> lines = export();
+
+        assertThat(lines).extracting(line -> line.get("id").asLong())
+                .containsExactly(north.getId(), south.getId(), empty.getId());
+
+        JsonNode first = lines.get(0);
+        assertThat(first.get("name").asText()).isEqualTo("North");
+        assertThat(first.get("managerName").asText()).isEqualTo("Test Manager");
+        assertThat(first.get("inventories")).hasSize(2);
+        assertThat(first.get("inventories").get(0).get("quantity").asInt()).isEqualTo(3);
+        assertThat(first.get("inventories").get(0).get("product").get("id").asLong()).isEqualTo(nut.getId());
+        assertThat(first.get("inventories").get(0).get("product").get("name").asText()).isEqualTo("Nut");
+        assertThat(first.get("inventories").get(1).get("quantity").asInt()).isEqualTo(5);
+        assertThat(first.get("inventories").get(1).get("product").get("weight").decimalValue())
+                .isEqualByComparingTo("1");
+
+        assertThat(lines.get(1).get("inventories")).hasSize(1);
+        assertThat(lines.get(1).get("inventories").get(0).get("product").get("id").asLong()).isEqualTo(bolt.getId());
+        assertThat(lines.get(2).get("inventories")).isEmpty();
+    }
+
+    @Test
+    void closesTheStreamedTransactionAfterTheExport() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        export();
+
+        assertThat(statistics.getTransactionCount()).isEqualTo(1);
+        assertThat(statistics.getSuccessfulTransactionCount()).isEqualTo(1);
+        assertThat(statistics.getSessionCloseCount()).isEqualTo(statistics.getSessionOpenCount());
+        assertThat(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    private List<JsonNode> export() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/warehouses/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        return body.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+    }
+
+    private Inventory inventory(Warehouse warehouse, Product product, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Warehouse warehouse(String name) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        return warehouseRepository.save(warehouse);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Hardware");
+        product.setWeight(BigDecimal.ONE);
+        return productRepository.save(product);
+    }
+}
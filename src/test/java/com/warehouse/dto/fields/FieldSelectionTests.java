@@ -0,0 +1,82 @@
+package com.warehouse.dto.fields;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.dto.inventory.MinimalInventoryDTO;
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.page.CursorPageDTO;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.warehouse.MinimalWarehouseDTO;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldSelectionTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .filters(FieldSelection.ALL_FIELDS)
+            .build();
+
+    @Test
+    void loadsAllRelationsByDefault() {
+        assertThat(FieldSelection.of(null, null, ResponseWarehouseDTO.RELATIONS).fetchPaths())
+                .containsExactly("inventories", "inventories.product");
+        assertThat(FieldSelection.of(null, null, ResponseWarehouseDTO.RELATIONS).filters())
+                .isSameAs(FieldSelection.ALL_FIELDS);
+    }
+
+    @Test
+    void loadsOnlyIncludedRelationsAndTheirParents() {
+        assertThat(FieldSelection.of(null, "inventories.product", ResponseWarehouseDTO.RELATIONS).fetchPaths())
+                .containsExactly("inventories", "inventories.product");
+        assertThat(FieldSelection.of(null, "inventories", ResponseWarehouseDTO.RELATIONS).fetchPaths())
+                .containsExactly("inventories");
+        assertThat(FieldSelection.of(null, "", ResponseWarehouseDTO.RELATIONS).fetchPaths()).isEmpty();
+    }
+
+    @Test
+    void loadsOnlyRelationsCoveredByFields() {
+        assertThat(FieldSelection.of("id,product.name", null, ResponseInventoryDTO.RELATIONS).fetchPaths())
+                .containsExactly("product");
+        assertThat(FieldSelection.of("id,inventories.quantity", null, ResponseWarehouseDTO.RELATIONS).fetchPaths())
+                .containsExactly("inventories");
+        assertThat(FieldSelection.of("id,inventories", "", ResponseWarehouseDTO.RELATIONS).fetchPaths()).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownRelations() {
+        assertThatThrownBy(() -> FieldSelection.of(null, "supplier", ResponseInventoryDTO.RELATIONS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void writesSelectedFieldsOfPageItems() throws Exception {
+        FieldSelection selection = FieldSelection.of("id,quantity,product.name", null, ResponseInventoryDTO.RELATIONS);
+        CursorPageDTO<ResponseInventoryDTO> page = new CursorPageDTO<>(List.of(inventory()), 7L);
+
+        assertThat(objectMapper.writer(selection.filters()).writeValueAsString(page))
+                .isEqualTo("{\"items\":[{\"id\":7,\"quantity\":5,\"product\":{\"name\":\"Bolt\"}}],\"nextCursor\":7}");
+    }
+
+    @Test
+    void omitsRelationsThatAreNotLoaded() throws Exception {
+        FieldSelection selection = FieldSelection.of(null, "inventories", ResponseWarehouseDTO.RELATIONS);
+        ResponseWarehouseDTO warehouse = new ResponseWarehouseDTO(1L, "Main", "1 Test Street", BigDecimal.TEN,
+                "Manager", List.of(new MinimalInventoryDTO(7L, 5, 1, 10, null)));
+
+        assertThat(objectMapper.writer(selection.filters()).writeValueAsString(warehouse))
+                .isEqualTo("{\"id\":1,\"name\":\"Main\",\"address\":\"1 Test Street\",\"capacity\":10,"
+                        + "\"managerName\":\"Manager\",\"inventories\":[{\"id\":7,\"quantity\":5,\"minStock\":1,\"maxStock\":10}]}");
+    }
+
+    private static ResponseInventoryDTO inventory() {
+        return new ResponseInventoryDTO(7L, 5, 1, 10,
+                new MinimalWarehouseDTO(1L, "Main", "1 Test Street", BigDecimal.TEN, "Manager"),
+                new ResponseProductDTO(3L, "Bolt", "M8 bolt", BigDecimal.ONE, "Hardware", BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,169 @@
+package com.warehouse.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.warehouse.config.CacheConfig;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.product.UpdateProductDTO;
+import com.warehouse.entity.Product;
+import com.warehouse.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the product caches: an update evicts its product, the lists of its old and new category and
+ * the category list once it commits, and nothing else; a rolled-back update evicts nothing; and
+ * {@code /api/cache/stats} reports the hits and misses.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Product hammer;
+
+    @BeforeEach
+    void seed() {
+        hammer = product("Hammer", "Tools");
+        product("Anvil", "Forge");
+        product("Crate", "Storage");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void updatesEvictTheOldAndNewCategory() {
+        warmUp();
+
+        productService.updateProduct(hammer.getId(), moved("Forge"));
+
+        assertThat(cache(CacheConfig.PRODUCTS).get(hammer.getId())).isNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Tools")).isNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Forge")).isNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Storage")).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCT_CATEGORIES).get(CacheConfig.ALL)).isNull();
+
+        assertThat(productService.findProductsByCategory("Tools")).isEmpty();
+        assertThat(productService.findProductsByCategory("Forge")).extracting(ResponseProductDTO::name)
+                .containsExactlyInAnyOrder("Anvil", "Moved hammer");
+        assertThat(productService.findAllCategories()).containsExactlyInAnyOrder("Forge", "Storage");
+        assertThat(productService.getProductById(hammer.getId())).map(ResponseProductDTO::category).hasValue("Forge");
+    }
+
+    @Test
+    void updatesEvictOnlyOnceTheyCommit() {
+        warmUp();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productService.updateProduct(hammer.getId(), moved("Forge"));
+            assertThat(cache(CacheConfig.PRODUCTS).get(hammer.getId())).isNotNull();
+            assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Tools")).isNotNull();
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache(CacheConfig.PRODUCTS).get(hammer.getId())).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Tools")).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Forge")).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCT_CATEGORIES).get(CacheConfig.ALL)).isNotNull();
+        assertThat(productService.getProductById(hammer.getId())).map(ResponseProductDTO::name).hasValue("Hammer");
+        assertThat(productService.findProductsByCategory("Tools")).extracting(ResponseProductDTO::name)
+                .containsExactly("Hammer");
+    }
+
+    @Test
+    void statsReportHitsAndMisses() throws Exception {
+        JsonNode before = stats(CacheConfig.PRODUCTS);
+
+        productService.getProductById(hammer.getId());
+        productService.getProductById(hammer.getId());
+        productService.getProductById(hammer.getId());
+        productService.getProductById(hammer.getId() + 1000);
+
+        JsonNode after = stats(CacheConfig.PRODUCTS);
+        assertThat(after.get("missCount").asLong() - before.get("missCount").asLong()).isEqualTo(2);
+        assertThat(after.get("hitCount").asLong() - before.get("hitCount").asLong()).isEqualTo(2);
+        assertThat(after.get("size").asLong()).isEqualTo(2);
+        assertThat(after.get("hitRate").asDouble()).isGreaterThan(0);
+        assertThat(stats(CacheConfig.PRODUCTS_BY_CATEGORY)).isNotNull();
+        assertThat(stats(CacheConfig.PRODUCT_CATEGORIES)).isNotNull();
+    }
+
+    /**
+     * Loads the product, every category list and the category list into the caches.
+     */
+    private void warmUp() {
+        productService.getProductById(hammer.getId());
+        productService.findProductsByCategory("Tools");
+        productService.findProductsByCategory("Forge");
+        productService.findProductsByCategory("Storage");
+        productService.findAllCategories();
+        assertThat(cache(CacheConfig.PRODUCTS).get(hammer.getId())).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCTS_BY_CATEGORY).get("Tools")).isNotNull();
+        assertThat(cache(CacheConfig.PRODUCT_CATEGORIES).get(CacheConfig.ALL)).isNotNull();
+    }
+
+    private JsonNode stats(String name) throws Exception {
+        String body = mockMvc.perform(get("/api/cache/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (JsonNode cache : objectMapper.readTree(body))
+            if (cache.get("name").asText().equals(name))
+                return cache;
+        throw new AssertionError("No statistics for cache " + name);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    private static UpdateProductDTO moved(String category) {
+        return new UpdateProductDTO("Moved hammer", "Test product", BigDecimal.TEN, category, BigDecimal.ONE);
+    }
+
+    private Product product(String name, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory(category);
+        product.setWeight(BigDecimal.ONE);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,250 @@
+package com.warehouse.service;
+
+import com.warehouse.dto.fields.FieldSelection;
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.product.UpdateProductDTO;
+import com.warehouse.dto.warehouse.ResponseWarehouseDTO;
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.stock.LowStockIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Asserts the exact number of SQL statements issued by the service read paths, so that a lost
+ * fetch plan (and the resulting N+1 lazy loading) fails the build instead of reaching production.
+ * <p>
+ * Each call runs outside any transaction, as it does from a controller, so the read paths must map
+ * their results inside their own read-only transaction, which never flushes.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StatementCountTests {
+
+    private static final int WAREHOUSES = 3;
+    private static final int PRODUCTS = 4;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Warehouse> warehouses = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        for (int w = 0; w < WAREHOUSES; w++)
+            warehouses.add(warehouseRepository.save(warehouse("Warehouse " + w, 1000 * (w + 1))));
+        for (int p = 0; p < PRODUCTS; p++)
+            products.add(productRepository.save(product("Product " + p, "Category " + (p % 2))));
+        for (Warehouse warehouse : warehouses)
+            for (Product product : products)
+                inventoryRepository.save(inventory(warehouse, product, 5, 10));
+        lowStockIndex.rebuild();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        lowStockIndex.rebuild();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        warehouses.clear();
+        products.clear();
+    }
+
+    @Test
+    void inventoryReadsIssueOneStatement() {
+        Long warehouseId = warehouses.get(0).getId();
+        Long productId = products.get(0).getId();
+        Long inventoryId = inventoryRepository.findByWarehouseId(warehouseId).get(0).getId();
+
+        assertStatements(1, () -> inventoryService.getAllInventories());
+        assertStatements(1, () -> inventoryService.getInventoryPage(0L, 5));
+        assertStatements(1, () -> inventoryService.getInventoryById(inventoryId));
+        assertStatements(1, () -> inventoryService.findWarehouseInventory(warehouseId));
+        assertStatements(1, () -> inventoryService.getWarehouseInventoryVersion(warehouseId));
+        assertStatements(1, () -> inventoryService.findProductInInventory(productId));
+        assertStatements(1, () -> inventoryService.findProductInWarehouseInventory(productId, warehouseId));
+        assertStatements(1, () -> inventoryService.findLowStockInventory());
+        assertStatements(1, () -> inventoryService.findLowStockInventory(warehouseId));
+    }
+
+    @Test
+    void sparseReadsFetchOnlySelectedRelations() {
+        Long warehouseId = warehouses.get(0).getId();
+        FieldSelection noInventoryRelations = FieldSelection.of(null, "", ResponseInventoryDTO.RELATIONS);
+        FieldSelection productOnly = FieldSelection.of("id,quantity,product.name", null, ResponseInventoryDTO.RELATIONS);
+        FieldSelection noInventories = FieldSelection.of("id,name", null, ResponseWarehouseDTO.RELATIONS);
+
+        assertStatements(1, () -> inventoryService.getInventoryPage(0L, 5, noInventoryRelations));
+        assertThat(inventoryService.getInventoryPage(0L, 5, noInventoryRelations).items())
+                .allSatisfy(inventory -> {
+                    assertThat(inventory.warehouse()).isNull();
+                    assertThat(inventory.product()).isNull();
+                });
+        assertThat(inventoryService.findWarehouseInventory(warehouseId, productOnly))
+                .hasSize(PRODUCTS)
+                .allSatisfy(inventory -> {
+                    assertThat(inventory.warehouse()).isNull();
+                    assertThat(inventory.product()).isNotNull();
+                });
+        assertStatements(1, () -> warehouseService.getWarehousePage(0L, 2, noInventories));
+        assertThat(warehouseService.getWarehouseById(warehouseId, noInventories))
+                .hasValueSatisfying(warehouse -> assertThat(warehouse.inventories()).isNull());
+    }
+
+    @Test
+    void warehouseReadsIssueOneStatementPerQuery() {
+        Long warehouseId = warehouses.get(0).getId();
+
+        assertStatements(1, () -> warehouseService.getAllWarehouses());
+        assertStatements(2, () -> warehouseService.getWarehousePage(0L, 2));
+        assertStatements(1, () -> warehouseService.getWarehouseById(warehouseId));
+        assertStatements(1, () -> warehouseService.findWarehousesByName("warehouse"));
+        assertStatements(1, () -> warehouseService.findWarehousesByCapacity(BigDecimal.ZERO));
+        assertStatements(1, () -> warehouseService.getSummaries());
+        assertStatements(1, () -> warehouseService.getSummary(warehouseId));
+    }
+
+    @Test
+    void warehouseSummariesAggregateInventory() {
+        assertThat(warehouseService.getSummaries())
+                .extracting(WarehouseSummaryDTO::skuCount, WarehouseSummaryDTO::totalUnits,
+                        WarehouseSummaryDTO::lowStockCount, WarehouseSummaryDTO::utilization)
+                .containsExactly(
+                        tuple(4L, 20L, 4L, new BigDecimal("0.0200")),
+                        tuple(4L, 20L, 4L, new BigDecimal("0.0100")),
+                        tuple(4L, 20L, 4L, new BigDecimal("0.0067")));
+        assertThat(warehouseService.getSummary(warehouses.get(0).getId()).orElseThrow().totalWeight())
+                .isEqualByComparingTo("20");
+    }
+
+    @Test
+    void productReadsIssueOneStatement() {
+        Long productId = products.get(0).getId();
+
+        assertStatements(1, () -> productService.getAllProducts());
+        assertStatements(1, () -> productService.getProductPage(0L, 2));
+        assertStatements(1, () -> productService.getProductById(productId));
+        assertStatements(1, () -> productService.findProductsByCategory("Category 0"));
+        assertStatements(1, () -> productService.findAllCategories());
+        assertStatements(1, () -> productService.search("Category 0", "PRODUCT", BigDecimal.ONE, BigDecimal.TEN,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "name"))));
+        assertThat(productService.search("Category 0", "PRODUCT", BigDecimal.ONE, BigDecimal.TEN,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "name"))))
+                .satisfies(page -> {
+                    assertThat(page.items()).extracting(ResponseProductDTO::name).containsExactly("Product 2");
+                    assertThat(page.hasNext()).isTrue();
+                });
+    }
+
+    @Test
+    void cachedProductReadsIssueNoStatementUntilWritten() {
+        Product product = products.get(0);
+        Long productId = product.getId();
+        productService.getProductById(productId);
+        productService.findProductsByCategory("Category 0");
+        productService.findAllCategories();
+
+        assertStatements(0, () -> productService.getProductById(productId));
+        assertStatements(0, () -> productService.getProductVersion(productId));
+        assertStatements(0, () -> productService.findProductsByCategory("Category 0"));
+        assertStatements(0, () -> productService.findAllCategories());
+
+        productService.updateProduct(productId, new UpdateProductDTO(product.getName(), product.getDescription(),
+                product.getPrice(), "Category 9", product.getWeight()));
+
+        assertStatements(1, () -> productService.getProductById(productId));
+        assertThat(productService.getProductById(productId)).hasValueSatisfying(
+                dto -> assertThat(dto.category()).isEqualTo("Category 9"));
+        assertStatements(1, () -> productService.findProductsByCategory("Category 0"));
+        assertThat(productService.findProductsByCategory("Category 0")).hasSize(PRODUCTS / 2 - 1);
+        assertThat(productService.findAllCategories()).contains("Category 9");
+    }
+
+    private void assertStatements(long expected, Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        assertThat(statistics.getFlushCount()).isZero();
+    }
+
+    private static Warehouse warehouse(String name, int capacity) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(capacity));
+        warehouse.setManagerName("Test Manager");
+        return warehouse;
+    }
+
+    private static Product product(String name, String category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory(category);
+        product.setWeight(BigDecimal.ONE);
+        return product;
+    }
+
+    private static Inventory inventory(Warehouse warehouse, Product product, int quantity, int minStock) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(minStock);
+        inventory.setMaxStock(100);
+        return inventory;
+    }
+}
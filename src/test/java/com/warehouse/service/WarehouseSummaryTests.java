@@ -0,0 +1,132 @@
+package com.warehouse.service;
+
+import com.warehouse.dto.warehouse.WarehouseSummaryDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the figures of the warehouse summaries against seeded data: SKU count, total units, low-stock
+ * count, total weight and utilization, including warehouses without inventory or capacity.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WarehouseSummaryTests {
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Warehouse stocked;
+    private Warehouse empty;
+    private Warehouse uncapped;
+
+    @BeforeEach
+    void seed() {
+        stocked = warehouse("Stocked", 1000);
+        empty = warehouse("Empty", 500);
+        uncapped = warehouse("Uncapped", 0);
+        Product heavy = product("Heavy", new BigDecimal("2.00"));
+        Product light = product("Light", new BigDecimal("0.50"));
+        inventory(stocked, heavy, 10, 5);
+        inventory(stocked, light, 3, 5);
+        inventory(uncapped, heavy, 0, 1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void summarizesEveryWarehouse() {
+        List<WarehouseSummaryDTO> summaries = warehouseService.getSummaries();
+
+        assertThat(summaries).extracting(WarehouseSummaryDTO::id)
+                .containsExactly(stocked.getId(), empty.getId(), uncapped.getId());
+        assertStocked(summaries.get(0));
+
+        WarehouseSummaryDTO emptySummary = summaries.get(1);
+        assertThat(emptySummary.skuCount()).isZero();
+        assertThat(emptySummary.totalUnits()).isZero();
+        assertThat(emptySummary.lowStockCount()).isZero();
+        assertThat(emptySummary.totalWeight()).isEqualByComparingTo("0");
+        assertThat(emptySummary.utilization()).isEqualByComparingTo("0");
+
+        WarehouseSummaryDTO uncappedSummary = summaries.get(2);
+        assertThat(uncappedSummary.skuCount()).isEqualTo(1);
+        assertThat(uncappedSummary.totalUnits()).isZero();
+        assertThat(uncappedSummary.lowStockCount()).isEqualTo(1);
+        assertThat(uncappedSummary.utilization()).isNull();
+    }
+
+    @Test
+    void summarizesOneWarehouse() {
+        assertStocked(warehouseService.getSummary(stocked.getId()).orElseThrow());
+        assertThat(warehouseService.getSummary(empty.getId()).orElseThrow().skuCount()).isZero();
+        assertThat(warehouseService.getSummary(uncapped.getId() + 1000)).isEmpty();
+    }
+
+    private void assertStocked(WarehouseSummaryDTO summary) {
+        assertThat(summary.name()).isEqualTo("Stocked");
+        assertThat(summary.capacity()).isEqualByComparingTo("1000");
+        assertThat(summary.skuCount()).isEqualTo(2);
+        assertThat(summary.totalUnits()).isEqualTo(13);
+        assertThat(summary.lowStockCount()).isEqualTo(1);
+        assertThat(summary.totalWeight()).isEqualByComparingTo("21.50");
+        assertThat(summary.utilization()).isEqualByComparingTo("0.0130");
+    }
+
+    private Inventory inventory(Warehouse warehouse, Product product, int quantity, int minStock) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(minStock);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Warehouse warehouse(String name, int capacity) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(capacity));
+        warehouse.setManagerName("Test Manager");
+        return warehouseRepository.save(warehouse);
+    }
+
+    private Product product(String name, BigDecimal weight) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(weight);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,263 @@
+package com.warehouse.service.imports;
+
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.imports.RejectedLineDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.product.ResponseProductDTO;
+import com.warehouse.dto.search.SuggestionDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import com.warehouse.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the CSV imports on PostgreSQL, which stages their rows with COPY and merges them with set-based
+ * statements: insert and update counts, rejected lines, last row wins, all or nothing, and the caches and
+ * indexes refreshed after an import.
+ */
+@SpringBootTest
+@ActiveProfiles("postgres")
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@DirtiesContext
+class CopyImportTests {
+
+    private static final String PRODUCT_HEADER = "id,name,description,price,category,weight\n";
+    private static final String INVENTORY_HEADER = "warehouse_id,product_id,quantity,min_stock,max_stock\n";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Warehouse warehouse;
+    private Product anvil;
+    private Product tongs;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Import warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        anvil = product("Anvil");
+        tongs = product("Tongs");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockMovementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importsProductsAndReportsRejectedLines() throws IOException {
+        long missing = tongs.getId() + 1000;
+
+        ImportResultDTO result = productService.importProducts(new StringReader(PRODUCT_HEADER
+                + ",Claw Hammer,Forged,5.00,Tools,1\n"
+                + anvil.getId() + ",Anvil v1,Cast,7,Tools,2\n"
+                + missing + ",Ghost,None,1,Tools,1\n"
+                + anvil.getId() + ",\"Anvil, \"\"heavy\"\"\",Forged,8,Forge,3\n"
+                + ",Broken,None,-1,Tools,1\n"
+                + ",Sledge Hammer,Forged,12.50,Tools,4\n"));
+
+        assertThat(result.rows()).isEqualTo(6);
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(3);
+        assertThat(result.rejectedLines()).extracting(RejectedLineDTO::line).containsExactly(3L, 4L, 6L);
+        assertThat(result.rejectedLines().get(0).reason()).isEqualTo("Superseded by line 5.");
+        assertThat(result.rejectedLines().get(1).reason()).isEqualTo("Product not found.");
+
+        Product updated = productRepository.findById(anvil.getId()).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Anvil, \"heavy\"");
+        assertThat(updated.getCategory()).isEqualTo("Forge");
+        assertThat(updated.getPrice()).isEqualByComparingTo("8");
+        assertThat(updated.getVersion()).isEqualTo(anvil.getVersion() + 1);
+        assertThat(productRepository.findById(tongs.getId()).orElseThrow().getName()).isEqualTo("Tongs");
+        assertThat(productService.findProductsByCategory("Tools")).extracting(ResponseProductDTO::name)
+                .containsExactlyInAnyOrder("Tongs", "Claw Hammer", "Sledge Hammer");
+    }
+
+    @Test
+    void clearsProductCachesAndRebuildsTheNameIndexAfterAnImport() throws IOException {
+        assertThat(productService.getProductById(anvil.getId())).map(ResponseProductDTO::name).hasValue("Anvil");
+        assertThat(productService.findProductsByCategory("Forge")).isEmpty();
+        assertThat(productService.findAllCategories()).doesNotContain("Forge");
+
+        productService.importProducts(new StringReader(PRODUCT_HEADER
+                + anvil.getId() + ",Great Anvil,Cast,9,Forge,50\n"
+                + ",Claw Hammer,Forged,5.00,Forge,1\n"));
+
+        assertThat(productService.getProductById(anvil.getId())).map(ResponseProductDTO::name).hasValue("Great Anvil");
+        assertThat(productService.findProductsByCategory("Forge")).extracting(ResponseProductDTO::name)
+                .containsExactlyInAnyOrder("Great Anvil", "Claw Hammer");
+        assertThat(productService.findAllCategories()).contains("Forge");
+        assertThat(productService.suggest("hammer", 10)).extracting(SuggestionDTO::name).containsExactly("Claw Hammer");
+        assertThat(productService.suggest("great", 10)).extracting(SuggestionDTO::id).containsExactly(anvil.getId());
+    }
+
+    @Test
+    void productImportsFailingMidwayWriteNothing() throws IOException {
+        StringBuilder csv = new StringBuilder(PRODUCT_HEADER)
+                .append(anvil.getId()).append(",Changed,Cast,9,Forge,50\n");
+        for (int i = 0; i < 5000; i++)
+            csv.append(",Bulk product ").append(i).append(',').append("x".repeat(200)).append(",1.00,Bulk,1\n");
+
+        assertThatThrownBy(() -> productService.importProducts(failingAfter(csv.toString())))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(productRepository.count()).isEqualTo(2);
+        assertThat(productRepository.findById(anvil.getId()).orElseThrow().getName()).isEqualTo("Anvil");
+
+        ImportResultDTO retried = productService.importProducts(new StringReader(csv.toString()));
+        assertThat(retried.inserted()).isEqualTo(5000);
+        assertThat(retried.updated()).isEqualTo(1);
+    }
+
+    @Test
+    void importsInventoriesAndReportsRejectedLines() throws IOException {
+        inventory(anvil, 10, 1);
+        long missing = tongs.getId() + 1000;
+
+        ImportResultDTO result = inventoryService.importInventories(new StringReader(INVENTORY_HEADER
+                + warehouse.getId() + "," + anvil.getId() + ",20,1,100\n"
+                + warehouse.getId() + "," + tongs.getId() + ",0,5,100\n"
+                + warehouse.getId() + "," + anvil.getId() + ",1,2,200\n"
+                + (warehouse.getId() + 1000) + "," + anvil.getId() + ",1,1,1\n"
+                + warehouse.getId() + "," + missing + ",1,1,1\n"
+                + warehouse.getId() + "," + tongs.getId() + ",-3,1,1\n"));
+
+        assertThat(result.rows()).isEqualTo(6);
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.rejected()).isEqualTo(4);
+        assertThat(result.rejectedLines()).extracting(RejectedLineDTO::line).containsExactly(2L, 5L, 6L, 7L);
+        assertThat(result.rejectedLines()).extracting(RejectedLineDTO::reason).startsWith(
+                "Superseded by line 4.", "Warehouse not found.", "Product not found.");
+
+        assertThat(stockLevel(anvil)).extracting(StockLevelDTO::quantity, StockLevelDTO::minStock).containsExactly(1, 2);
+        assertThat(stockLevel(tongs)).extracting(StockLevelDTO::quantity, StockLevelDTO::minStock).containsExactly(0, 5);
+        assertThat(inventoryRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuildsTheLowStockIndexAfterAnInventoryImport() throws IOException {
+        inventory(anvil, 10, 1);
+        assertThat(inventoryService.findLowStockInventory(warehouse.getId())).isEmpty();
+
+        inventoryService.importInventories(new StringReader(INVENTORY_HEADER
+                + warehouse.getId() + "," + anvil.getId() + ",1,2,200\n"
+                + warehouse.getId() + "," + tongs.getId() + ",0,5,100\n"));
+
+        assertThat(inventoryService.findLowStockInventory(warehouse.getId()))
+                .extracting(inventory -> inventory.product().id())
+                .containsExactlyInAnyOrder(anvil.getId(), tongs.getId());
+    }
+
+    @Test
+    void inventoryImportsFailingMidwayWriteNothing() throws IOException {
+        Inventory existing = inventory(anvil, 10, 1);
+        StringBuilder csv = new StringBuilder(INVENTORY_HEADER)
+                .append(warehouse.getId()).append(',').append(anvil.getId()).append(",99,1,100\n");
+        for (int i = 0; i < 20000; i++)
+            csv.append(warehouse.getId()).append(',').append(tongs.getId()).append(',').append(i).append(",1,100\n");
+
+        assertThatThrownBy(() -> inventoryService.importInventories(failingAfter(csv.toString())))
+                .isInstanceOf(UncheckedIOException.class);
+
+        assertThat(inventoryRepository.count()).isEqualTo(1);
+        assertThat(inventoryRepository.findById(existing.getId()).orElseThrow().getQuantity()).isEqualTo(10);
+
+        ImportResultDTO retried = inventoryService.importInventories(new StringReader(csv.toString()));
+        assertThat(retried.inserted()).isEqualTo(1);
+        assertThat(retried.updated()).isEqualTo(1);
+        assertThat(retried.rejected()).isEqualTo(19999);
+        assertThat(stockLevel(tongs).quantity()).isEqualTo(19999);
+    }
+
+    /**
+     * Returns a reader of the CSV that fails instead of reporting its end, like a dropped upload.
+     */
+    private static Reader failingAfter(String csv) {
+        StringReader delegate = new StringReader(csv);
+        return new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = delegate.read(buffer, offset, length);
+                if (read < 0)
+                    throw new IOException("Connection reset");
+                return read;
+            }
+
+            @Override
+            public void close() {
+                delegate.close();
+            }
+        };
+    }
+
+    private StockLevelDTO stockLevel(Product product) {
+        return inventoryService.getStockLevel(warehouse.getId(), product.getId()).orElseThrow();
+    }
+
+    private Inventory inventory(Product product, int quantity, int minStock) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(minStock);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Tools");
+        product.setWeight(BigDecimal.ONE);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,107 @@
+package com.warehouse.service.imports;
+
+import com.warehouse.dto.imports.ImportResultDTO;
+import com.warehouse.dto.imports.RejectedLineDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTests {
+
+    private static final List<String> COLUMNS = List.of("name", "price");
+
+    @Test
+    void readsQuotedFieldsAcrossLinesAndCountsLines() throws IOException {
+        CsvReader reader = reader("""
+                Price,NAME,ignored\r
+                1.50,"Bolt, \"\"M8\"\"",x\r
+                \r
+                2,"Two
+                lines",y
+                3,Washer,z""");
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.line()).isEqualTo(2);
+        assertThat(reader.get("name")).isEqualTo("Bolt, \"M8\"");
+        assertThat(reader.decimal("price", 10, 2)).isEqualByComparingTo("1.50");
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.line()).isEqualTo(4);
+        assertThat(reader.get("name")).isEqualTo("Two\nlines");
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.line()).isEqualTo(6);
+        assertThat(reader.get("name")).isEqualTo("Washer");
+        assertThat(reader.problem()).isNull();
+
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void reportsMalformedRecordsAndCarriesOn() throws IOException {
+        CsvReader reader = reader("""
+                name,price
+                "Bolt"x,1
+                Nut
+                Washer,2
+                "Open,3""");
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.problem()).isEqualTo("Unexpected text after a closing quote.");
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.problem()).isEqualTo("Expected 2 fields, found 1.");
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.problem()).isNull();
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.line()).isEqualTo(5);
+        assertThat(reader.problem()).isEqualTo("Unterminated quoted field.");
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void rejectsHeadersWithoutRequiredColumns() {
+        assertThatThrownBy(() -> reader("name,weight\nBolt,1")).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing CSV column: price");
+        assertThatThrownBy(() -> reader("")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void validatesFields() throws IOException {
+        CsvReader reader = reader("name,price\n ,123456789.5\n");
+        reader.next();
+
+        assertThatThrownBy(() -> reader.text("name", 100)).hasMessage("Column name is required.");
+        assertThatThrownBy(() -> reader.decimal("price", 10, 2)).hasMessage("Column price does not fit DECIMAL(10,2).");
+        assertThat(reader.id("id")).isNull();
+    }
+
+    @Test
+    void rowsRejectInvalidRecordsIntoTheReport() throws IOException {
+        CsvReader reader = reader("name,price\nBolt,1\nNut,-1\nWasher,2.5\n");
+        ImportReport report = new ImportReport();
+        List<BigDecimal> prices = new ArrayList<>();
+        new CsvRows<>(reader, report, record -> record.decimal("price", 10, 2)).forEachRemaining(prices::add);
+        report.reject(new RejectedLineDTO(2, "Product not found."));
+
+        ImportResultDTO result = report.finish(1, 0);
+        assertThat(prices).extracting(BigDecimal::toPlainString).containsExactly("1", "2.5");
+        assertThat(result.rows()).isEqualTo(3);
+        assertThat(result.rejected()).isEqualTo(2);
+        assertThat(result.rejectedLines()).containsExactly(
+                new RejectedLineDTO(2, "Product not found."),
+                new RejectedLineDTO(3, "Column price cannot be negative."));
+    }
+
+    private static CsvReader reader(String csv) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        reader.readHeader(COLUMNS, List.of("id"));
+        return reader;
+    }
+}
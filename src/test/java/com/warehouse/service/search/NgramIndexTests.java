@@ -0,0 +1,100 @@
+package com.warehouse.service.search;
+
+import com.warehouse.dto.search.SuggestionDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NgramIndexTests {
+
+    private final NgramIndex index = new NgramIndex();
+
+    @BeforeEach
+    void seed() {
+        index.put(1L, "Steel Bolt M8");
+        index.put(2L, "Bolt");
+        index.put(3L, "Anchor bolt");
+        index.put(4L, "Thunderbolt Cable");
+        index.put(5L, "Boltzmann Sensor");
+        index.put(6L, "Washer");
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenSubstring() {
+        assertThat(index.search("BOLT", 10)).extracting(SuggestionDTO::id)
+                .containsExactly(2L, 5L, 3L, 1L, 4L);
+    }
+
+    @Test
+    void limitsResults() {
+        assertThat(index.search("bolt", 2)).extracting(SuggestionDTO::id).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void matchesShortQueriesAsPrefixesOnly() {
+        assertThat(index.search("b", 10)).extracting(SuggestionDTO::id).containsExactly(2L, 5L);
+        assertThat(index.search("wa", 10)).extracting(SuggestionDTO::name).containsExactly("Washer");
+        assertThat(index.search("sh", 10)).isEmpty();
+    }
+
+    @Test
+    void requiresTheWholeSubstringNotJustItsTrigrams() {
+        index.put(7L, "ancho-r");
+        assertThat(index.search("anchor", 10)).extracting(SuggestionDTO::id).containsExactly(3L);
+    }
+
+    @Test
+    void appliesUpdatesAndRemovals() {
+        index.put(2L, "Nut");
+        index.remove(3L);
+
+        assertThat(index.search("bolt", 10)).extracting(SuggestionDTO::id).containsExactly(5L, 1L, 4L);
+        assertThat(index.search("nut", 10)).extracting(SuggestionDTO::name).containsExactly("Nut");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileLoading() {
+        index.rebuild(loader -> {
+            loader.accept(10L, "Hex Nut");
+            index.put(11L, "Hex Key");
+            index.remove(10L);
+        });
+
+        assertThat(index.search("hex", 10)).extracting(SuggestionDTO::id).containsExactly(11L);
+        assertThat(index.search("bolt", 10)).isEmpty();
+    }
+
+    @Test
+    void appliesWritesOfATransactionOnlyOnceItCommits() {
+        List<TransactionSynchronization> committed = inTransaction(() -> {
+            index.put(7L, "Wing Nut");
+            index.remove(6L);
+        });
+        assertThat(index.search("nut", 10)).isEmpty();
+        assertThat(index.search("washer", 10)).hasSize(1);
+
+        TransactionSynchronizationUtils.invokeAfterCommit(committed);
+        assertThat(index.search("nut", 10)).extracting(SuggestionDTO::id).containsExactly(7L);
+        assertThat(index.search("washer", 10)).isEmpty();
+
+        inTransaction(() -> index.put(8L, "Lock Nut"));
+        assertThat(index.search("lock", 10)).isEmpty();
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Runnable writes) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writes.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.MovementType;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the database stock engine on PostgreSQL, whose adjustments are single conditional
+ * {@code UPDATE ... RETURNING} statements: concurrent deltas are never lost, guarded picks never take a
+ * quantity below zero, and refused and missing records map to 409 and 404.
+ */
+@SpringBootTest(properties = "warehouse.stock-engine.mode=database")
+@AutoConfigureMockMvc
+@ActiveProfiles("postgres")
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@DirtiesContext
+class DatabaseStockEngineTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Stock warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Stock product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockMovementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentDeltasAreNeverLost() throws Exception {
+        Long id = inventory(100).getId();
+        AtomicInteger task = new AtomicInteger();
+
+        runConcurrently(200, () -> {
+            int i = task.getAndIncrement();
+            if (i % 2 == 0)
+                inventoryService.adjustInventory(id, new AdjustInventoryDTO(2, false, null, null));
+            else
+                inventoryService.adjustInventory(warehouse.getId(), product.getId(),
+                        new AdjustInventoryDTO(-1, false, null, null));
+            return null;
+        });
+
+        assertEquals(200, stored(id));
+    }
+
+    @Test
+    void guardedPicksRacingToZeroNeverOversell() throws Exception {
+        Long id = inventory(50).getId();
+        AtomicInteger task = new AtomicInteger();
+        AtomicInteger picked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(100, () -> {
+            AdjustInventoryDTO pick = new AdjustInventoryDTO(-1, false, MovementType.PICK, null);
+            try {
+                if (task.getAndIncrement() % 2 == 0)
+                    inventoryService.adjustInventory(id, pick);
+                else
+                    inventoryService.adjustInventory(warehouse.getId(), product.getId(), pick);
+                picked.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(50, picked.get());
+        assertEquals(50, rejected.get());
+        assertEquals(0, stored(id));
+    }
+
+    @Test
+    void refusedAndMissingRecordsMapToConflictAndNotFound() throws Exception {
+        Long id = inventory(5).getId();
+
+        adjust("/api/inventories/" + id + "/adjust", -6, false)
+                .andExpect(status().isConflict());
+        adjust("/api/warehouses/" + warehouse.getId() + "/inventory/product/adjust?id=" + product.getId(), -6, false)
+                .andExpect(status().isConflict());
+        assertEquals(5, stored(id));
+
+        adjust("/api/inventories/" + (id + 1000) + "/adjust", 1, false)
+                .andExpect(status().isNotFound());
+        adjust("/api/warehouses/" + warehouse.getId() + "/inventory/product/adjust?id=" + (product.getId() + 1000), 1, false)
+                .andExpect(status().isNotFound());
+
+        adjust("/api/inventories/" + id + "/adjust", -6, true)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(-1));
+        assertEquals(-1, stored(id));
+    }
+
+    private ResultActions adjust(String uri, int delta, boolean allowNegative)
+            throws Exception {
+        return mockMvc.perform(post(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\":" + delta + ",\"allowNegative\":" + allowNegative + "}"));
+    }
+
+    private Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private int stored(Long id) {
+        return inventoryRepository.findById(id).orElseThrow().getQuantity();
+    }
+
+    private static void runConcurrently(int tasks, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++)
+                futures.add(executor.submit(task));
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
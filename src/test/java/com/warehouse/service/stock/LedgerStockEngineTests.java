@@ -0,0 +1,238 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.dto.inventory.CreateInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.UpdateInventoryDTO;
+import com.warehouse.dto.reference.ReferenceDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.MovementType;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.exception.InsufficientStockException;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.StockMovementRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the ledger stock engine on PostgreSQL: guarded movements, compaction and overwrites that supersede
+ * pending movements. Compaction only runs when a test calls it.
+ */
+@SpringBootTest(properties = {
+        "warehouse.stock-engine.mode=ledger",
+        "warehouse.stock-engine.compact-interval-ms=3600000"})
+@ActiveProfiles("postgres")
+@EnabledIf("com.warehouse.TestPostgres#isAvailable")
+@DirtiesContext
+class LedgerStockEngineTests {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private LedgerStockEngine stockEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Ledger warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Ledger product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockMovementRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void guardedPicksRacingToZeroNeverOversell() throws Exception {
+        Long id = inventory(50).getId();
+        AtomicInteger picked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(100, () -> {
+            try {
+                inventoryService.adjustInventory(id, new AdjustInventoryDTO(-1, false, MovementType.PICK, null));
+                picked.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertEquals(50, picked.get());
+        assertEquals(50, rejected.get());
+        assertEquals(0, quantity(id));
+        stockEngine.compact();
+        assertEquals(0, inventoryRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void compactionLeavesDerivedQuantitiesUnchanged() {
+        Long id = inventory(20).getId();
+        adjust(id, 10);
+        adjust(id, -3);
+        adjust(id, -7);
+        adjust(id, 4);
+        assertEquals(24, quantity(id));
+        assertEquals(4, stockEngine.heldChanges(warehouse.getId()));
+
+        stockEngine.compact();
+
+        assertEquals(24, quantity(id));
+        assertEquals(0, stockEngine.heldChanges(warehouse.getId()));
+        assertEquals(24, inventoryRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void overwritesSupersedePendingMovements() throws Exception {
+        Long id = inventory(10).getId();
+
+        adjust(id, 5);
+        inventoryService.updateInventory(id, new UpdateInventoryDTO(100, 1, 1000));
+        assertEquals(100, quantity(id));
+
+        adjust(id, 5);
+        inventoryService.upsertInventories(List.of(new CreateInventoryDTO(70, 1, 1000,
+                new ReferenceDTO(warehouse.getId()), new ReferenceDTO(product.getId()))).iterator());
+        assertEquals(70, quantity(id));
+
+        adjust(id, 5);
+        inventoryService.importInventories(new StringReader("warehouse_id,product_id,quantity,min_stock,max_stock\n"
+                + warehouse.getId() + "," + product.getId() + ",40,1,1000\n"));
+        assertEquals(40, quantity(id));
+
+        stockEngine.compact();
+        assertEquals(40, quantity(id));
+        assertEquals(40, inventoryRepository.findById(id).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void supersedeIsUndoneWithTheWriteAndNeedsItsTransaction() {
+        Long id = inventory(10).getId();
+        adjust(id, 5);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            stockEngine.evict(id);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(15, quantity(id));
+        assertThrows(IllegalTransactionStateException.class, () -> stockEngine.evict(id));
+    }
+
+    @Test
+    void overwritesRacingCompactionLeaveExactlyTheWrittenQuantity() throws Exception {
+        Long id = inventory(0).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 5; i++)
+                    adjust(id, 1);
+                int written = 100 + round;
+                Callable<Object> write = round % 2 == 0
+                        ? () -> inventoryService.updateInventory(id, new UpdateInventoryDTO(written, 1, 1000))
+                        : () -> inventoryService.upsertInventories(List.of(new CreateInventoryDTO(written, 1, 1000,
+                                new ReferenceDTO(warehouse.getId()), new ReferenceDTO(product.getId()))).iterator());
+                Future<?> overwrite = executor.submit(write);
+                Future<?> compaction = executor.submit(stockEngine::compact);
+                overwrite.get();
+                compaction.get();
+                stockEngine.compact();
+
+                assertEquals(written, quantity(id));
+                assertEquals(written, inventoryRepository.findById(id).orElseThrow().getQuantity());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private void adjust(Long id, int delta) {
+        inventoryService.adjustInventory(id, new AdjustInventoryDTO(delta, true, null, null));
+    }
+
+    private int quantity(Long id) {
+        return inventoryService.getStockLevel(id).map(StockLevelDTO::quantity).orElseThrow();
+    }
+
+    private static void runConcurrently(int tasks, Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++)
+                futures.add(executor.submit(task));
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
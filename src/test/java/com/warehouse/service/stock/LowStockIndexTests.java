@@ -0,0 +1,166 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.ResponseInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.UpdateInventoryDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the low-stock index only sees writes once their transaction commits, and that a rebuild
+ * keeps the writes made while it reads and overlays the quantities held by the stock engine.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LowStockIndexTests {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Warehouse warehouse;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Low-stock warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Low-stock product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        lowStockIndex.rebuild();
+    }
+
+    @Test
+    void updatesApplyOnlyOnceCommitted() {
+        Long id = inventory(10).getId();
+        lowStockIndex.rebuild();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.updateInventory(id, new UpdateInventoryDTO(1, 5, 1000));
+            assertTrue(lowStockIndex.inventoryIds(warehouse.getId()).isEmpty());
+            status.setRollbackOnly();
+        });
+        assertTrue(lowStockIndex.inventoryIds(warehouse.getId()).isEmpty());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.updateInventory(id, new UpdateInventoryDTO(1, 5, 1000));
+            assertTrue(lowStockIndex.inventoryIds(warehouse.getId()).isEmpty());
+        });
+        assertEquals(List.of(id), lowStockIndex.inventoryIds(warehouse.getId()));
+        assertEquals(List.of(id), inventoryService.findLowStockInventory(warehouse.getId()).stream()
+                .map(ResponseInventoryDTO::id).toList());
+    }
+
+    @Test
+    void rolledBackDeletesKeepTheirEntry() {
+        Long id = inventory(1).getId();
+        lowStockIndex.rebuild();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.deleteInventory(id);
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(id), lowStockIndex.inventoryIds(warehouse.getId()));
+
+        inventoryService.deleteInventory(id);
+        assertTrue(lowStockIndex.inventoryIds(warehouse.getId()).isEmpty());
+    }
+
+    @Test
+    void rebuildsReplayWritesMadeWhileReadingAndOverlayHeldQuantities() {
+        InventoryRepository repository = mock(InventoryRepository.class);
+        StockEngine engine = mock(StockEngine.class);
+        LowStockIndex index = new LowStockIndex(repository, engine);
+        index.update(1L, 10L, 0, 5);
+        index.update(2L, 10L, 0, 5);
+        when(repository.findLowStockEntries()).thenAnswer(invocation -> {
+            index.remove(1L);
+            index.update(3L, 10L, 0, 5);
+            return List.of(entry(1L, 10L), entry(2L, 10L), entry(4L, 20L));
+        });
+        when(engine.heldStockLevels()).thenReturn(List.of(
+                new StockLevelDTO(4L, 20L, 40L, 9, 5),
+                new StockLevelDTO(5L, 20L, 50L, 1, 5)));
+
+        index.rebuild();
+
+        assertThat(index.inventoryIds(null)).containsExactlyInAnyOrder(2L, 3L, 5L);
+        assertThat(index.inventoryIds(20L)).containsExactly(5L);
+    }
+
+    private static InventoryRepository.LowStockEntry entry(Long id, Long warehouseId) {
+        return new InventoryRepository.LowStockEntry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getWarehouseId() {
+                return warehouseId;
+            }
+        };
+    }
+
+    private Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(5);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+}
@@ -0,0 +1,266 @@
+package com.warehouse.service.stock;
+
+import com.warehouse.dto.inventory.AdjustInventoryDTO;
+import com.warehouse.dto.inventory.StockLevelDTO;
+import com.warehouse.dto.inventory.UpdateInventoryDTO;
+import com.warehouse.entity.Inventory;
+import com.warehouse.entity.Product;
+import com.warehouse.entity.Warehouse;
+import com.warehouse.repository.InventoryRepository;
+import com.warehouse.repository.ProductRepository;
+import com.warehouse.repository.WarehouseRepository;
+import com.warehouse.service.InventoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the memory stock engine: deltas held in memory, flushes of the adjusted quantities, fences around
+ * overwrites and their timeout. Flushes only run when a test calls them.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharded_engine;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "warehouse.stock-engine.mode=memory",
+        "warehouse.stock-engine.flush-interval-ms=3600000",
+        "warehouse.stock-engine.fence-timeout-ms=500"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+class ShardedStockEngineTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ShardedStockEngine stockEngine;
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Warehouse warehouse;
+    private Product product;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void seed() {
+        warehouse = new Warehouse();
+        warehouse.setName("Memory warehouse");
+        warehouse.setAddress("1 Test Street");
+        warehouse.setCapacity(BigDecimal.valueOf(1000));
+        warehouse.setManagerName("Test Manager");
+        warehouse = warehouseRepository.save(warehouse);
+
+        product = new Product();
+        product.setName("Memory product");
+        product.setDescription("Test product");
+        product.setPrice(BigDecimal.TEN);
+        product.setCategory("Category");
+        product.setWeight(BigDecimal.ONE);
+        product = productRepository.save(product);
+
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        executor.shutdownNow();
+        stockEngine.flush();
+        inventoryRepository.deleteAllInBatch();
+        warehouseRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void flushWritesAdjustedQuantities() {
+        Long id = inventory(10).getId();
+        adjust(id, -3);
+        adjust(id, 5);
+        assertEquals(12, quantity(id));
+        assertEquals(10, stored(id));
+
+        stockEngine.flush();
+
+        assertEquals(12, stored(id));
+        assertEquals(12, stockEngine.heldQuantity(id).orElseThrow());
+    }
+
+    @Test
+    void shutdownFlushesPendingQuantities() {
+        Long id = inventory(10).getId();
+        adjust(id, 7);
+        assertEquals(10, stored(id));
+
+        stockEngine.shutdown();
+
+        assertEquals(17, stored(id));
+    }
+
+    @Test
+    void lowStockRebuildsSeeUnflushedQuantities() {
+        Long id = inventory(10).getId();
+        adjust(id, -10);
+        assertEquals(10, stored(id));
+
+        lowStockIndex.rebuild();
+
+        assertEquals(List.of(id), lowStockIndex.inventoryIds(warehouse.getId()));
+    }
+
+    @Test
+    void warehouseReadsSeeUnflushedQuantities() throws Exception {
+        Long id = inventory(10).getId();
+        adjust(id, -10);
+        assertEquals(10, stored(id));
+
+        mockMvc.perform(get("/api/warehouses/" + warehouse.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inventories[0].quantity").value(0));
+        mockMvc.perform(get("/api/warehouses/" + warehouse.getId() + "/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUnits").value(0))
+                .andExpect(jsonPath("$.lowStockCount").value(1))
+                .andExpect(jsonPath("$.totalWeight").value(0));
+        mockMvc.perform(get("/api/warehouses/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalUnits").value(0))
+                .andExpect(jsonPath("$[0].lowStockCount").value(1));
+    }
+
+    @Test
+    void deltasOnAFencedRecordTimeOutWithConflict() throws Exception {
+        Long id = inventory(10).getId();
+        assertEquals(10, quantity(id));
+        CountDownLatch fenced = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> overwrite = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            stockEngine.evict(id);
+            fenced.countDown();
+            await(release);
+        }));
+        assertTrue(fenced.await(5, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        mockMvc.perform(post("/api/inventories/" + id + "/adjust")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-1,\"allowNegative\":false}"))
+                .andExpect(status().isConflict());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) >= 500);
+
+        release.countDown();
+        overwrite.get();
+        mockMvc.perform(post("/api/inventories/" + id + "/adjust")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-1,\"allowNegative\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(9));
+    }
+
+    @Test
+    void deltasRacingAnOverwriteApplyToTheWrittenQuantity() throws Exception {
+        Long id = inventory(10).getId();
+        adjust(id, 3);
+        CountDownLatch overwritten = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> overwrite = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.updateInventory(id, new UpdateInventoryDTO(100, 1, 1000));
+            overwritten.countDown();
+            await(release);
+        }));
+        assertTrue(overwritten.await(5, TimeUnit.SECONDS));
+
+        Future<StockLevelDTO> delta = executor.submit(() -> adjust(id, 5));
+        Thread.sleep(100);
+        assertEquals(10, quantity(id));
+        release.countDown();
+        overwrite.get();
+
+        assertEquals(105, delta.get().quantity());
+        assertEquals(105, quantity(id));
+        stockEngine.flush();
+        assertEquals(105, stored(id));
+    }
+
+    @Test
+    void rolledBackOverwritesKeepTheHeldQuantity() {
+        Long id = inventory(10).getId();
+        adjust(id, 3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryService.updateInventory(id, new UpdateInventoryDTO(100, 1, 1000));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(13, quantity(id));
+        stockEngine.flush();
+        assertEquals(13, stored(id));
+    }
+
+    private Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setWarehouse(warehouse);
+        inventory.setProduct(product);
+        inventory.setQuantity(quantity);
+        inventory.setMinStock(1);
+        inventory.setMaxStock(1000);
+        return inventoryRepository.save(inventory);
+    }
+
+    private StockLevelDTO adjust(Long id, int delta) {
+        return inventoryService.adjustInventory(id, new AdjustInventoryDTO(delta, true, null, null));
+    }
+
+    private int quantity(Long id) {
+        return inventoryService.getStockLevel(id).map(StockLevelDTO::quantity).orElseThrow();
+    }
+
+    private int stored(Long id) {
+        return inventoryRepository.findById(id).orElseThrow().getQuantity();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}